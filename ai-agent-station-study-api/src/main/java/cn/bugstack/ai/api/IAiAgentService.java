@@ -1,9 +1,13 @@
 package cn.bugstack.ai.api;
 
+import cn.bugstack.ai.api.dto.ArmoryRequestDTO;
 import cn.bugstack.ai.api.dto.AutoAgentRequestDTO;
+import cn.bugstack.ai.api.response.Response;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Ai Agent 服务接口
  *
@@ -14,4 +18,8 @@ public interface IAiAgentService {
 
     ResponseBodyEmitter autoAgent(AutoAgentRequestDTO request, HttpServletResponse response);
 
+    CompletableFuture<Response<Boolean>> armory(ArmoryRequestDTO request);
+
+    Response<Boolean> invalidateFlowConfig(String aiAgentId);
+
 }
@@ -0,0 +1,42 @@
+package cn.bugstack.ai.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 装配请求 DTO
+ *
+ * @author jinjie
+ * 2025/8/9 15:20
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArmoryRequestDTO implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 装配类型；client 按客户端装配（默认），model 仅装配对话模型及其依赖的 API、MCP
+     */
+    private String commandType;
+
+    /**
+     * 客户端ID列表；commandType 为 model 时为模型ID列表
+     */
+    private List<String> clientIdList;
+
+    /**
+     * 增量装配；仅重建配置变更的组件
+     */
+    private boolean incremental;
+
+}
@@ -43,4 +43,9 @@ public class AutoAgentRequestDTO implements Serializable {
      */
     private Integer maxStep;
 
+    /**
+     * 执行截止时间（秒），为空时不限制
+     */
+    private Integer timeout;
+
 }
\ No newline at end of file
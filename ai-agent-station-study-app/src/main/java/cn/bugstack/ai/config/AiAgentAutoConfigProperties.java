@@ -25,4 +25,9 @@ public class AiAgentAutoConfigProperties {
      */
     private List<String> clientIds;
 
+    /**
+     * 启动时优先从本地装配快照装配，随后后台与数据库对账
+     */
+    private boolean snapshotEnabled = true;
+
 }
\ No newline at end of file
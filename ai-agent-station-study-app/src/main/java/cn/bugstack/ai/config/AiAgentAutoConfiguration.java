@@ -3,6 +3,7 @@ package cn.bugstack.ai.config;
 import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
 import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
 import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.armory.snapshot.ArmorySnapshotService;
 import cn.bugstack.ai.types.common.Constants;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
 import lombok.extern.slf4j.Slf4j;
@@ -37,6 +38,9 @@ public class AiAgentAutoConfiguration implements ApplicationListener<Application
     @Resource
     private DefaultArmoryStrategyFactory defaultArmoryStrategyFactory;
 
+    @Resource
+    private ArmorySnapshotService armorySnapshotService;
+
     @Override
     public void onApplicationEvent(ApplicationReadyEvent event) {
         try {
@@ -68,16 +72,29 @@ public class AiAgentAutoConfiguration implements ApplicationListener<Application
 
             log.info("开始自动装配AI客户端，客户端ID列表: {}", commandIdList);
 
-            // 执行自动装配
-            StrategyHandler<ArmoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext, String> armoryStrategyHandler =
-                    defaultArmoryStrategyFactory.armoryStrategyHandler();
+            // 本地快照先行装配，立即提供服务；随后后台增量装配与数据库对账，仅重建变更的组件
+            if (aiAgentAutoConfigProperties.isSnapshotEnabled() && armorySnapshotService.containsClients(commandIdList)) {
+                try {
+                    armory(commandIdList, true, false);
+                    log.info("AI Agent 自动装配完成（本地快照），后台与数据库对账");
 
-            String result = armoryStrategyHandler.apply(
-                    ArmoryCommandEntity.builder()
-                            .commandType(AiAgentEnumVO.AI_CLIENT.getCode())
-                            .commandIdList(commandIdList)
-                            .build(),
-                    new DefaultArmoryStrategyFactory.DynamicContext());
+                    defaultArmoryStrategyFactory.armoryAsync(buildArmoryCommand(commandIdList, false, true))
+                            .whenComplete((result, e) -> {
+                                if (null != e) {
+                                    log.error("AI Agent 装配快照与数据库对账失败，继续使用快照装配结果", e);
+                                } else {
+                                    log.info("AI Agent 装配快照与数据库对账完成");
+                                    armorySnapshotService.pruneFlowConfig();
+                                }
+                            });
+                    return;
+                } catch (Exception e) {
+                    log.warn("AI Agent 本地快照装配失败，改为从数据库装配", e);
+                }
+            }
+
+            // 执行自动装配
+            armory(commandIdList, false, false);
 
             log.info("AI Agent 自动装配完成");
             
@@ -86,4 +103,20 @@ public class AiAgentAutoConfiguration implements ApplicationListener<Application
         }
     }
 
+    private void armory(List<String> commandIdList, boolean snapshot, boolean incremental) throws Exception {
+        StrategyHandler<ArmoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext, String> armoryStrategyHandler =
+                defaultArmoryStrategyFactory.armoryStrategyHandler();
+
+        armoryStrategyHandler.apply(buildArmoryCommand(commandIdList, snapshot, incremental), new DefaultArmoryStrategyFactory.DynamicContext());
+    }
+
+    private ArmoryCommandEntity buildArmoryCommand(List<String> commandIdList, boolean snapshot, boolean incremental) {
+        return ArmoryCommandEntity.builder()
+                .commandType(AiAgentEnumVO.AI_CLIENT.getCode())
+                .commandIdList(commandIdList)
+                .snapshot(snapshot)
+                .incremental(incremental)
+                .build();
+    }
+
 }
\ No newline at end of file
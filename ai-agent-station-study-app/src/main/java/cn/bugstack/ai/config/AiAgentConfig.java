@@ -34,15 +34,37 @@ public class AiAgentConfig {
                                        @Value("${spring.ai.openai.api-key}") String apiKey,
                                        @Qualifier("pgVectorJdbcTemplate") JdbcTemplate jdbcTemplate) {
 
+        return PgVectorStore.builder(jdbcTemplate, embeddingModel(baseUrl, apiKey))
+                .vectorTableName("vector_store_openai")
+                .build();
+    }
+
+    /**
+     * 智能体答案语义缓存；与知识库分表存放，content 为用户输入，答案存于 metadata
+     * <p>
+     * CREATE TABLE public.vector_store_answer_cache (
+     * id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+     * content TEXT NOT NULL,
+     * metadata JSONB,
+     * embedding VECTOR(1536)
+     * );
+     */
+    @Bean("answerCacheVectorStore")
+    @ConditionalOnBean(name = "pgVectorJdbcTemplate")
+    public PgVectorStore answerCacheVectorStore(@Value("${spring.ai.openai.base-url}") String baseUrl,
+                                                @Value("${spring.ai.openai.api-key}") String apiKey,
+                                                @Qualifier("pgVectorJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        return PgVectorStore.builder(jdbcTemplate, embeddingModel(baseUrl, apiKey))
+                .vectorTableName("vector_store_answer_cache")
+                .build();
+    }
+
+    private OpenAiEmbeddingModel embeddingModel(String baseUrl, String apiKey) {
         OpenAiApi openAiApi = OpenAiApi.builder()
                 .baseUrl(baseUrl)
                 .apiKey(apiKey)
                 .build();
-
-        OpenAiEmbeddingModel embeddingModel = new OpenAiEmbeddingModel(openAiApi);
-        return PgVectorStore.builder(jdbcTemplate, embeddingModel)
-                .vectorTableName("vector_store_openai")
-                .build();
+        return new OpenAiEmbeddingModel(openAiApi);
     }
 
     @Bean
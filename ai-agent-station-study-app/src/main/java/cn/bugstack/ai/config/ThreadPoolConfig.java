@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.scheduling.annotation.EnableAsync;
 
 import java.util.concurrent.*;
@@ -16,6 +17,7 @@ import java.util.concurrent.*;
 public class ThreadPoolConfig {
 
     @Bean
+    @Primary
     @ConditionalOnMissingBean(ThreadPoolExecutor.class)
     public ThreadPoolExecutor threadPoolExecutor(ThreadPoolConfigProperties properties) throws ClassNotFoundException, InstantiationException, IllegalAccessException {
         // 实例化策略
@@ -47,4 +49,34 @@ public class ThreadPoolConfig {
                 handler);
     }
 
+    /**
+     * 装配线程池；装配链路、数据加载、组件构建和 MCP 握手在此执行，与会话、请求使用的线程池隔离。
+     * 装配链路会等待自己提交的任务，因此不设队列：线程用尽时由提交线程直接执行，不会等待排在队列中的任务而相互阻塞。
+     */
+    @Bean("armoryThreadPoolExecutor")
+    public ThreadPoolExecutor armoryThreadPoolExecutor(ThreadPoolConfigProperties properties) {
+        return new ThreadPoolExecutor(properties.getArmoryCorePoolSize(),
+                properties.getArmoryMaxPoolSize(),
+                properties.getKeepAliveTime(),
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                Executors.defaultThreadFactory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 步骤线程池；执行阶段的子任务和预先生成的总结在此执行，与会话线程池隔离，会话线程等待它们时不会占满同一个池而相互阻塞。
+     * 不设队列，线程用尽时拒绝，由提交方在当前线程执行或放弃预先执行。
+     */
+    @Bean("stepThreadPoolExecutor")
+    public ThreadPoolExecutor stepThreadPoolExecutor(ThreadPoolConfigProperties properties) {
+        return new ThreadPoolExecutor(properties.getStepCorePoolSize(),
+                properties.getStepMaxPoolSize(),
+                properties.getKeepAliveTime(),
+                TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                Executors.defaultThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
 }
@@ -23,4 +23,14 @@ public class ThreadPoolConfigProperties {
      * */
     private String policy = "AbortPolicy";
 
+    /** 装配线程池核心线程数 */
+    private Integer armoryCorePoolSize = 4;
+    /** 装配线程池最大线程数；不排队，线程用尽时由提交线程执行 */
+    private Integer armoryMaxPoolSize = 32;
+
+    /** 步骤线程池核心线程数 */
+    private Integer stepCorePoolSize = 8;
+    /** 步骤线程池最大线程数；不排队，线程用尽时拒绝 */
+    private Integer stepMaxPoolSize = 64;
+
 }
@@ -0,0 +1,114 @@
+package cn.bugstack.ai.test.dao;
+
+import cn.bugstack.ai.infrastructure.dao.IAiAgentExecuteEventDao;
+import cn.bugstack.ai.infrastructure.dao.IAiAgentExecuteSessionDao;
+import cn.bugstack.ai.infrastructure.dao.po.AiAgentExecuteEvent;
+import cn.bugstack.ai.infrastructure.dao.po.AiAgentExecuteSession;
+import com.alibaba.fastjson.JSON;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 智能体执行会话、执行事件 DAO 测试
+ *
+ * @author jinjie
+ * 2025/8/14 11:20
+ */
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class AiAgentExecuteEventDaoTest {
+
+    @Resource
+    private IAiAgentExecuteSessionDao aiAgentExecuteSessionDao;
+
+    @Resource
+    private IAiAgentExecuteEventDao aiAgentExecuteEventDao;
+
+    @Test
+    public void test_insertOrUpdateBatch() {
+        String sessionId = "test-session-" + System.currentTimeMillis();
+        List<AiAgentExecuteSession> sessions = List.of(
+                AiAgentExecuteSession.builder()
+                        .sessionId(sessionId)
+                        .agentId("3")
+                        .message("测试任务")
+                        .maxStep(3)
+                        .status("running")
+                        .startTime(LocalDateTime.now())
+                        .build(),
+                AiAgentExecuteSession.builder()
+                        .sessionId(sessionId)
+                        .agentId("3")
+                        .status("completed")
+                        .endTime(LocalDateTime.now())
+                        .build());
+
+        int result = aiAgentExecuteSessionDao.insertOrUpdateBatch(sessions);
+        log.info("批量写入会话结果: {}", result);
+        log.info("查询会话: {}", JSON.toJSONString(aiAgentExecuteSessionDao.queryBySessionId(sessionId)));
+    }
+
+    @Test
+    public void test_insertOrUpdateBatch_resubmit() {
+        String sessionId = "test-session-" + System.currentTimeMillis();
+        aiAgentExecuteSessionDao.insertOrUpdateBatch(List.of(
+                AiAgentExecuteSession.builder()
+                        .sessionId(sessionId)
+                        .agentId("3")
+                        .message("测试任务")
+                        .maxStep(3)
+                        .status("failed")
+                        .startTime(LocalDateTime.now().minusMinutes(5))
+                        .endTime(LocalDateTime.now().minusMinutes(4))
+                        .build()));
+
+        // 同一会话续跑：开始记录覆盖输入、步数和开始时间，结束时间清空
+        aiAgentExecuteSessionDao.insertOrUpdateBatch(List.of(
+                AiAgentExecuteSession.builder()
+                        .sessionId(sessionId)
+                        .agentId("3")
+                        .message("继续执行测试任务")
+                        .maxStep(5)
+                        .status("running")
+                        .startTime(LocalDateTime.now())
+                        .build()));
+
+        AiAgentExecuteSession session = aiAgentExecuteSessionDao.queryBySessionId(sessionId);
+        log.info("查询会话: {}", JSON.toJSONString(session));
+        Assert.assertEquals("running", session.getStatus());
+        Assert.assertEquals(Integer.valueOf(5), session.getMaxStep());
+        Assert.assertNull(session.getEndTime());
+    }
+
+    @Test
+    public void test_insertBatch() {
+        String sessionId = "test-session-" + System.currentTimeMillis();
+        List<AiAgentExecuteEvent> events = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            events.add(AiAgentExecuteEvent.builder()
+                    .sessionId(sessionId)
+                    .type("analysis")
+                    .subType("analysis_status")
+                    .step(i)
+                    .content("第" + i + "步分析")
+                    .completed(false)
+                    .eventTime(System.currentTimeMillis())
+                    .build());
+        }
+
+        int result = aiAgentExecuteEventDao.insertBatch(events);
+        log.info("批量插入事件结果: {}", result);
+        log.info("查询事件: {}", JSON.toJSONString(aiAgentExecuteEventDao.queryBySessionId(sessionId)));
+    }
+
+}
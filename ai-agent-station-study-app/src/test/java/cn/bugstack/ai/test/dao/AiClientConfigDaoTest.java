@@ -2,6 +2,7 @@ package cn.bugstack.ai.test.dao;
 
 import cn.bugstack.ai.infrastructure.dao.IAiClientConfigDao;
 import cn.bugstack.ai.infrastructure.dao.po.AiClientConfig;
+import cn.bugstack.ai.infrastructure.dao.po.AiClientConfigVersion;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -95,6 +96,12 @@ public class AiClientConfigDaoTest {
         log.info("查询启用状态配置结果: {}", aiClientConfigs);
     }
 
+    @Test
+    public void test_queryEnabledConfigVersion() {
+        AiClientConfigVersion aiClientConfigVersion = aiClientConfigDao.queryEnabledConfigVersion();
+        log.info("查询启用状态配置版本结果: {}", aiClientConfigVersion);
+    }
+
     @Test
     public void test_queryAll() {
         List<AiClientConfig> aiClientConfigs = aiClientConfigDao.queryAll();
@@ -3,6 +3,7 @@ package cn.bugstack.ai.test.domain;
 import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
 import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
 import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentRegistry;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
 import com.alibaba.fastjson.JSON;
 import jakarta.annotation.Resource;
@@ -16,7 +17,6 @@ import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.ai.openai.api.OpenAiApi;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.Arrays;
@@ -36,15 +36,15 @@ public class AgentTest {
     private DefaultArmoryStrategyFactory defaultArmoryStrategyFactory;
 
     /**
-     * Spring应用上下文，用于获取Bean实例
+     * 组件注册表，用于获取装配后的组件实例
      */
     @Resource
-    private ApplicationContext applicationContext;
+    private AgentComponentRegistry agentComponentRegistry;
 
     /**
      * 测试AI客户端API节点功能
      * 该测试方法演示了如何使用装备策略工厂来处理AI客户端命令，
-     * 并从应用上下文中获取OpenAiApi Bean实例。
+     * 并从组件注册表中获取OpenAiApi实例。
      *
      * @throws Exception 可能抛出的异常
      */
@@ -62,8 +62,8 @@ public class AgentTest {
                         .build(),
                 new DefaultArmoryStrategyFactory.DynamicContext()); // 创建动态上下文
 
-        // 从应用上下文中获取OpenAiApi Bean实例
-        OpenAiApi openAiApi = (OpenAiApi) applicationContext.getBean(AiAgentEnumVO.AI_CLIENT_API.getBeanName("1001"));
+        // 从组件注册表中获取OpenAiApi实例
+        OpenAiApi openAiApi = agentComponentRegistry.getComponent(AiAgentEnumVO.AI_CLIENT_API, "1001", OpenAiApi.class);
 
         // 记录测试结果日志
         log.info("测试结果：{}", openAiApi);
@@ -72,7 +72,7 @@ public class AgentTest {
     /**
      * 测试AI客户端模型节点功能
      * 该测试方法演示了如何使用装备策略工厂来处理AI客户端命令，
-     * 并从应用上下文中获取OpenAiChatModel Bean实例，然后进行聊天调用。
+     * 并从组件注册表中获取OpenAiChatModel实例，然后进行聊天调用。
      *
      * @throws Exception 可能抛出的异常
      */
@@ -90,8 +90,8 @@ public class AgentTest {
                         .build(),
                 new DefaultArmoryStrategyFactory.DynamicContext()); // 创建动态上下文
 
-        // 从应用上下文中获取OpenAiChatModel Bean实例
-        OpenAiChatModel openAiChatModel = (OpenAiChatModel) applicationContext.getBean(AiAgentEnumVO.AI_CLIENT_MODEL.getBeanName("2001"));
+        // 从组件注册表中获取OpenAiChatModel实例
+        OpenAiChatModel openAiChatModel = agentComponentRegistry.getComponent(AiAgentEnumVO.AI_CLIENT_MODEL, "2001", OpenAiChatModel.class);
 
         // 记录模型构建日志
         log.info("模型构建:{}", openAiChatModel);
@@ -114,7 +114,7 @@ public class AgentTest {
     /**
      * 测试AI客户端功能
      * 该测试方法演示了如何使用装备策略工厂来处理AI客户端命令，
-     * 并从应用上下文中获取ChatClient Bean实例，然后进行聊天调用。
+     * 并从组件注册表中获取ChatClient实例，然后进行聊天调用。
      *
      * @throws Exception 可能抛出的异常
      */
@@ -132,8 +132,8 @@ public class AgentTest {
                         .build(),
                 new DefaultArmoryStrategyFactory.DynamicContext()); // 创建动态上下文
 
-        // 从应用上下文中获取ChatClient Bean实例
-        ChatClient chatClient = (ChatClient) applicationContext.getBean(AiAgentEnumVO.AI_CLIENT.getBeanName("3001"));
+        // 从组件注册表中获取ChatClient实例
+        ChatClient chatClient = agentComponentRegistry.getComponent(AiAgentEnumVO.AI_CLIENT, "3001", ChatClient.class);
         
         // 记录客户端构建日志
         log.info("客户端构建:{}", chatClient);
@@ -4,6 +4,7 @@ import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
 import cn.bugstack.ai.domain.agent.model.entity.ExecuteCommandEntity;
 import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
 import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentRegistry;
 import cn.bugstack.ai.domain.agent.service.execute.auto.step.factory.DefaultAutoAgentExecuteStrategyFactory;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
 import jakarta.annotation.Resource;
@@ -13,7 +14,6 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.Arrays;
@@ -42,10 +42,10 @@ public class AutoAgentTest {
     private DefaultAutoAgentExecuteStrategyFactory defaultAutoAgentExecuteStrategyFactory;
 
     /**
-     * 注入Spring的应用上下文，用于获取Bean实例
+     * 注入组件注册表，用于获取装配后的组件实例
      */
     @Resource
-    private ApplicationContext applicationContext;
+    private AgentComponentRegistry agentComponentRegistry;
 
     /**
      * 在每个测试方法执行前运行，用于初始化测试环境
@@ -70,8 +70,8 @@ public class AutoAgentTest {
                 // 创建新的动态上下文
                 new DefaultArmoryStrategyFactory.DynamicContext());
 
-        // 从应用上下文中获取指定ID的ChatClient实例
-        ChatClient chatClient = (ChatClient) applicationContext.getBean(AiAgentEnumVO.AI_CLIENT.getBeanName("3101"));
+        // 从组件注册表中获取指定ID的ChatClient实例
+        ChatClient chatClient = agentComponentRegistry.getComponent(AiAgentEnumVO.AI_CLIENT, "3101", ChatClient.class);
         log.info("客户端构建:{}", chatClient);
     }
 
@@ -0,0 +1,81 @@
+package cn.bugstack.ai.test.domain;
+
+import cn.bugstack.ai.domain.agent.service.execute.prompt.CompiledPromptTemplate;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 提示词模板预编译测试；校验 % 说明符解析、静态前缀拆分，渲染结果与 String.format 一致
+ */
+public class CompiledPromptTemplateTest {
+
+    private static CompiledPromptTemplate compile(String template) {
+        return CompiledPromptTemplate.compile(template, String::length);
+    }
+
+    private static String render(CompiledPromptTemplate compiled, Object... args) {
+        return compiled.getStaticPrefix() + compiled.renderSuffix(args);
+    }
+
+    @Test
+    public void test_splitLeadingLinesAsStaticPrefix() {
+        String template = "你是执行专家。\n请按格式输出。\n用户需求: %s\n当前步骤: %d\n";
+        CompiledPromptTemplate compiled = compile(template);
+
+        assertEquals("你是执行专家。\n请按格式输出。\n", compiled.getStaticPrefix());
+        assertEquals(compiled.getStaticPrefix().length(), compiled.getPrefixTokens());
+        assertEquals("用户需求: 查询天气\n当前步骤: 3\n", compiled.renderSuffix("查询天气", 3));
+        assertEquals(String.format(template, "查询天气", 3), render(compiled, "查询天气", 3));
+    }
+
+    @Test
+    public void test_trailingTextKeepsOriginalPosition() {
+        String template = "说明\n需求: %s\n历史: %s\n输出要求：\n1. 先分析\n2. 再执行";
+        CompiledPromptTemplate compiled = compile(template);
+
+        String rendered = render(compiled, "A", "B");
+        assertEquals(String.format(template, "A", "B"), rendered);
+        assertEquals("说明\n", compiled.getStaticPrefix());
+    }
+
+    @Test
+    public void test_explicitIndexEscapeAndLineSeparator() {
+        String template = "规则\n%1$s 完成度 100%% %2$s%n再次确认 %1$s";
+        CompiledPromptTemplate compiled = compile(template);
+
+        assertEquals(String.format(template, "任务", "结束"), render(compiled, "任务", "结束"));
+    }
+
+    @Test
+    public void test_explicitAndOrdinaryIndexesAreIndependent() {
+        String template = "%2$s-%s-%s-%1$s";
+        assertEquals(String.format(template, "a", "b"), render(compile(template), "a", "b"));
+    }
+
+    @Test
+    public void test_withoutPlaceholder_wholeTemplateIsPrefix() {
+        String template = "固定说明 100%%";
+        CompiledPromptTemplate compiled = compile(template);
+
+        assertEquals("固定说明 100%", compiled.getStaticPrefix());
+        assertEquals("", compiled.renderSuffix());
+    }
+
+    @Test
+    public void test_unsupportedSpecifier_fallsBackToStringFormat() {
+        String[] templates = {"宽度 %5s 结束", "精度 %.2f", "大写 %S", "参数 %1$5s"};
+        Object[][] args = {{"a"}, {3.14159}, {"abc"}, {"x"}};
+        for (int i = 0; i < templates.length; i++) {
+            CompiledPromptTemplate compiled = compile(templates[i]);
+            assertEquals(templates[i], "", compiled.getStaticPrefix());
+            assertEquals(templates[i], String.format(templates[i], args[i]), render(compiled, args[i]));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_missingArgument() {
+        compile("需求: %s 历史: %s").renderSuffix("只有一个");
+    }
+
+}
@@ -0,0 +1,95 @@
+package cn.bugstack.ai.test.domain;
+
+import cn.bugstack.ai.domain.agent.model.entity.ExecutionHistoryEntity;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 执行历史 token 预算、压缩与省略顺序测试；按字符数估算 token，不依赖 Spring 上下文
+ */
+public class ExecutionHistoryEntityTest {
+
+    private static String analysis(int step) {
+        return "任务状态: 进行中 " + step + "\n" + "分析细节".repeat(100);
+    }
+
+    private static String execution(int step) {
+        return "执行结果: 完成第 " + step + " 项\n" + "执行细节".repeat(100);
+    }
+
+    private static void record(ExecutionHistoryEntity history, int step, String analysis) {
+        history.recordExecution(step, analysis, execution(step));
+        history.recordSupervision(step, "是否通过: 是");
+    }
+
+    @Test
+    public void test_withinBudget_keepsFullRecords() {
+        ExecutionHistoryEntity history = new ExecutionHistoryEntity(10000, 1, String::length);
+        record(history, 1, analysis(1));
+        record(history, 2, analysis(2));
+
+        String rendered = history.toString();
+        assertTrue(rendered.contains("=== 第 1 步执行记录 ==="));
+        assertTrue(rendered.contains("=== 第 2 步执行记录 ==="));
+        assertEquals(0, history.getOmittedSteps());
+        assertEquals(2, history.getStepCount());
+    }
+
+    @Test
+    public void test_overBudget_compactsOldestStepFirst() {
+        ExecutionHistoryEntity history = new ExecutionHistoryEntity(2000, 1, String::length);
+        record(history, 1, analysis(1));
+        record(history, 2, analysis(2));
+        record(history, 3, analysis(3));
+
+        String rendered = history.toString();
+        assertTrue(rendered.contains("=== 第 1 步摘要 ==="));
+        assertTrue(rendered.contains("任务状态: 进行中 1"));
+        String summary = rendered.substring(rendered.indexOf("=== 第 1 步摘要 ==="), rendered.indexOf("=== 第 2 步"));
+        assertFalse(summary.contains("分析细节"));
+        assertFalse(summary.contains("执行细节"));
+        // 压缩第 1 步后已在预算内，较新的步骤保持原文
+        assertTrue(rendered.contains("=== 第 2 步执行记录 ==="));
+        assertTrue(rendered.contains("=== 第 3 步执行记录 ==="));
+        assertEquals(0, history.getOmittedSteps());
+        assertTrue(history.getEstimatedTokens() <= 2000);
+    }
+
+    @Test
+    public void test_overBudget_keepsRecentStepsAndDropsEarliest() {
+        ExecutionHistoryEntity history = new ExecutionHistoryEntity(500, 1, String::length);
+        record(history, 1, analysis(1));
+        record(history, 2, analysis(2));
+        record(history, 3, analysis(3));
+
+        // 压缩全部旧步骤后仍超出，由早到晚省略，最近一步保持原文
+        String rendered = history.toString();
+        assertTrue(rendered.startsWith("=== 前 2 步记录已省略 ===\n"));
+        assertFalse(rendered.contains("第 1 步"));
+        assertFalse(rendered.contains("第 2 步"));
+        assertTrue(rendered.contains("=== 第 3 步执行记录 ==="));
+        assertEquals(2, history.getOmittedSteps());
+        assertEquals(3, history.getStepCount());
+    }
+
+    @Test
+    public void test_compaction_recountsStepThatLostItsReference() {
+        // 第 2 步的分析与第 1 步相同，只引用步骤号；压缩第 1 步后引用失效，第 2 步按原文计入
+        ExecutionHistoryEntity history = new ExecutionHistoryEntity(1500, 1, String::length);
+        String sameAnalysis = analysis(1);
+        record(history, 1, sameAnalysis);
+        record(history, 2, sameAnalysis);
+        record(history, 3, analysis(3));
+
+        String rendered = history.toString();
+        assertTrue(rendered.contains("=== 第 1 步摘要 ==="));
+        assertTrue(rendered.contains("=== 第 2 步摘要 ==="));
+        assertTrue(rendered.contains("【分析阶段】（同第 1 步）"));
+        assertTrue(rendered.contains("=== 第 3 步执行记录 ==="));
+        assertTrue(history.getEstimatedTokens() <= 1500);
+    }
+
+}
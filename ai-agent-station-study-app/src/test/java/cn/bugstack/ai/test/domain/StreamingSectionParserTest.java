@@ -0,0 +1,138 @@
+package cn.bugstack.ai.test.domain;
+
+import cn.bugstack.ai.domain.agent.service.execute.parser.SectionRules;
+import cn.bugstack.ai.domain.agent.service.execute.parser.StreamingSectionParser;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 增量分段解析测试；覆盖多关键词匹配（Aho-Corasick）、片段切分边界、冒号取值与重复标题
+ */
+public class StreamingSectionParserTest {
+
+    private static final SectionRules SUPERVISION_RULES = SectionRules.builder()
+            .section("assessment", SectionRules.HeaderMode.SKIP, "质量评估:")
+            .section("issues", SectionRules.HeaderMode.SKIP, "问题识别:")
+            .section("score", SectionRules.HeaderMode.VALUE, "质量评分:")
+            .section("pass", SectionRules.HeaderMode.VALUE, "是否通过:")
+            .build();
+
+    private static final String SUPERVISION_OUTPUT = "质量评估:\n结果完整\n\n问题识别:\n缺少来源\n质量评分: 8\n是否通过: PASS";
+
+    private static List<String> parse(SectionRules rules, String... chunks) {
+        List<String> sections = new ArrayList<>();
+        StreamingSectionParser parser = rules.newParser((subType, content) -> sections.add(subType + "=" + content));
+        for (String chunk : chunks) {
+            parser.feed(chunk);
+        }
+        parser.finish();
+        return sections;
+    }
+
+    @Test
+    public void test_sections() {
+        assertEquals(List.of("assessment=结果完整", "issues=缺少来源", "score=8", "pass=PASS"), parse(SUPERVISION_RULES, SUPERVISION_OUTPUT));
+    }
+
+    @Test
+    public void test_chunkBoundaries_matchWholeInput() {
+        List<String> expected = parse(SUPERVISION_RULES, SUPERVISION_OUTPUT);
+
+        // 逐字符输入，标题与换行被切在不同片段
+        String[] chars = SUPERVISION_OUTPUT.split("");
+        assertEquals(expected, parse(SUPERVISION_RULES, chars));
+
+        // 任意位置切成两段
+        for (int i = 0; i <= SUPERVISION_OUTPUT.length(); i++) {
+            assertEquals("split at " + i, expected,
+                    parse(SUPERVISION_RULES, SUPERVISION_OUTPUT.substring(0, i), SUPERVISION_OUTPUT.substring(i)));
+        }
+    }
+
+    @Test
+    public void test_crlfAndTrailingLineWithoutNewline() {
+        assertEquals(List.of("assessment=结果完整", "pass=PASS"), parse(SUPERVISION_RULES, "质量评估:\r\n结果完整\r\n是否通过: PA", "SS"));
+    }
+
+    @Test
+    public void test_valueMode_fullWidthColon() {
+        assertEquals(List.of("score=9", "pass=FAIL"), parse(SUPERVISION_RULES, "质量评分：9\n是否通过：FAIL\n"));
+    }
+
+    @Test
+    public void test_fullWidthColonInRuleKeyword() {
+        SectionRules rules = SectionRules.builder()
+                .section("pass", SectionRules.HeaderMode.VALUE, "是否通过：")
+                .build();
+        assertEquals(List.of("pass=OPTIMIZE"), parse(rules, "是否通过: OPTIMIZE"));
+    }
+
+    @Test
+    public void test_repeatedHeader_continuesCurrentSection() {
+        List<String> sections = parse(SUPERVISION_RULES, "问题识别:\n缺少来源\n问题识别:\n格式不统一\n质量评分: 6");
+        assertEquals(List.of("issues=缺少来源\n格式不统一", "score=6"), sections);
+    }
+
+    @Test
+    public void test_repeatedHeaderAfterOtherSection_startsNewSection() {
+        List<String> sections = parse(SUPERVISION_RULES, "问题识别:\n缺少来源\n质量评分: 6\n问题识别:\n格式不统一");
+        assertEquals(List.of("issues=缺少来源", "score=6", "issues=格式不统一"), sections);
+    }
+
+    @Test
+    public void test_initialSection_andLineMode() {
+        SectionRules rules = SectionRules.builder()
+                .initial("overview")
+                .section("completed", SectionRules.HeaderMode.LINE, "已完成的工作")
+                .build();
+        assertEquals(List.of("overview=总体顺利", "completed=## 已完成的工作\n查询了索引"),
+                parse(rules, "总体顺利\n## 已完成的工作\n查询了索引"));
+    }
+
+    @Test
+    public void test_withoutInitialSection_dropsLeadingText() {
+        assertEquals(List.of("score=7"), parse(SUPERVISION_RULES, "以下是监督结果\n质量评分: 7"));
+    }
+
+    @Test
+    public void test_keywordMatcher_declarationOrderWins() {
+        // 同一行命中多个标题时取先声明者，与关键词在行内的位置无关
+        SectionRules rules = SectionRules.builder()
+                .section("suggestions", SectionRules.HeaderMode.LINE, "完成剩余任务的建议", "建议")
+                .section("evaluation", SectionRules.HeaderMode.LINE, "评估")
+                .build();
+        assertEquals(List.of("evaluation=评估"), parse(rules, "评估"));
+        assertEquals(List.of("suggestions=评估与建议"), parse(rules, "评估与建议"));
+    }
+
+    @Test
+    public void test_keywordMatcher_failureLinks() {
+        // 长关键词匹配到一半失败时，经失败指针继续匹配其后缀上的短关键词
+        SectionRules rules = SectionRules.builder()
+                .section("long", SectionRules.HeaderMode.LINE, "执行结果汇总")
+                .section("short", SectionRules.HeaderMode.LINE, "结果汇")
+                .section("other", SectionRules.HeaderMode.LINE, "行结")
+                .build();
+        assertEquals(List.of("long=执行结果汇总"), parse(rules, "执行结果汇总"));
+        // 「执行结果汇报」在「汇」之后失配，后缀「结果汇」命中 short；「行结」同行但声明在后
+        assertEquals(List.of("short=执行结果汇报"), parse(rules, "执行结果汇报"));
+        assertEquals(List.of("other=执行结论"), parse(rules, "执行结论"));
+        assertEquals(List.of(), parse(rules, "执结果行"));
+    }
+
+    @Test
+    public void test_keywordMatcher_overlappingKeywords() {
+        SectionRules rules = SectionRules.builder()
+                .section("a", SectionRules.HeaderMode.LINE, "abab")
+                .section("b", SectionRules.HeaderMode.LINE, "bac")
+                .build();
+        // 「aba」失配于「c」时，失败指针转到另一关键词的前缀「ba」继续匹配
+        assertEquals(List.of("b=abac"), parse(rules, "abac"));
+        assertEquals(List.of("a=aabab"), parse(rules, "aabab"));
+    }
+
+}
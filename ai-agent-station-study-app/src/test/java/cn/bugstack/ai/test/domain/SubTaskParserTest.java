@@ -0,0 +1,65 @@
+package cn.bugstack.ai.test.domain;
+
+import cn.bugstack.ai.domain.agent.service.execute.auto.step.Step2PrecisionExecutorNode;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 独立子任务解析测试
+ */
+public class SubTaskParserTest {
+
+    @Test
+    public void test_withoutMarker() {
+        assertEquals(List.of(), Step2PrecisionExecutorNode.parseSubTasks("任务状态: 进行中\n1. 查询索引", 8));
+    }
+
+    @Test
+    public void test_listItemFormats() {
+        String analysis = "任务状态: 进行中\n独立子任务:\n1. 查询索引 A\n2、查询索引 B\n3) 搜索关键词\n- 汇总日志\n* 检查告警";
+        assertEquals(List.of("查询索引 A", "查询索引 B", "搜索关键词", "汇总日志", "检查告警"),
+                Step2PrecisionExecutorNode.parseSubTasks(analysis, 8));
+    }
+
+    @Test
+    public void test_skipsLeadingBlankAndTextLines() {
+        String analysis = "独立子任务:\n\n以下操作可以同时进行：\n1. 查询 A\n2. 查询 B";
+        assertEquals(List.of("查询 A", "查询 B"), Step2PrecisionExecutorNode.parseSubTasks(analysis, 8));
+    }
+
+    @Test
+    public void test_stopsAtFirstLineAfterList() {
+        String analysis = "独立子任务:\n1. 查询 A\n2. 查询 B\n\n3. 不属于子任务\n";
+        assertEquals(List.of("查询 A", "查询 B"), Step2PrecisionExecutorNode.parseSubTasks(analysis, 8));
+
+        analysis = "独立子任务:\n1. 查询 A\n完成后汇总\n2. 查询 B";
+        assertEquals(List.of("查询 A"), Step2PrecisionExecutorNode.parseSubTasks(analysis, 8));
+    }
+
+    @Test
+    public void test_usesLastMarker() {
+        String analysis = "说明中提到 独立子任务: 的格式\n1. 示例\n\n独立子任务:\n1. 查询 A\n2. 查询 B";
+        assertEquals(List.of("查询 A", "查询 B"), Step2PrecisionExecutorNode.parseSubTasks(analysis, 8));
+    }
+
+    @Test
+    public void test_itemOnMarkerLine() {
+        assertEquals(List.of("查询 A", "查询 B"), Step2PrecisionExecutorNode.parseSubTasks("独立子任务: 1. 查询 A\n2. 查询 B", 8));
+    }
+
+    @Test
+    public void test_fullWidthColonMarker() {
+        String analysis = "任务状态: 进行中\n独立子任务：\n1. 查询索引：A\n2. 查询索引：B";
+        assertEquals(List.of("查询索引：A", "查询索引：B"), Step2PrecisionExecutorNode.parseSubTasks(analysis, 8));
+    }
+
+    @Test
+    public void test_limitsToMaxSubTasks() {
+        String analysis = "独立子任务:\n1. a\n2. b\n3. c\n4. d";
+        assertEquals(List.of("a", "b"), Step2PrecisionExecutorNode.parseSubTasks(analysis, 2));
+    }
+
+}
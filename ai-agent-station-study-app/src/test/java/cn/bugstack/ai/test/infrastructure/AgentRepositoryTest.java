@@ -0,0 +1,129 @@
+package cn.bugstack.ai.test.infrastructure;
+
+import cn.bugstack.ai.domain.agent.model.aggregate.AiClientConfigGraphAggregate;
+import cn.bugstack.ai.domain.agent.model.valobj.AiClientModelVO;
+import cn.bugstack.ai.domain.agent.model.valobj.AiClientToolMcpVO;
+import cn.bugstack.ai.domain.agent.model.valobj.AiClientVO;
+import cn.bugstack.ai.infrastructure.adapter.repository.AgentRepository;
+import cn.bugstack.ai.infrastructure.cache.McpTransportConfigParser;
+import cn.bugstack.ai.infrastructure.dao.*;
+import cn.bugstack.ai.infrastructure.dao.po.*;
+import cn.bugstack.ai.infrastructure.index.AiClientConfigGraphIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 配置图加载测试；单条 MCP 传输配置不合法时只跳过引用它的模型和客户端，不依赖 Spring 上下文和数据库
+ */
+public class AgentRepositoryTest {
+
+    private static final LocalDateTime UPDATE_TIME = LocalDateTime.of(2025, 8, 14, 10, 0);
+
+    private final List<AiClientConfig> configs = new ArrayList<>();
+
+    private AgentRepository agentRepository;
+
+    @Before
+    public void init() {
+        // client_a -> model_1 + mcp_good；client_b -> model_1 + mcp_bad；client_c -> model_2 -> mcp_bad
+        edge("client", "client_a", "model", "model_1");
+        edge("client", "client_a", "tool_mcp", "mcp_good");
+        edge("client", "client_b", "model", "model_1");
+        edge("client", "client_b", "tool_mcp", "mcp_bad");
+        edge("client", "client_c", "model", "model_2");
+        edge("model", "model_2", "tool_mcp", "mcp_bad");
+
+        IAiClientConfigDao aiClientConfigDao = mock(IAiClientConfigDao.class);
+        when(aiClientConfigDao.queryEnabledConfigVersion()).thenReturn(AiClientConfigVersion.builder()
+                .configCount((long) configs.size()).maxUpdateTime(UPDATE_TIME).checksum(1L).build());
+        when(aiClientConfigDao.queryEnabledConfigs()).thenReturn(configs);
+        AiClientConfigGraphIndex aiClientConfigGraphIndex = new AiClientConfigGraphIndex();
+        ReflectionTestUtils.setField(aiClientConfigGraphIndex, "aiClientConfigDao", aiClientConfigDao);
+
+        IAiClientDao aiClientDao = mock(IAiClientDao.class);
+        when(aiClientDao.queryByClientIds(anyList())).thenReturn(List.of(client("client_a"), client("client_b"), client("client_c")));
+
+        IAiClientModelDao aiClientModelDao = mock(IAiClientModelDao.class);
+        when(aiClientModelDao.queryByModelIds(anyList())).thenReturn(List.of(model("model_1"), model("model_2")));
+
+        IAiClientApiDao aiClientApiDao = mock(IAiClientApiDao.class);
+        when(aiClientApiDao.queryByApiIds(anyList())).thenReturn(List.of(AiClientApi.builder()
+                .apiId("api_1").baseUrl("https://api.example.com").apiKey("sk-test").status(1).updateTime(UPDATE_TIME).build()));
+
+        IAiClientToolMcpDao aiClientToolMcpDao = mock(IAiClientToolMcpDao.class);
+        when(aiClientToolMcpDao.queryByMcpIds(anyList())).thenReturn(List.of(
+                mcp("mcp_good", "{\"baseUri\":\"http://localhost:8080\",\"sseEndpoint\":\"/sse\"}"),
+                mcp("mcp_bad", "{\"baseUri\":")));
+
+        agentRepository = new AgentRepository();
+        ReflectionTestUtils.setField(agentRepository, "aiClientConfigGraphIndex", aiClientConfigGraphIndex);
+        ReflectionTestUtils.setField(agentRepository, "aiClientDao", aiClientDao);
+        ReflectionTestUtils.setField(agentRepository, "aiClientModelDao", aiClientModelDao);
+        ReflectionTestUtils.setField(agentRepository, "aiClientApiDao", aiClientApiDao);
+        ReflectionTestUtils.setField(agentRepository, "aiClientToolMcpDao", aiClientToolMcpDao);
+        ReflectionTestUtils.setField(agentRepository, "aiClientSystemPromptDao", mock(IAiClientSystemPromptDao.class));
+        ReflectionTestUtils.setField(agentRepository, "aiClientAdvisorDao", mock(IAiClientAdvisorDao.class));
+        ReflectionTestUtils.setField(agentRepository, "mcpTransportConfigParser", new McpTransportConfigParser());
+    }
+
+    @Test
+    public void test_queryByClientIds_skipsOnlyClientsReferencingMalformedMcp() {
+        AiClientConfigGraphAggregate configGraph = agentRepository.queryAiClientConfigGraphByClientIds(List.of("client_a", "client_b", "client_c"));
+
+        assertEquals(List.of("client_a"), configGraph.getAiClientList().stream().map(AiClientVO::getClientId).toList());
+        assertEquals(List.of("model_1"), configGraph.getAiClientModelList().stream().map(AiClientModelVO::getModelId).toList());
+        assertEquals(List.of("mcp_good"), configGraph.getAiClientToolMcpList().stream().map(AiClientToolMcpVO::getMcpId).toList());
+        assertEquals("http://localhost:8080", configGraph.getAiClientToolMcpList().get(0).getTransportConfigSse().getBaseUri());
+        assertEquals(1, configGraph.getAiClientApiList().size());
+    }
+
+    @Test
+    public void test_queryByModelIds_skipsModelReferencingMalformedMcp() {
+        AiClientConfigGraphAggregate configGraph = agentRepository.queryAiClientConfigGraphByModelIds(List.of("model_1", "model_2"));
+
+        assertEquals(List.of("model_1"), configGraph.getAiClientModelList().stream().map(AiClientModelVO::getModelId).toList());
+        assertEquals(1, configGraph.getAiClientApiList().size());
+    }
+
+    private void edge(String sourceType, String sourceId, String targetType, String targetId) {
+        configs.add(AiClientConfig.builder()
+                .id((long) configs.size() + 1)
+                .sourceType(sourceType)
+                .sourceId(sourceId)
+                .targetType(targetType)
+                .targetId(targetId)
+                .status(1)
+                .build());
+    }
+
+    private static AiClient client(String clientId) {
+        return AiClient.builder().clientId(clientId).clientName(clientId).status(1).updateTime(UPDATE_TIME).build();
+    }
+
+    private static AiClientModel model(String modelId) {
+        return AiClientModel.builder().modelId(modelId).apiId("api_1").modelName("gpt-4.1").modelType("openai").status(1).updateTime(UPDATE_TIME).build();
+    }
+
+    private static AiClientToolMcp mcp(String mcpId, String transportConfig) {
+        return AiClientToolMcp.builder()
+                .mcpId(mcpId)
+                .mcpName(mcpId)
+                .transportType("sse")
+                .transportConfig(transportConfig)
+                .requestTimeout(180)
+                .status(1)
+                .updateTime(UPDATE_TIME)
+                .build();
+    }
+
+}
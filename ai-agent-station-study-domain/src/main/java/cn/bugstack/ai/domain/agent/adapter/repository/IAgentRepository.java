@@ -1,9 +1,11 @@
 package cn.bugstack.ai.domain.agent.adapter.repository;
 
+import cn.bugstack.ai.domain.agent.model.aggregate.AiClientConfigGraphAggregate;
 import cn.bugstack.ai.domain.agent.model.valobj.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * AiAgent 仓储接口
@@ -13,6 +15,16 @@ import java.util.Map;
  */
 public interface IAgentRepository {
 
+    /**
+     * 按客户端批量加载配置图；每张配置表最多查询一次
+     */
+    AiClientConfigGraphAggregate queryAiClientConfigGraphByClientIds(List<String> clientIdList);
+
+    /**
+     * 按对话模型批量加载配置图（api、model、tool_mcp），不含提示词、顾问和客户端
+     */
+    AiClientConfigGraphAggregate queryAiClientConfigGraphByModelIds(List<String> modelIdList);
+
     List<AiClientApiVO> queryAiClientApiVOListByClientIds(List<String> clientIdList);
 
     List<AiClientModelVO> AiClientModelVOByClientIds(List<String> clientIdList);
@@ -31,6 +43,18 @@ public interface IAgentRepository {
 
     List<AiClientModelVO> AiClientModelVOByModelIds(List<String> modelIdList);
 
+    List<AiClientToolMcpVO> AiClientToolMcpVOByModelIds(List<String> modelIdList);
+
     Map<String, AiAgentClientFlowConfigVO> queryAiAgentClientFlowConfig(String aiAgentId);
 
+    /**
+     * 客户端执行配置变更后失效缓存；aiAgentId 为空时全部失效
+     */
+    void invalidateAiAgentClientFlowConfig(String aiAgentId);
+
+    /**
+     * 查询全部智能体ID，用于清理本地装配快照中已删除的智能体
+     */
+    Set<String> queryAiAgentIds();
+
 }
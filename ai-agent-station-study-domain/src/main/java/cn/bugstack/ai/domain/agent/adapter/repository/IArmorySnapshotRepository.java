@@ -0,0 +1,25 @@
+package cn.bugstack.ai.domain.agent.adapter.repository;
+
+import cn.bugstack.ai.domain.agent.model.entity.ArmorySnapshotEntity;
+
+/**
+ * 装配快照仓储接口，本地文件存储
+ *
+ * @author jinjie
+ * 2025/8/11 09:31
+ */
+public interface IArmorySnapshotRepository {
+
+    /**
+     * 读取本地快照
+     *
+     * @return 快照，不存在或校验失败时返回 null
+     */
+    ArmorySnapshotEntity load();
+
+    /**
+     * 写入本地快照，整体替换
+     */
+    void save(ArmorySnapshotEntity armorySnapshotEntity);
+
+}
@@ -0,0 +1,39 @@
+package cn.bugstack.ai.domain.agent.adapter.repository;
+
+import cn.bugstack.ai.domain.agent.model.entity.ExecuteCheckpointEntity;
+
+/**
+ * 执行检查点仓储接口，本地文件存储
+ *
+ * @author jinjie
+ * 2025/8/16 10:26
+ */
+public interface IExecuteCheckpointRepository {
+
+    /**
+     * 读取会话的检查点
+     *
+     * @param sessionId 会话ID
+     * @return 检查点，不存在或读取失败时返回 null
+     */
+    ExecuteCheckpointEntity load(String sessionId);
+
+    /**
+     * 写入检查点，整体替换同一会话的上一个检查点
+     */
+    void save(ExecuteCheckpointEntity executeCheckpointEntity);
+
+    /**
+     * 删除会话的检查点
+     */
+    void delete(String sessionId);
+
+    /**
+     * 删除最后写入时间早于指定时间的检查点
+     *
+     * @param expireBeforeMillis 过期时间点（毫秒时间戳）
+     * @return 删除的检查点数
+     */
+    int deleteExpired(long expireBeforeMillis);
+
+}
@@ -0,0 +1,26 @@
+package cn.bugstack.ai.domain.agent.adapter.repository;
+
+import cn.bugstack.ai.domain.agent.model.entity.AutoAgentExecuteResultEntity;
+import cn.bugstack.ai.domain.agent.model.entity.ExecuteSessionEntity;
+
+import java.util.List;
+
+/**
+ * 执行会话、执行事件仓储接口；按批写入
+ *
+ * @author jinjie
+ * 2025/8/14 10:35
+ */
+public interface IExecuteEventRepository {
+
+    /**
+     * 批量写入会话；会话已存在时更新状态和结束时间
+     */
+    void saveExecuteSessions(List<ExecuteSessionEntity> sessions);
+
+    /**
+     * 批量写入执行事件
+     */
+    void saveExecuteEvents(List<AutoAgentExecuteResultEntity> events);
+
+}
@@ -0,0 +1,39 @@
+package cn.bugstack.ai.domain.agent.model.aggregate;
+
+import cn.bugstack.ai.domain.agent.model.valobj.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 客户端配置图聚合对象；一次装配所需的全部配置，按表批量查询后组装
+ *
+ * @author jinjie
+ * 2025/8/12 15:20
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AiClientConfigGraphAggregate {
+
+    private List<AiClientApiVO> aiClientApiList;
+
+    private List<AiClientModelVO> aiClientModelList;
+
+    private List<AiClientToolMcpVO> aiClientToolMcpList;
+
+    /**
+     * promptId -> 系统提示词
+     */
+    private Map<String, AiClientSystemPromptVO> aiClientSystemPromptMap;
+
+    private List<AiClientAdvisorVO> aiClientAdvisorList;
+
+    private List<AiClientVO> aiClientList;
+
+}
@@ -30,6 +30,16 @@ public class ArmoryCommandEntity {
      */
     private List<String> commandIdList;
 
+    /**
+     * 增量装配；仅重建配置（update_time）变更的组件及其下游依赖，未变更的组件沿用已注册实例
+     */
+    private boolean incremental;
+
+    /**
+     * 从本地装配快照加载配置（启动时先行装配），不访问数据库
+     */
+    private boolean snapshot;
+
     /**
      * 根据 commandType 获取对应的数据加载策略字符串。
      * 通过调用 AiAgentEnumVO 枚举类的 getByCode 方法，获取枚举实例，
@@ -40,6 +50,9 @@ public class ArmoryCommandEntity {
      * @return 返回对应的加载数据策略字符串
      */
     public String getLoadDataStrategy() {
+        if (snapshot) {
+            return "aiClientSnapshotLoadDataStrategy";
+        }
         return AiAgentEnumVO.getByCode(commandType).getLoadDataStrategy();
     }
 
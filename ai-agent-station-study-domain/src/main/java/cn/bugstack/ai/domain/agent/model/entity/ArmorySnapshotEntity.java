@@ -0,0 +1,94 @@
+package cn.bugstack.ai.domain.agent.model.entity;
+
+import cn.bugstack.ai.domain.agent.model.valobj.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 装配快照；记录已装配成功的完整配置图，启动时先从本地快照装配提供服务，再与数据库对账
+ *
+ * @author jinjie
+ * 2025/8/11 09:26
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArmorySnapshotEntity {
+
+    /**
+     * 快照版本，每次写入递增
+     */
+    private long version;
+
+    /**
+     * 快照时间
+     */
+    private LocalDateTime snapshotTime;
+
+    /**
+     * apiId -> api 配置
+     */
+    @Builder.Default
+    private Map<String, AiClientApiVO> apiMap = new LinkedHashMap<>();
+
+    /**
+     * modelId -> 对话模型配置
+     */
+    @Builder.Default
+    private Map<String, AiClientModelVO> modelMap = new LinkedHashMap<>();
+
+    /**
+     * mcpId -> MCP 配置
+     */
+    @Builder.Default
+    private Map<String, AiClientToolMcpVO> toolMcpMap = new LinkedHashMap<>();
+
+    /**
+     * advisorId -> 顾问角色配置
+     */
+    @Builder.Default
+    private Map<String, AiClientAdvisorVO> advisorMap = new LinkedHashMap<>();
+
+    /**
+     * promptId -> 系统提示词配置
+     */
+    @Builder.Default
+    private Map<String, AiClientSystemPromptVO> systemPromptMap = new LinkedHashMap<>();
+
+    /**
+     * clientId -> 客户端配置
+     */
+    @Builder.Default
+    private Map<String, AiClientVO> clientMap = new LinkedHashMap<>();
+
+    /**
+     * aiAgentId -> (clientType -> 客户端执行配置)
+     */
+    @Builder.Default
+    private Map<String, Map<String, AiAgentClientFlowConfigVO>> flowConfigMap = new LinkedHashMap<>();
+
+    /**
+     * 复制一份快照，写入时不影响正在读取的旧快照
+     */
+    public ArmorySnapshotEntity copy() {
+        return ArmorySnapshotEntity.builder()
+                .version(version)
+                .snapshotTime(snapshotTime)
+                .apiMap(new LinkedHashMap<>(apiMap))
+                .modelMap(new LinkedHashMap<>(modelMap))
+                .toolMcpMap(new LinkedHashMap<>(toolMcpMap))
+                .advisorMap(new LinkedHashMap<>(advisorMap))
+                .systemPromptMap(new LinkedHashMap<>(systemPromptMap))
+                .clientMap(new LinkedHashMap<>(clientMap))
+                .flowConfigMap(new LinkedHashMap<>(flowConfigMap))
+                .build();
+    }
+
+}
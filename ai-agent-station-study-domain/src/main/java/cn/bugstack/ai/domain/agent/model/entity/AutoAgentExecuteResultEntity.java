@@ -17,7 +17,7 @@ import lombok.NoArgsConstructor;
 public class AutoAgentExecuteResultEntity {
 
     /**
-     * 数据类型：analysis(分析阶段), execution(执行阶段), supervision(监督阶段), summary(总结阶段), error(错误信息), complete(完成标识)
+     * 数据类型：analysis(分析阶段), execution(执行阶段), supervision(监督阶段), summary(总结阶段), error(错误信息), complete(完成标识), delta(流式增量)
      * 细分类型：analysis_status(任务状态分析), analysis_history(执行历史评估), analysis_strategy(下一步策略), analysis_progress(完成度评估)
      *          execution_target(执行目标), execution_process(执行过程), execution_result(执行结果), execution_quality(质量检查)
      *          supervision_assessment(质量评估), supervision_issues(问题识别), supervision_suggestions(改进建议), supervision_score(质量评分)
@@ -170,6 +170,21 @@ public class AutoAgentExecuteResultEntity {
                 .build();
     }
 
+    /**
+     * 创建流式增量结果；subType 为所属阶段，content 为本次新增的文本
+     */
+    public static AutoAgentExecuteResultEntity createDeltaResult(String stage, Integer step, String content, String sessionId) {
+        return AutoAgentExecuteResultEntity.builder()
+                .type("delta")
+                .subType(stage)
+                .step(step)
+                .content(content)
+                .completed(false)
+                .timestamp(System.currentTimeMillis())
+                .sessionId(sessionId)
+                .build();
+    }
+
     /**
      * 创建错误结果
      */
@@ -0,0 +1,118 @@
+package cn.bugstack.ai.domain.agent.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 执行检查点实体；每个节点完成后记录一次，同一会话ID重新提交时从检查点继续
+ *
+ * @author jinjie
+ * 2025/8/16 10:20
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExecuteCheckpointEntity {
+
+    /**
+     * 会话ID
+     */
+    private String sessionId;
+
+    /**
+     * 智能体ID
+     */
+    private String aiAgentId;
+
+    /**
+     * 用户输入
+     */
+    private String message;
+
+    /**
+     * 恢复后执行的状态（AutoAgentExecuteStateVO）
+     */
+    private String state;
+
+    /**
+     * 当前步骤
+     */
+    private Integer step;
+
+    /**
+     * 最大执行步数
+     */
+    private Integer maxStep;
+
+    /**
+     * 当前任务
+     */
+    private String currentTask;
+
+    /**
+     * 是否已完成
+     */
+    private Boolean completed;
+
+    /**
+     * 执行历史已省略的最早步骤数
+     */
+    private Integer historyOmittedSteps;
+
+    /**
+     * 执行历史步骤记录
+     */
+    private List<HistoryStep> historySteps;
+
+    /**
+     * 最近一次分析结果
+     */
+    private String analysisResult;
+
+    /**
+     * 最近一次执行结果
+     */
+    private String executionResult;
+
+    /**
+     * 最近一次监督结果
+     */
+    private String supervisionResult;
+
+    /**
+     * 客户端执行配置版本；与当前配置不一致时检查点作废
+     */
+    private String flowConfigVersion;
+
+    /**
+     * 记录时间（毫秒）
+     */
+    private Long updateTime;
+
+    /**
+     * 执行历史的单步记录
+     */
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class HistoryStep {
+
+        private Integer step;
+
+        private String analysis;
+
+        private String execution;
+
+        private String supervision;
+
+        private Boolean compacted;
+
+    }
+
+}
@@ -25,4 +25,9 @@ public class ExecuteCommandEntity {
 
     private Integer maxStep;
 
+    /**
+     * 执行截止时间（秒），为空时不限制
+     */
+    private Integer timeout;
+
 }
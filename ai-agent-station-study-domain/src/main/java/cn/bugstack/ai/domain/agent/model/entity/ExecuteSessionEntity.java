@@ -0,0 +1,87 @@
+package cn.bugstack.ai.domain.agent.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 执行会话实体；会话开始、结束各记录一次
+ *
+ * @author jinjie
+ * 2025/8/14 10:32
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExecuteSessionEntity {
+
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_FAILED = "failed";
+
+    /**
+     * 会话ID
+     */
+    private String sessionId;
+
+    /**
+     * 智能体ID
+     */
+    private String aiAgentId;
+
+    /**
+     * 用户输入
+     */
+    private String message;
+
+    /**
+     * 最大执行步数
+     */
+    private Integer maxStep;
+
+    /**
+     * 执行状态
+     */
+    private String status;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime endTime;
+
+    public static ExecuteSessionEntity start(ExecuteCommandEntity executeCommandEntity, int maxStep) {
+        return ExecuteSessionEntity.builder()
+                .sessionId(executeCommandEntity.getSessionId())
+                .aiAgentId(executeCommandEntity.getAiAgentId())
+                .message(executeCommandEntity.getMessage())
+                .maxStep(maxStep)
+                .status(STATUS_RUNNING)
+                .startTime(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * 结束记录同样携带步数和开始时间，开始记录未能入队时会话行仍然完整
+     */
+    public static ExecuteSessionEntity end(ExecuteCommandEntity executeCommandEntity, int maxStep, LocalDateTime startTime, boolean success) {
+        return ExecuteSessionEntity.builder()
+                .sessionId(executeCommandEntity.getSessionId())
+                .aiAgentId(executeCommandEntity.getAiAgentId())
+                .message(executeCommandEntity.getMessage())
+                .maxStep(maxStep)
+                .status(success ? STATUS_COMPLETED : STATUS_FAILED)
+                .startTime(startTime)
+                .endTime(LocalDateTime.now())
+                .build();
+    }
+
+}
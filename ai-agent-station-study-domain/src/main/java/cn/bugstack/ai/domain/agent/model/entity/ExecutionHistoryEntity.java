@@ -0,0 +1,293 @@
+package cn.bugstack.ai.domain.agent.model.entity;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * 执行历史实体；按步骤保存分析、执行、监督结果，拼入提示词时受 token 预算约束。
+ * 同一步骤只保存一份分析、执行结果；与上一步相同的内容只引用步骤号。
+ * 超出预算时，除最近 keepRecentSteps 步外的步骤由旧到新压缩为关键行摘要，仍超出时省略最早的步骤。
+ * token 数由调用方传入的估算函数计算，与提示词组装使用同一编码。
+ *
+ * @author jinjie
+ * 2025/8/14 16:10
+ */
+public class ExecutionHistoryEntity {
+
+    /**
+     * 摘要保留的关键行
+     */
+    private static final Pattern KEY_LINE = Pattern.compile("任务状态|完成度|下一步|执行结果|是否通过|质量评分|问题|结论");
+
+    /**
+     * 摘要中单个阶段的最大字符数
+     */
+    private static final int COMPACT_SECTION_CHARS = 200;
+
+    /**
+     * 提示词中执行历史的 token 预算
+     */
+    private final int tokenBudget;
+
+    /**
+     * 保持原文的最近步骤数
+     */
+    private final int keepRecentSteps;
+
+    /**
+     * token 估算
+     */
+    private final ToIntFunction<String> tokenEstimator;
+
+    private final List<StepRecord> records = new ArrayList<>();
+
+    /**
+     * 已省略的最早步骤数
+     */
+    @Getter
+    private int omittedSteps;
+
+    /**
+     * 渲染结果缓存，记录变化时失效
+     */
+    private String rendered;
+
+    public ExecutionHistoryEntity(int tokenBudget, int keepRecentSteps, ToIntFunction<String> tokenEstimator) {
+        this.tokenBudget = tokenBudget;
+        this.keepRecentSteps = Math.max(1, keepRecentSteps);
+        this.tokenEstimator = tokenEstimator;
+    }
+
+    /**
+     * 记录步骤的分析与执行结果
+     */
+    public synchronized void recordExecution(int step, String analysis, String execution) {
+        StepRecord record = obtain(step);
+        record.analysis = analysis;
+        record.execution = execution;
+        record.compacted = false;
+        changed();
+    }
+
+    /**
+     * 记录步骤的监督结果
+     */
+    public synchronized void recordSupervision(int step, String supervision) {
+        StepRecord record = obtain(step);
+        record.supervision = supervision;
+        record.compacted = false;
+        changed();
+    }
+
+    /**
+     * 导出步骤记录，用于写入执行检查点
+     */
+    public synchronized List<ExecuteCheckpointEntity.HistoryStep> snapshot() {
+        List<ExecuteCheckpointEntity.HistoryStep> steps = new ArrayList<>(records.size());
+        for (StepRecord record : records) {
+            steps.add(ExecuteCheckpointEntity.HistoryStep.builder()
+                    .step(record.step)
+                    .analysis(record.analysis)
+                    .execution(record.execution)
+                    .supervision(record.supervision)
+                    .compacted(record.compacted)
+                    .build());
+        }
+        return steps;
+    }
+
+    /**
+     * 从执行检查点恢复步骤记录，按当前预算重新压缩
+     */
+    public synchronized void restore(int omittedSteps, List<ExecuteCheckpointEntity.HistoryStep> steps) {
+        records.clear();
+        this.omittedSteps = omittedSteps;
+        if (null != steps) {
+            for (ExecuteCheckpointEntity.HistoryStep step : steps) {
+                StepRecord record = new StepRecord(step.getStep());
+                record.analysis = step.getAnalysis();
+                record.execution = step.getExecution();
+                record.supervision = step.getSupervision();
+                record.compacted = Boolean.TRUE.equals(step.getCompacted());
+                records.add(record);
+            }
+        }
+        changed();
+    }
+
+    /**
+     * 复制当前历史并追加步骤的监督结果，原历史不变；用于在监督完成前组装预先生成总结的提示词
+     */
+    public synchronized ExecutionHistoryEntity withSupervision(int step, String supervision) {
+        ExecutionHistoryEntity copy = new ExecutionHistoryEntity(tokenBudget, keepRecentSteps, tokenEstimator);
+        copy.restore(omittedSteps, snapshot());
+        copy.recordSupervision(step, supervision);
+        return copy;
+    }
+
+    public synchronized boolean isEmpty() {
+        return records.isEmpty() && omittedSteps == 0;
+    }
+
+    /**
+     * 已记录的步骤数，包含已省略的步骤
+     */
+    public synchronized int getStepCount() {
+        return records.size() + omittedSteps;
+    }
+
+    /**
+     * 渲染为提示词文本
+     */
+    @Override
+    public synchronized String toString() {
+        if (null == rendered) {
+            rendered = render();
+        }
+        return rendered;
+    }
+
+    private StepRecord obtain(int step) {
+        if (!records.isEmpty()) {
+            StepRecord last = records.get(records.size() - 1);
+            if (last.step == step) {
+                return last;
+            }
+        }
+        StepRecord record = new StepRecord(step);
+        records.add(record);
+        return record;
+    }
+
+    private void changed() {
+        rendered = null;
+        compact();
+    }
+
+    /**
+     * 超出预算时由旧到新压缩，全部压缩后仍超出则省略最早的步骤
+     */
+    private void compact() {
+        int tokens = estimateTotal();
+        for (int i = 0; i < records.size() - keepRecentSteps && tokens > tokenBudget; i++) {
+            StepRecord record = records.get(i);
+            if (record.compacted) {
+                continue;
+            }
+            record.compact();
+            // 压缩后下一步与本步的内容可能不再相同，失去"同第 N 步"引用，整体重新估算
+            tokens = estimateTotal();
+        }
+        while (tokens > tokenBudget && records.size() > keepRecentSteps) {
+            records.remove(0);
+            omittedSteps++;
+            // 次早步骤不再能引用被省略的步骤，重新估算
+            tokens = estimateTotal();
+        }
+    }
+
+    /**
+     * 当前历史的 token 估算，与渲染内容一致
+     */
+    public synchronized int getEstimatedTokens() {
+        return estimateTotal();
+    }
+
+    private int estimateTotal() {
+        int tokens = 0;
+        for (int i = 0; i < records.size(); i++) {
+            tokens += records.get(i).tokens(previous(i), tokenEstimator);
+        }
+        return tokens;
+    }
+
+    private StepRecord previous(int index) {
+        return index > 0 ? records.get(index - 1) : null;
+    }
+
+    private String render() {
+        StringBuilder history = new StringBuilder();
+        if (omittedSteps > 0) {
+            history.append(String.format("=== 前 %d 步记录已省略 ===\n", omittedSteps));
+        }
+        for (int i = 0; i < records.size(); i++) {
+            records.get(i).appendTo(history, previous(i));
+        }
+        return history.toString();
+    }
+
+    private static class StepRecord {
+
+        private final int step;
+
+        private String analysis;
+
+        private String execution;
+
+        private String supervision;
+
+        private boolean compacted;
+
+        private StepRecord(int step) {
+            this.step = step;
+        }
+
+        private void compact() {
+            analysis = summarize(analysis);
+            execution = summarize(execution);
+            supervision = summarize(supervision);
+            compacted = true;
+        }
+
+        private int tokens(StepRecord previous, ToIntFunction<String> tokenEstimator) {
+            return tokenEstimator.applyAsInt(section(analysis, null == previous ? null : previous.analysis, previous))
+                    + tokenEstimator.applyAsInt(section(execution, null == previous ? null : previous.execution, previous))
+                    + (null == supervision ? 0 : tokenEstimator.applyAsInt(supervision))
+                    + 16;
+        }
+
+        private void appendTo(StringBuilder history, StepRecord previous) {
+            history.append(String.format("=== 第 %d 步%s ===\n", step, compacted ? "摘要" : "执行记录"));
+            history.append("【分析阶段】").append(section(analysis, null == previous ? null : previous.analysis, previous)).append('\n');
+            history.append("【执行阶段】").append(section(execution, null == previous ? null : previous.execution, previous)).append('\n');
+            if (null != supervision) {
+                history.append("【监督阶段】").append(supervision).append('\n');
+            }
+        }
+
+        /**
+         * 与上一步内容相同时只引用步骤号
+         */
+        private static String section(String content, String previousContent, StepRecord previous) {
+            if (null != content && null != previous && Objects.equals(content, previousContent)) {
+                return "（同第 " + previous.step + " 步）";
+            }
+            return null == content ? "" : content;
+        }
+
+        /**
+         * 抽取关键行作为摘要，无关键行时截取开头
+         */
+        private static String summarize(String content) {
+            if (null == content) {
+                return null;
+            }
+            StringBuilder summary = new StringBuilder();
+            for (String line : content.split("\n")) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && KEY_LINE.matcher(trimmed).find()) {
+                    summary.append(trimmed).append('\n');
+                }
+            }
+            String text = summary.length() > 0 ? summary.toString().trim() : content.trim();
+            return text.length() > COMPACT_SECTION_CHARS ? text.substring(0, COMPACT_SECTION_CHARS) + "…" : text;
+        }
+
+    }
+
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 /**
  * 顾问配置，值对象
  *
@@ -47,6 +49,11 @@ public class AiClientAdvisorVO {
      */
     private RagAnswer ragAnswer;
 
+    /**
+     * 更新时间；增量装配时用于判断配置是否变更
+     */
+    private LocalDateTime updateTime;
+
     @Data
     @Builder
     @AllArgsConstructor
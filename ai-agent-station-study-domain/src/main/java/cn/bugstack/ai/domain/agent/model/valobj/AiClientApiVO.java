@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 /**
  * OpenAI API配置，值对象
  *
@@ -42,4 +44,9 @@ public class AiClientApiVO {
      */
     private String embeddingsPath;
 
+    /**
+     * 更新时间；增量装配时用于判断配置是否变更
+     */
+    private LocalDateTime updateTime;
+
 }
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -43,4 +44,9 @@ public class AiClientModelVO {
      */
     private List<String> toolMcpIds;
 
+    /**
+     * 更新时间；增量装配时用于判断配置是否变更
+     */
+    private LocalDateTime updateTime;
+
 }
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 /**
  * AI 提示词&动态规划，值对象
  *
@@ -37,5 +39,10 @@ public class AiClientSystemPromptVO {
      */
     private String description;
 
+    /**
+     * 更新时间；增量装配时用于判断配置是否变更
+     */
+    private LocalDateTime updateTime;
+
 
 }
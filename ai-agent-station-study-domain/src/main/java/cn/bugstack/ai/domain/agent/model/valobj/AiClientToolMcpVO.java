@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -55,6 +56,11 @@ public class AiClientToolMcpVO {
      */
     private TransportConfigStdio transportConfigStdio;
 
+    /**
+     * 更新时间；增量装配时用于判断配置是否变更
+     */
+    private LocalDateTime updateTime;
+
     @Data
     @Builder
     @AllArgsConstructor
@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -56,6 +57,11 @@ public class AiClientVO {
      */
     private List<String> advisorIdList;
 
+    /**
+     * 更新时间；增量装配时用于判断配置是否变更
+     */
+    private LocalDateTime updateTime;
+
     public String getModelBeanName() {
         return AiAgentEnumVO.AI_CLIENT_MODEL.getBeanName(modelId);
     }
@@ -0,0 +1,30 @@
+package cn.bugstack.ai.domain.agent.model.valobj.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 自动执行状态；分析 → 执行 → 监督 循环，完成或达到最大步数后总结
+ *
+ * @author jinjie
+ * 2025/8/14 15:02
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public enum AutoAgentExecuteStateVO {
+
+    INIT("INIT", "初始化"),
+    ANALYZE("ANALYZE", "任务分析"),
+    EXECUTE("EXECUTE", "精准执行"),
+    SUPERVISE("SUPERVISE", "质量监督"),
+    SUMMARIZE("SUMMARIZE", "执行总结"),
+    DONE("DONE", "执行结束"),
+
+    ;
+
+    private String code;
+    private String info;
+
+}
@@ -2,20 +2,30 @@ package cn.bugstack.ai.domain.agent.service.armory;
 
 import cn.bugstack.ai.domain.agent.adapter.repository.IAgentRepository;
 import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
 import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentHandle;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentRegistry;
+import cn.bugstack.ai.domain.agent.service.armory.registry.McpClientPool;
+import cn.bugstack.ai.domain.agent.service.armory.snapshot.ArmorySnapshotService;
 import cn.bugstack.wrench.design.framework.tree.AbstractMultiThreadStrategyRouter;
+import io.modelcontextprotocol.client.McpSyncClient;
 import jakarta.annotation.Resource;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.config.BeanDefinition;
-import org.springframework.beans.factory.support.BeanDefinitionBuilder;
-import org.springframework.beans.factory.support.DefaultListableBeanFactory;
-import org.springframework.context.ApplicationContext;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 /**
  * 装配支撑类
@@ -28,14 +38,20 @@ public abstract class AbstractArmorySupport extends AbstractMultiThreadStrategyR
     private final Logger log = LoggerFactory.getLogger(AbstractArmorySupport.class);
 
     @Resource
-    protected ApplicationContext applicationContext;
+    protected AgentComponentRegistry agentComponentRegistry;
 
     @Resource
-    protected ThreadPoolExecutor threadPoolExecutor;
+    protected McpClientPool mcpClientPool;
+
+    @Resource
+    protected ThreadPoolExecutor armoryThreadPoolExecutor;
 
     @Resource
     protected IAgentRepository repository;
 
+    @Resource
+    protected ArmorySnapshotService armorySnapshotService;
+
     @Override
     protected void multiThread(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws ExecutionException, InterruptedException, TimeoutException {
         // 缺省的
@@ -50,33 +66,178 @@ public abstract class AbstractArmorySupport extends AbstractMultiThreadStrategyR
     }
 
     /**
-     * 通用的Bean注册方法
+     * 通用的组件注册方法；写入本次装配的暂存区，装配完成后随新代一起发布
      *
-     * @param beanName  Bean名称
-     * @param beanClass Bean类型
-     * @param <T>       Bean类型
+     * @param type           组件类型
+     * @param id             组件ID
+     * @param componentClass 组件类型 Class
+     * @param fingerprint    配置指纹
+     * @param dependencies   直接依赖的组件 beanName
+     * @param mcpSyncClients 组件持有的 MCP 客户端
+     * @param <T>            组件类型
      */
-    protected synchronized <T> void registerBean(String beanName, Class<T> beanClass, T beanInstance) {
-        DefaultListableBeanFactory beanFactory = (DefaultListableBeanFactory) applicationContext.getAutowireCapableBeanFactory();
+    protected <T> void registerComponent(DefaultArmoryStrategyFactory.DynamicContext dynamicContext,
+                                         AiAgentEnumVO type, String id, Class<T> componentClass, T component, String fingerprint,
+                                         Set<String> dependencies, List<McpSyncClient> mcpSyncClients) {
+        dynamicContext.getStaging().register(type, id, componentClass, component, fingerprint, dependencies, mcpSyncClients);
+        log.info("成功注册组件: {}", type.getBeanName(id));
+    }
 
-        // 注册Bean
-        BeanDefinitionBuilder beanDefinitionBuilder = BeanDefinitionBuilder.genericBeanDefinition(beanClass, () -> beanInstance);
-        BeanDefinition beanDefinition = beanDefinitionBuilder.getRawBeanDefinition();
-        beanDefinition.setScope(BeanDefinition.SCOPE_SINGLETON);
+    /**
+     * 增量装配时，配置指纹未变更的组件直接沿用已注册实例
+     *
+     * @return 可沿用的组件实例，需要重建时返回 null
+     */
+    protected <T> T reusableComponent(DefaultArmoryStrategyFactory.DynamicContext dynamicContext,
+                                      AiAgentEnumVO type, String id, String fingerprint) {
+        if (!dynamicContext.isIncremental()) {
+            return null;
+        }
 
-        // 如果Bean已存在，先移除
-        if (beanFactory.containsBeanDefinition(beanName)) {
-            beanFactory.removeBeanDefinition(beanName);
+        AgentComponentHandle<T> handle = dynamicContext.getStaging().getHandle(type, id);
+        if (null == handle || !fingerprint.equals(handle.getFingerprint())) {
+            return null;
         }
 
-        // 注册新的Bean
-        beanFactory.registerBeanDefinition(beanName, beanDefinition);
+        log.info("Ai Agent 增量装配，组件未变更: {}", type.getBeanName(id));
+        return handle.getComponent();
+    }
+
+    /**
+     * 组装配置指纹
+     *
+     * @param parts 组件配置更新时间、依赖组件版本等
+     * @return 配置指纹
+     */
+    protected String fingerprint(Object... parts) {
+        return StringUtils.joinWith("|", parts);
+    }
+
+    /**
+     * 依赖组件的注册版本，依赖重建后版本变化，下游组件的指纹随之变化
+     */
+    protected long componentVersion(DefaultArmoryStrategyFactory.DynamicContext dynamicContext, AiAgentEnumVO type, String id) {
+        return dynamicContext.getStaging().getComponentVersion(type, id);
+    }
 
-        log.info("成功注册Bean: {}", beanName);
+    /**
+     * 依赖组件的 beanName
+     */
+    protected Set<String> beanNames(AiAgentEnumVO type, Collection<String> ids) {
+        Set<String> beanNames = new LinkedHashSet<>();
+        for (String id : ids) {
+            beanNames.add(type.getBeanName(id));
+        }
+        return beanNames;
+    }
+
+    protected List<String> componentVersions(DefaultArmoryStrategyFactory.DynamicContext dynamicContext, AiAgentEnumVO type, List<String> ids) {
+        List<String> versions = new ArrayList<>();
+        for (String id : ids) {
+            versions.add(id + ":" + componentVersion(dynamicContext, type, id));
+        }
+        return versions;
     }
 
-    protected <T> T getBean(String beanName) {
-        return (T) applicationContext.getBean(beanName);
+    /**
+     * 提交组件构建任务；依赖全部就绪后立即在线程池中构建并注册，不等待同层其他组件。
+     *
+     * @param dynamicContext 上下文，记录组件构建任务，供下游组件建立依赖
+     * @param type           组件类型
+     * @param id             组件ID
+     * @param componentClass 组件类型 Class
+     * @param dependencies   依赖的组件构建任务
+     * @param dependencyBeanNames 直接依赖的组件 beanName，记录在组件句柄中
+     * @param mcpSyncClients 组件持有的 MCP 客户端（依赖完成后获取），随组件句柄引用计数
+     * @param fingerprint    配置指纹（依赖完成后计算，可引用依赖组件版本）
+     * @param supplier       组件构建过程（执行时依赖均已完成，可直接 join 获取）
+     * @return 组件构建任务
+     */
+    protected <T> CompletableFuture<T> submitComponent(DefaultArmoryStrategyFactory.DynamicContext dynamicContext,
+                                                       AiAgentEnumVO type, String id, Class<T> componentClass,
+                                                       List<? extends CompletableFuture<?>> dependencies,
+                                                       Set<String> dependencyBeanNames,
+                                                       Supplier<List<McpSyncClient>> mcpSyncClients,
+                                                       Supplier<String> fingerprint,
+                                                       Supplier<T> supplier) {
+        CompletableFuture<T> future = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[0]))
+                .thenApplyAsync(v -> {
+                    String componentFingerprint = fingerprint.get();
+                    T reusable = reusableComponent(dynamicContext, type, id, componentFingerprint);
+                    if (null != reusable) {
+                        return reusable;
+                    }
+
+                    T component = supplier.get();
+                    registerComponent(dynamicContext, type, id, componentClass, component, componentFingerprint, dependencyBeanNames,
+                            mcpSyncClients.get());
+                    return component;
+                }, armoryThreadPoolExecutor);
+
+        dynamicContext.setComponentFuture(type.getBeanName(id), future);
+        return future;
+    }
+
+    /**
+     * 获取依赖组件的构建任务；不在本次装配范围内的组件，从当前代中获取。
+     *
+     * @param dynamicContext 上下文
+     * @param type           组件类型
+     * @param id             组件ID
+     * @param componentClass 组件类型 Class
+     * @return 组件构建任务
+     */
+    protected <T> CompletableFuture<T> componentFuture(DefaultArmoryStrategyFactory.DynamicContext dynamicContext,
+                                                       AiAgentEnumVO type, String id, Class<T> componentClass) {
+        CompletableFuture<T> future = dynamicContext.getComponentFuture(type.getBeanName(id));
+        if (null != future) {
+            return future;
+        }
+        return CompletableFuture.completedFuture(dynamicContext.getStaging().getRequiredComponent(type, id, componentClass));
+    }
+
+    /**
+     * 等待本次装配的全部组件构建完成后发布为新的组件代；任一组件失败则放弃本次装配并抛出异常，当前代保持不变。
+     *
+     * @param dynamicContext 上下文
+     */
+    protected void publishComponents(DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws ExecutionException, InterruptedException {
+        Map<String, CompletableFuture<?>> componentFutures = dynamicContext.getComponentFutures();
+        try {
+            CompletableFuture.allOf(componentFutures.values().toArray(new CompletableFuture[0])).get();
+        } catch (ExecutionException | InterruptedException e) {
+            agentComponentRegistry.discard(dynamicContext.getStaging());
+            throw e;
+        }
+
+        log.info("Ai Agent 组件装配完成，数量: {}", componentFutures.size());
+        if (!dynamicContext.getDegradedComponents().isEmpty()) {
+            log.warn("Ai Agent 组件降级: {}", dynamicContext.getDegradedComponents());
+        }
+
+        agentComponentRegistry.publish(dynamicContext.getStaging());
+
+        // 发布成功的配置写入本地快照，供下次启动先行装配
+        if (!dynamicContext.isSnapshot()) {
+            armorySnapshotService.record(dynamicContext);
+        }
+    }
+
+    /**
+     * 获取已就绪的 MCP 客户端，跳过降级（结果为 null）的服务
+     *
+     * @param mcpSyncClientFutures MCP 客户端构建任务
+     * @return 可用的 MCP 客户端
+     */
+    protected List<McpSyncClient> readyMcpSyncClients(List<CompletableFuture<McpSyncClient>> mcpSyncClientFutures) {
+        List<McpSyncClient> mcpSyncClients = new ArrayList<>();
+        for (CompletableFuture<McpSyncClient> mcpSyncClientFuture : mcpSyncClientFutures) {
+            McpSyncClient mcpSyncClient = mcpSyncClientFuture.join();
+            if (null != mcpSyncClient) {
+                mcpSyncClients.add(mcpSyncClient);
+            }
+        }
+        return mcpSyncClients;
     }
 
 }
@@ -14,6 +14,9 @@ import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 顾问角色节点
@@ -32,23 +35,25 @@ public class AiClientAdvisorNode extends AbstractArmorySupport {
     private AiClientNode aiClientNode;
 
     @Override
-    protected String doApply(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws Exception {
-        log.info("Ai Agent 构建节点，Advisor 顾问角色{}", JSON.toJSONString(requestParameter));
-
+    protected void multiThread(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws ExecutionException, InterruptedException, TimeoutException {
         List<AiClientAdvisorVO> aiClientAdvisorList = dynamicContext.getValue(dataName());
 
         if (aiClientAdvisorList == null || aiClientAdvisorList.isEmpty()) {
             log.warn("没有需要被初始化的 ai client advisor");
-            return router(requestParameter, dynamicContext);
+            return;
         }
 
         for (AiClientAdvisorVO aiClientAdvisorVO : aiClientAdvisorList) {
-            // 构建顾问访问对象
-            Advisor advisor = createAdvisor(aiClientAdvisorVO);
-            // 注册Bean对象
-            registerBean(beanName(aiClientAdvisorVO.getAdvisorId()), Advisor.class, advisor);
+            // 构建顾问访问对象并注册组件；无依赖，直接并行构建
+            submitComponent(dynamicContext, AiAgentEnumVO.AI_CLIENT_ADVISOR, aiClientAdvisorVO.getAdvisorId(), Advisor.class, List.of(), Set.of(), List::of,
+                    () -> fingerprint(aiClientAdvisorVO.getUpdateTime()),
+                    () -> createAdvisor(aiClientAdvisorVO));
         }
+    }
 
+    @Override
+    protected String doApply(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws Exception {
+        log.info("Ai Agent 构建节点，Advisor 顾问角色{}", JSON.toJSONString(requestParameter));
         return router(requestParameter, dynamicContext);
     }
 
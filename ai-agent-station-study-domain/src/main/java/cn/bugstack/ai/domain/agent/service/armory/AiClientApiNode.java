@@ -12,6 +12,9 @@ import org.springframework.ai.openai.api.OpenAiApi;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * OpenAI API配置节点
@@ -27,29 +30,30 @@ public class AiClientApiNode extends AbstractArmorySupport {
     private AiClientToolMcpNode aiClientToolMcpNode;
 
     @Override
-    protected String doApply(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws Exception {
-        log.info("Ai Agent 构建节点，API 接口请求{}", JSON.toJSONString(requestParameter));
-
+    protected void multiThread(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws ExecutionException, InterruptedException, TimeoutException {
         List<AiClientApiVO> aiClientApiList = dynamicContext.getValue(dataName());
 
         if (aiClientApiList == null || aiClientApiList.isEmpty()) {
             log.warn("没有需要被初始化的 ai client api");
-            return router(requestParameter, dynamicContext);
+            return;
         }
 
         for (AiClientApiVO aiClientApiVO : aiClientApiList) {
-            // 构建 OpenAiApi
-            OpenAiApi openAiApi = OpenAiApi.builder()
-                    .baseUrl(aiClientApiVO.getBaseUrl())
-                    .apiKey(aiClientApiVO.getApiKey())
-                    .completionsPath(aiClientApiVO.getCompletionsPath())
-                    .embeddingsPath(aiClientApiVO.getEmbeddingsPath())
-                    .build();
-
-            // 注册 OpenAiApi Bean 对象
-            registerBean(beanName(aiClientApiVO.getApiId()), OpenAiApi.class, openAiApi);
+            // 构建 OpenAiApi 并注册组件；无依赖，直接并行构建
+            submitComponent(dynamicContext, AiAgentEnumVO.AI_CLIENT_API, aiClientApiVO.getApiId(), OpenAiApi.class, List.of(), Set.of(), List::of,
+                    () -> fingerprint(aiClientApiVO.getUpdateTime()),
+                    () -> OpenAiApi.builder()
+                            .baseUrl(aiClientApiVO.getBaseUrl())
+                            .apiKey(aiClientApiVO.getApiKey())
+                            .completionsPath(aiClientApiVO.getCompletionsPath())
+                            .embeddingsPath(aiClientApiVO.getEmbeddingsPath())
+                            .build());
         }
+    }
 
+    @Override
+    protected String doApply(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws Exception {
+        log.info("Ai Agent 构建节点，API 接口请求{}", JSON.toJSONString(requestParameter));
         return router(requestParameter, dynamicContext);
     }
 
@@ -4,19 +4,22 @@ import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
 import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
 import cn.bugstack.ai.domain.agent.model.valobj.AiClientModelVO;
 import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.armory.factory.element.McpToolChatOptions;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
 import com.alibaba.fastjson.JSON;
 import io.modelcontextprotocol.client.McpSyncClient;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
 import org.springframework.ai.openai.OpenAiChatModel;
-import org.springframework.ai.openai.OpenAiChatOptions;
 import org.springframework.ai.openai.api.OpenAiApi;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 对话模型节点配置
@@ -32,45 +35,56 @@ public class AiClientModelNode extends AbstractArmorySupport {
     private AiClientAdvisorNode aiClientAdvisorNode;
 
     @Override
-    protected String doApply(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws Exception {
-        log.info("Ai Agent 构建节点，Mode 对话模型{}", JSON.toJSONString(requestParameter));
-
+    protected void multiThread(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws ExecutionException, InterruptedException, TimeoutException {
         List<AiClientModelVO> aiClientModelList = dynamicContext.getValue(dataName());
 
         if (aiClientModelList == null || aiClientModelList.isEmpty()) {
             log.warn("没有需要被初始化的 ai client model");
-            return router(requestParameter, dynamicContext);
+            return;
         }
 
         for (AiClientModelVO modelVO : aiClientModelList) {
+            // 依赖：当前模型关联的 API 对象（api -> model）
+            CompletableFuture<OpenAiApi> openAiApiFuture = componentFuture(dynamicContext, AiAgentEnumVO.AI_CLIENT_API, modelVO.getApiId(), OpenAiApi.class);
 
-            // 获取当前模型关联的 API Bean 对象
-            OpenAiApi openAiApi = getBean(AiAgentEnumVO.AI_CLIENT_API.getBeanName(modelVO.getApiId()));
-            if (null == openAiApi) {
-                throw new RuntimeException("mode 2 api is null");
-            }
-
-            // 获取当前模型关联的 Tool MCP Bean 对象
-            List<McpSyncClient> mcpSyncClients = new ArrayList<>();
+            // 依赖：当前模型关联的 Tool MCP 对象（mcp -> model）
+            List<CompletableFuture<McpSyncClient>> mcpSyncClientFutures = new ArrayList<>();
             for (String toolMcpId : modelVO.getToolMcpIds()) {
-                McpSyncClient mcpSyncClient = getBean(AiAgentEnumVO.AI_CLIENT_TOOL_MCP.getBeanName(toolMcpId));
-                mcpSyncClients.add(mcpSyncClient);
+                mcpSyncClientFutures.add(componentFuture(dynamicContext, AiAgentEnumVO.AI_CLIENT_TOOL_MCP, toolMcpId, McpSyncClient.class));
             }
 
-            // 实例化对话模型（如果有其他模型对接，可以使用 one-api 服务，转换为 openai 模型格式）
-            OpenAiChatModel chatModel = OpenAiChatModel.builder()
-                    .openAiApi(openAiApi)
-                    .defaultOptions(
-                            OpenAiChatOptions.builder()
-                                    .model(modelVO.getModelName())
-                                    .toolCallbacks(new SyncMcpToolCallbackProvider(mcpSyncClients).getToolCallbacks())
-                                    .build())
-                    .build();
-
-            // 注册 Bean 对象
-            registerBean(beanName(modelVO.getModelId()), OpenAiChatModel.class, chatModel);
+            List<CompletableFuture<?>> dependencies = new ArrayList<>(mcpSyncClientFutures);
+            dependencies.add(openAiApiFuture);
+
+            Set<String> dependencyBeanNames = beanNames(AiAgentEnumVO.AI_CLIENT_TOOL_MCP, modelVO.getToolMcpIds());
+            dependencyBeanNames.add(AiAgentEnumVO.AI_CLIENT_API.getBeanName(modelVO.getApiId()));
+
+            submitComponent(dynamicContext, AiAgentEnumVO.AI_CLIENT_MODEL, modelVO.getModelId(), OpenAiChatModel.class, dependencies, dependencyBeanNames,
+                    () -> readyMcpSyncClients(mcpSyncClientFutures),
+                    () -> fingerprint(modelVO.getUpdateTime(),
+                            componentVersion(dynamicContext, AiAgentEnumVO.AI_CLIENT_API, modelVO.getApiId()),
+                            componentVersions(dynamicContext, AiAgentEnumVO.AI_CLIENT_TOOL_MCP, modelVO.getToolMcpIds())),
+                    () -> {
+                OpenAiApi openAiApi = openAiApiFuture.join();
+                if (null == openAiApi) {
+                    throw new RuntimeException("mode 2 api is null");
+                }
+
+                // 降级的 MCP 服务不挂载工具；工具定义在请求时解析，懒连接模式下不等待握手
+                List<McpSyncClient> mcpSyncClients = readyMcpSyncClients(mcpSyncClientFutures);
+
+                // 实例化对话模型（如果有其他模型对接，可以使用 one-api 服务，转换为 openai 模型格式）
+                return OpenAiChatModel.builder()
+                        .openAiApi(openAiApi)
+                        .defaultOptions(new McpToolChatOptions(modelVO.getModelName(), mcpClientPool.toolCallbackProvider(mcpSyncClients)))
+                        .build();
+            });
         }
+    }
 
+    @Override
+    protected String doApply(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws Exception {
+        log.info("Ai Agent 构建节点，Mode 对话模型{}", JSON.toJSONString(requestParameter));
         return router(requestParameter, dynamicContext);
     }
 
@@ -5,19 +5,25 @@ import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
 import cn.bugstack.ai.domain.agent.model.valobj.AiClientSystemPromptVO;
 import cn.bugstack.ai.domain.agent.model.valobj.AiClientVO;
 import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.armory.factory.element.McpToolCallbackAdvisor;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentHandle;
+import cn.bugstack.ai.domain.agent.service.armory.registry.McpToolCallbackProvider;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
 import com.alibaba.fastjson.JSON;
 import io.modelcontextprotocol.client.McpSyncClient;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.api.Advisor;
-import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
 import org.springframework.ai.openai.OpenAiChatModel;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * ai agent 客户端对话对象节点
@@ -30,13 +36,11 @@ import java.util.Map;
 public class AiClientNode extends AbstractArmorySupport {
 
     @Override
-    protected String doApply(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws Exception {
-        log.info("Ai Agent 构建节点，客户端{}", JSON.toJSONString(requestParameter));
-
+    protected void multiThread(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws ExecutionException, InterruptedException, TimeoutException {
         List<AiClientVO> aiClientList = dynamicContext.getValue(dataName());
 
         if (null == aiClientList || aiClientList.isEmpty()) {
-            return router(requestParameter, dynamicContext);
+            return;
         }
 
         Map<String, AiClientSystemPromptVO> systemPromptMap = dynamicContext.getValue(AiAgentEnumVO.AI_CLIENT_SYSTEM_PROMPT.getDataName());
@@ -45,39 +49,83 @@ public class AiClientNode extends AbstractArmorySupport {
             // 1. 预设话术
             StringBuilder defaultSystem = new StringBuilder("Ai 智能体 \r\n");
             List<String> promptIdList = aiClientVO.getPromptIdList();
+            List<String> promptVersions = new ArrayList<>();
             for (String promptId : promptIdList) {
                 AiClientSystemPromptVO aiClientSystemPromptVO = systemPromptMap.get(promptId);
                 defaultSystem.append(aiClientSystemPromptVO.getPromptContent());
+                promptVersions.add(promptId + ":" + aiClientSystemPromptVO.getUpdateTime());
             }
 
-            // 2. 对话模型
-            OpenAiChatModel chatModel = getBean(aiClientVO.getModelBeanName());
+            // 2. 依赖：对话模型（model -> client）
+            CompletableFuture<OpenAiChatModel> chatModelFuture = componentFuture(dynamicContext, AiAgentEnumVO.AI_CLIENT_MODEL, aiClientVO.getModelId(), OpenAiChatModel.class);
 
-            // 3. MCP 服务
-            List<McpSyncClient> mcpSyncClients = new ArrayList<>();
-            List<String> mcpBeanNameList = aiClientVO.getMcpBeanNameList();
-            for (String mcpBeanName : mcpBeanNameList) {
-                mcpSyncClients.add(getBean(mcpBeanName));
+            // 3. 依赖：MCP 服务
+            List<CompletableFuture<McpSyncClient>> mcpSyncClientFutures = new ArrayList<>();
+            for (String mcpId : aiClientVO.getMcpIdList()) {
+                mcpSyncClientFutures.add(componentFuture(dynamicContext, AiAgentEnumVO.AI_CLIENT_TOOL_MCP, mcpId, McpSyncClient.class));
             }
 
-            // 4. advisor 顾问角色
-            List<Advisor> advisors = new ArrayList<>();
-            List<String> advisorBeanNameList = aiClientVO.getAdvisorBeanNameList();
-            for (String advisorBeanName : advisorBeanNameList) {
-                advisors.add(getBean(advisorBeanName));
+            // 4. 依赖：advisor 顾问角色（advisor -> client）
+            List<CompletableFuture<Advisor>> advisorFutures = new ArrayList<>();
+            for (String advisorId : aiClientVO.getAdvisorIdList()) {
+                advisorFutures.add(componentFuture(dynamicContext, AiAgentEnumVO.AI_CLIENT_ADVISOR, advisorId, Advisor.class));
             }
 
-            Advisor[] advisorArray = advisors.toArray(new Advisor[]{});
+            List<CompletableFuture<?>> dependencies = new ArrayList<>();
+            dependencies.add(chatModelFuture);
+            dependencies.addAll(mcpSyncClientFutures);
+            dependencies.addAll(advisorFutures);
 
-            // 5. 构建对话客户端
-            ChatClient chatClient = ChatClient.builder(chatModel)
-                    .defaultSystem(defaultSystem.toString())
-                    .defaultToolCallbacks(new SyncMcpToolCallbackProvider(mcpSyncClients.toArray(new McpSyncClient[]{})))
-                    .defaultAdvisors(advisorArray)
-                    .build();
+            Set<String> dependencyBeanNames = beanNames(AiAgentEnumVO.AI_CLIENT_TOOL_MCP, aiClientVO.getMcpIdList());
+            dependencyBeanNames.addAll(beanNames(AiAgentEnumVO.AI_CLIENT_ADVISOR, aiClientVO.getAdvisorIdList()));
+            dependencyBeanNames.add(AiAgentEnumVO.AI_CLIENT_MODEL.getBeanName(aiClientVO.getModelId()));
 
-            registerBean(beanName(aiClientVO.getClientId()), ChatClient.class, chatClient);
+            // 5. 构建对话客户端
+            submitComponent(dynamicContext, AiAgentEnumVO.AI_CLIENT, aiClientVO.getClientId(), ChatClient.class, dependencies, dependencyBeanNames,
+                    () -> {
+                        // 客户端同时持有其模型挂载的 MCP 客户端，模型被替换后客户端仍可调用原工具
+                        List<McpSyncClient> mcpSyncClients = new ArrayList<>(readyMcpSyncClients(mcpSyncClientFutures));
+                        AgentComponentHandle<?> modelHandle = dynamicContext.getStaging().getHandle(AiAgentEnumVO.AI_CLIENT_MODEL, aiClientVO.getModelId());
+                        if (null != modelHandle) {
+                            mcpSyncClients.addAll(modelHandle.getMcpSyncClients());
+                        }
+                        return mcpSyncClients;
+                    },
+                    () -> fingerprint(aiClientVO.getUpdateTime(), promptVersions,
+                            componentVersion(dynamicContext, AiAgentEnumVO.AI_CLIENT_MODEL, aiClientVO.getModelId()),
+                            componentVersions(dynamicContext, AiAgentEnumVO.AI_CLIENT_TOOL_MCP, aiClientVO.getMcpIdList()),
+                            componentVersions(dynamicContext, AiAgentEnumVO.AI_CLIENT_ADVISOR, aiClientVO.getAdvisorIdList())),
+                    () -> {
+                // 降级的 MCP 服务不挂载工具
+                List<McpSyncClient> mcpSyncClients = readyMcpSyncClients(mcpSyncClientFutures);
+
+                List<Advisor> advisors = new ArrayList<>();
+                for (CompletableFuture<Advisor> advisorFuture : advisorFutures) {
+                    advisors.add(advisorFuture.join());
+                }
+
+                // MCP 工具在请求时挂载，懒连接模式下不等待握手
+                McpToolCallbackProvider mcpToolCallbackProvider = mcpClientPool.toolCallbackProvider(mcpSyncClients);
+                if (!mcpToolCallbackProvider.isEmpty()) {
+                    advisors.add(new McpToolCallbackAdvisor(mcpToolCallbackProvider));
+                }
+
+                Advisor[] advisorArray = advisors.toArray(new Advisor[]{});
+
+                return ChatClient.builder(chatModelFuture.join())
+                        .defaultSystem(defaultSystem.toString())
+                        .defaultAdvisors(advisorArray)
+                        .build();
+            });
         }
+    }
+
+    @Override
+    protected String doApply(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws Exception {
+        log.info("Ai Agent 构建节点，客户端{}", JSON.toJSONString(requestParameter));
+
+        // 客户端为装配链路的最后一个节点，等待依赖图中全部组件构建完成后整体发布
+        publishComponents(dynamicContext);
 
         return router(requestParameter, dynamicContext);
     }
@@ -11,14 +11,23 @@ import io.modelcontextprotocol.client.McpSyncClient;
 import io.modelcontextprotocol.client.transport.HttpClientSseClientTransport;
 import io.modelcontextprotocol.client.transport.ServerParameters;
 import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.spec.McpClientTransport;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * MCP客户端配置节点
@@ -33,25 +42,96 @@ public class AiClientToolMcpNode extends AbstractArmorySupport {
     @Resource
     private AiClientModelNode aiClientModelNode;
 
-    @Override
-    protected String doApply(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws Exception {
-        log.info("Ai Agent 构建节点，Tool MCP 工具配置{}", JSON.toJSONString(requestParameter));
+    /**
+     * 单个 MCP 服务握手的截止时间（秒），超时则标记为降级，不阻塞整体装配
+     */
+    @Value("${spring.ai.agent.armory.mcp.init-timeout:30}")
+    private long initTimeout;
 
+    /**
+     * 初始化模式；eager 握手完成后注册，lazy 先注册句柄、后台握手，下游组件不等待握手，首次工具调用时等待握手完成
+     */
+    @Value("${spring.ai.agent.armory.mcp.init-mode:eager}")
+    private String initMode;
+
+    @Override
+    protected void multiThread(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws ExecutionException, InterruptedException, TimeoutException {
         List<AiClientToolMcpVO> aiClientToolMcpList = dynamicContext.getValue(dataName());
 
         if (aiClientToolMcpList == null || aiClientToolMcpList.isEmpty()) {
             log.warn("没有需要被初始化的 ai client tool mcp");
-            return router(requestParameter, dynamicContext);
+            return;
         }
 
+        boolean lazy = "lazy".equalsIgnoreCase(initMode);
+
         for (AiClientToolMcpVO mcpVO : aiClientToolMcpList) {
-            // 创建 MCP 服务
-            McpSyncClient mcpSyncClient = createMcpSyncClient(mcpVO);
+            String beanName = beanName(mcpVO.getMcpId());
+            String fingerprint = fingerprint(mcpVO.getUpdateTime());
+
+            // 增量装配：配置未变更的 MCP 服务沿用已有进程和连接
+            McpSyncClient reusable = reusableComponent(dynamicContext, AiAgentEnumVO.AI_CLIENT_TOOL_MCP, mcpVO.getMcpId(), fingerprint);
+            if (null != reusable) {
+                dynamicContext.setComponentFuture(beanName, CompletableFuture.completedFuture(reusable));
+                continue;
+            }
+
+            // 共享客户端：相同配置的 MCP 服务已在运行（如全量重新装配），直接复用，不再重复启动和握手
+            McpSyncClient shared = mcpClientPool.acquire(mcpVO.getMcpId(), fingerprint);
+            if (null != shared) {
+                registerMcpComponent(dynamicContext, mcpVO, shared, fingerprint);
+                dynamicContext.setComponentFuture(beanName, CompletableFuture.completedFuture(shared));
+                continue;
+            }
 
-            // 注册 MCP 对象
-            registerBean(beanName(mcpVO.getMcpId()), McpSyncClient.class, mcpSyncClient);
+            // 各服务并行握手，单个服务受截止时间约束；失败或超时的服务以 null 结果标记降级，下游组件跳过
+            CompletableFuture<McpSyncClient> created = CompletableFuture.supplyAsync(() -> createMcpSyncClient(mcpVO), armoryThreadPoolExecutor);
+            CompletableFuture<McpSyncClient> future;
+            if (lazy) {
+                // 懒连接：客户端创建后即注册，下游模型和客户端不等待握手；工具在请求时解析，首次调用等待握手完成
+                future = created.thenApply(mcpSyncClient -> {
+                    CompletableFuture<McpSyncClient> initialized = initializeMcpSyncClient(mcpVO, mcpSyncClient);
+                    initialized.whenComplete((result, e) -> {
+                        if (null != e) {
+                            log.error("Tool MCP 后台握手失败，工具调用时跳过 mcpId:{} mcpName:{}", mcpVO.getMcpId(), mcpVO.getMcpName(), e);
+                        }
+                    });
+                    mcpClientPool.register(mcpVO.getMcpId(), fingerprint, mcpSyncClient, initialized);
+                    registerMcpComponent(dynamicContext, mcpVO, mcpSyncClient, fingerprint);
+                    return mcpSyncClient;
+                });
+            } else {
+                future = created.thenCompose(mcpSyncClient -> initializeMcpSyncClient(mcpVO, mcpSyncClient))
+                        .thenApply(mcpSyncClient -> {
+                            mcpClientPool.register(mcpVO.getMcpId(), fingerprint, mcpSyncClient, CompletableFuture.completedFuture(mcpSyncClient));
+                            registerMcpComponent(dynamicContext, mcpVO, mcpSyncClient, fingerprint);
+                            return mcpSyncClient;
+                        });
+            }
+            future = future.exceptionally(e -> {
+                log.error("Tool MCP 初始化失败，标记降级 mcpId:{} mcpName:{}", mcpVO.getMcpId(), mcpVO.getMcpName(), e);
+                dynamicContext.addDegradedComponent(beanName);
+                dynamicContext.getStaging().remove(AiAgentEnumVO.AI_CLIENT_TOOL_MCP, mcpVO.getMcpId());
+                return null;
+            });
+
+            dynamicContext.setComponentFuture(beanName, future);
         }
+    }
 
+    /**
+     * 登记 MCP 组件；暂存区取得引用后释放创建（或复用）时取得的引用，此后客户端的存活由持有它的组件决定
+     */
+    private void registerMcpComponent(DefaultArmoryStrategyFactory.DynamicContext dynamicContext, AiClientToolMcpVO mcpVO,
+                                      McpSyncClient mcpSyncClient, String fingerprint) {
+        registerComponent(dynamicContext, AiAgentEnumVO.AI_CLIENT_TOOL_MCP, mcpVO.getMcpId(), McpSyncClient.class, mcpSyncClient, fingerprint,
+                Set.of(), List.of(mcpSyncClient));
+        mcpClientPool.release(mcpSyncClient);
+    }
+
+    @Override
+    protected String doApply(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws Exception {
+        log.info("Ai Agent 构建节点，Tool MCP 工具配置{}", JSON.toJSONString(requestParameter));
         return router(requestParameter, dynamicContext);
     }
 
@@ -70,6 +150,30 @@ public class AiClientToolMcpNode extends AbstractArmorySupport {
         return AiAgentEnumVO.AI_CLIENT_TOOL_MCP.getDataName();
     }
 
+    /**
+     * 后台完成握手；超过截止时间未完成则中断握手线程并关闭客户端（stdio 服务进程随之退出），任务以超时异常结束
+     */
+    private CompletableFuture<McpSyncClient> initializeMcpSyncClient(AiClientToolMcpVO aiClientToolMcpVO, McpSyncClient mcpSyncClient) {
+        CompletableFuture<McpSyncClient> initialized = new CompletableFuture<>();
+        Future<?> handshake = armoryThreadPoolExecutor.submit(() -> {
+            try {
+                var initializeResult = mcpSyncClient.initialize();
+                log.info("Tool {} MCP Initialized {}", aiClientToolMcpVO.getTransportType(), initializeResult);
+                initialized.complete(mcpSyncClient);
+            } catch (Throwable e) {
+                initialized.completeExceptionally(e);
+            }
+        });
+
+        return initialized.orTimeout(initTimeout, TimeUnit.SECONDS)
+                .whenComplete((result, e) -> {
+                    if (null != e) {
+                        handshake.cancel(true);
+                        mcpSyncClient.close();
+                    }
+                });
+    }
+
     private McpSyncClient createMcpSyncClient(AiClientToolMcpVO aiClientToolMcpVO) {
         String transportType = aiClientToolMcpVO.getTransportType();
 
@@ -97,11 +201,7 @@ public class AiClientToolMcpNode extends AbstractArmorySupport {
                         .sseEndpoint(sseEndpoint) // 使用截取或默认的 sseEndpoint
                         .build();
 
-                McpSyncClient mcpSyncClient = McpClient.sync(sseClientTransport).requestTimeout(Duration.ofMinutes(aiClientToolMcpVO.getRequestTimeout())).build();
-                var init_sse = mcpSyncClient.initialize();
-
-                log.info("Tool SSE MCP Initialized {}", init_sse);
-                return mcpSyncClient;
+                return buildMcpSyncClient(sseClientTransport, Duration.ofMinutes(aiClientToolMcpVO.getRequestTimeout()));
             }
             case "stdio" -> {
                 AiClientToolMcpVO.TransportConfigStdio transportConfigStdio = aiClientToolMcpVO.getTransportConfigStdio();
@@ -114,16 +214,25 @@ public class AiClientToolMcpNode extends AbstractArmorySupport {
                         .env(stdio.getEnv())
                         .build();
 
-                var mcpClient = McpClient.sync(new StdioClientTransport(stdioParams))
-                        .requestTimeout(Duration.ofSeconds(aiClientToolMcpVO.getRequestTimeout())).build();
-                var init_stdio = mcpClient.initialize();
-
-                log.info("Tool Stdio MCP Initialized {}", init_stdio);
-                return mcpClient;
+                return buildMcpSyncClient(new StdioClientTransport(stdioParams), Duration.ofSeconds(aiClientToolMcpVO.getRequestTimeout()));
             }
         }
 
         throw new RuntimeException("err! transportType " + transportType + " not exist!");
     }
 
+    /**
+     * 构建客户端；服务端通知工具列表变更时，使该客户端的工具定义缓存失效
+     */
+    private McpSyncClient buildMcpSyncClient(McpClientTransport transport, Duration requestTimeout) {
+        AtomicReference<McpSyncClient> clientRef = new AtomicReference<>();
+        McpSyncClient mcpSyncClient = McpClient.sync(transport)
+                .requestTimeout(requestTimeout)
+                .initializationTimeout(Duration.ofSeconds(initTimeout))
+                .toolsChangeConsumer(tools -> mcpClientPool.invalidateToolCallbacks(clientRef.get()))
+                .build();
+        clientRef.set(mcpSyncClient);
+        return mcpSyncClient;
+    }
+
 }
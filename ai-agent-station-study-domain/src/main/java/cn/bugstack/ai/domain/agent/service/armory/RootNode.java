@@ -1,17 +1,22 @@
 package cn.bugstack.ai.domain.agent.service.armory;
 
 import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
+import cn.bugstack.ai.domain.agent.model.valobj.*;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
 import cn.bugstack.ai.domain.agent.service.armory.business.data.ILoadDataStrategy;
 import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentGeneration;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentHandle;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
 import com.alibaba.fastjson.JSON;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 /**
  * 根节点，数据加载
@@ -33,9 +38,35 @@ public class RootNode extends AbstractArmorySupport {
 
     @Override
     protected void multiThread(ArmoryCommandEntity requestParameter, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws ExecutionException, InterruptedException, TimeoutException {
+        dynamicContext.setIncremental(requestParameter.isIncremental());
+        dynamicContext.setSnapshot(requestParameter.isSnapshot());
+        dynamicContext.setStaging(agentComponentRegistry.stage());
+
         // 加载数据
         ILoadDataStrategy loadDataStrategy = loadDataStrategyMap.get(requestParameter.getLoadDataStrategy());
         loadDataStrategy.loadData(requestParameter, dynamicContext);
+
+        // 增量装配的范围扩展到反向依赖闭包：当前代中直接或间接依赖本次装配组件的客户端（模型）一并纳入，
+        // 被重建的 MCP、API 等组件不会遗留在未重建的下游组件中；配置未变更的下游组件仍按指纹沿用
+        if (!requestParameter.isIncremental()) {
+            return;
+        }
+        List<String> commandIdList = new ArrayList<>(requestParameter.getCommandIdList());
+        List<String> dependentIds = dependentIds(requestParameter.getCommandType(), dynamicContext);
+        // 已纳入但未加载到配置的组件（如已删除）不再重复纳入
+        dependentIds.removeAll(commandIdList);
+        while (!dependentIds.isEmpty()) {
+            log.info("Ai Agent 增量装配，纳入下游依赖组件 {}:{}", requestParameter.getCommandType(), dependentIds);
+            commandIdList.addAll(dependentIds);
+            loadDataStrategy.loadData(ArmoryCommandEntity.builder()
+                    .commandType(requestParameter.getCommandType())
+                    .commandIdList(commandIdList)
+                    .incremental(true)
+                    .snapshot(requestParameter.isSnapshot())
+                    .build(), dynamicContext);
+            dependentIds = dependentIds(requestParameter.getCommandType(), dynamicContext);
+            dependentIds.removeAll(commandIdList);
+        }
     }
 
     @Override
@@ -44,6 +75,61 @@ public class RootNode extends AbstractArmorySupport {
         return router(requestParameter, dynamicContext);
     }
 
+    /**
+     * 当前代中依赖本次装配范围、但未在范围内的命令类型组件（客户端或模型）
+     *
+     * @param commandType    命令类型
+     * @param dynamicContext 上下文，已加载本次装配的配置
+     * @return 需要纳入装配范围的组件ID
+     */
+    private List<String> dependentIds(String commandType, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) {
+        Set<String> scope = new HashSet<>();
+        addBeanNames(scope, dynamicContext, AiAgentEnumVO.AI_CLIENT_API, AiClientApiVO::getApiId);
+        addBeanNames(scope, dynamicContext, AiAgentEnumVO.AI_CLIENT_MODEL, AiClientModelVO::getModelId);
+        addBeanNames(scope, dynamicContext, AiAgentEnumVO.AI_CLIENT_TOOL_MCP, AiClientToolMcpVO::getMcpId);
+        addBeanNames(scope, dynamicContext, AiAgentEnumVO.AI_CLIENT_ADVISOR, AiClientAdvisorVO::getAdvisorId);
+        addBeanNames(scope, dynamicContext, AiAgentEnumVO.AI_CLIENT, AiClientVO::getClientId);
+        Set<String> loaded = new HashSet<>(scope);
+
+        // 模型依赖 API、MCP，客户端依赖模型、MCP、顾问，迭代至闭包不再扩大
+        AgentComponentGeneration generation = agentComponentRegistry.getCurrentGeneration();
+        boolean expanded = true;
+        while (expanded) {
+            expanded = false;
+            for (AiAgentEnumVO type : List.of(AiAgentEnumVO.AI_CLIENT_MODEL, AiAgentEnumVO.AI_CLIENT)) {
+                for (AgentComponentHandle<?> handle : generation.getHandles(type)) {
+                    String beanName = type.getBeanName(handle.getId());
+                    if (!scope.contains(beanName) && handle.dependsOnAny(scope)) {
+                        scope.add(beanName);
+                        expanded = true;
+                    }
+                }
+            }
+        }
+
+        // 模型装配不构建客户端，依赖这些模型的客户端沿用原实例，其引用的 MCP 客户端由引用计数保持可用
+        AiAgentEnumVO commandEnum = AiAgentEnumVO.getByCode(commandType);
+        List<String> dependentIds = new ArrayList<>();
+        for (AgentComponentHandle<?> handle : generation.getHandles(commandEnum)) {
+            String beanName = commandEnum.getBeanName(handle.getId());
+            if (scope.contains(beanName) && !loaded.contains(beanName)) {
+                dependentIds.add(handle.getId());
+            }
+        }
+        return dependentIds;
+    }
+
+    private <T> void addBeanNames(Set<String> beanNames, DefaultArmoryStrategyFactory.DynamicContext dynamicContext,
+                                  AiAgentEnumVO type, Function<T, String> idFunction) {
+        List<T> voList = dynamicContext.getValue(type.getDataName());
+        if (null == voList) {
+            return;
+        }
+        for (T vo : voList) {
+            beanNames.add(type.getBeanName(idFunction.apply(vo)));
+        }
+    }
+
     @Override
     public StrategyHandler<ArmoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext, String> get(ArmoryCommandEntity armoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) throws Exception {
         return aiClientApiNode;
@@ -3,7 +3,7 @@ package cn.bugstack.ai.domain.agent.service.armory.business.data;
 import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
 import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 数据加载策略
@@ -13,6 +13,17 @@ import java.util.List;
  */
 public interface ILoadDataStrategy {
 
-    void loadData(ArmoryCommandEntity armoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext dynamicContext);
+    /**
+     * 异步加载装配数据；返回的任务完成时，数据已写入上下文
+     *
+     * @param armoryCommandEntity 装配命令
+     * @param dynamicContext      上下文
+     * @return 加载任务
+     */
+    CompletableFuture<Void> loadDataAsync(ArmoryCommandEntity armoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext dynamicContext);
+
+    default void loadData(ArmoryCommandEntity armoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) {
+        loadDataAsync(armoryCommandEntity, dynamicContext).join();
+    }
 
 }
@@ -2,7 +2,6 @@ package cn.bugstack.ai.domain.agent.service.armory.business.data.impl;
 
 import cn.bugstack.ai.domain.agent.adapter.repository.IAgentRepository;
 import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
-import cn.bugstack.ai.domain.agent.model.valobj.*;
 import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
 import cn.bugstack.ai.domain.agent.service.armory.business.data.ILoadDataStrategy;
 import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
@@ -11,7 +10,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -29,52 +27,24 @@ public class AiClientLoadDataStrategy implements ILoadDataStrategy {
     private IAgentRepository repository;
 
     @Resource
-    protected ThreadPoolExecutor threadPoolExecutor;
+    protected ThreadPoolExecutor armoryThreadPoolExecutor;
 
     @Override
-    public void loadData(ArmoryCommandEntity armoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) {
+    public CompletableFuture<Void> loadDataAsync(ArmoryCommandEntity armoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) {
         List<String> clientIdList = armoryCommandEntity.getCommandIdList();
 
-        CompletableFuture<List<AiClientApiVO>> aiClientApiListFuture = CompletableFuture.supplyAsync(() -> {
-            log.info("查询配置数据(ai_client_api) {}", clientIdList);
-            return repository.queryAiClientApiVOListByClientIds(clientIdList);
-        }, threadPoolExecutor);
-
-        CompletableFuture<List<AiClientModelVO>> aiClientModelListFuture = CompletableFuture.supplyAsync(() -> {
-            log.info("查询配置数据(ai_client_model) {}", clientIdList);
-            return repository.AiClientModelVOByClientIds(clientIdList);
-        }, threadPoolExecutor);
-
-        CompletableFuture<List<AiClientToolMcpVO>> aiClientToolMcpListFuture = CompletableFuture.supplyAsync(() -> {
-            log.info("查询配置数据(ai_client_tool_mcp) {}", clientIdList);
-            return repository.AiClientToolMcpVOByClientIds(clientIdList);
-        }, threadPoolExecutor);
-
-        CompletableFuture<Map<String, AiClientSystemPromptVO>> aiClientSystemPromptListFuture = CompletableFuture.supplyAsync(() -> {
-            log.info("查询配置数据(ai_client_system_prompt) {}", clientIdList);
-            return repository.queryAiClientSystemPromptMapByClientIds(clientIdList);
-        }, threadPoolExecutor);
-
-        CompletableFuture<List<AiClientAdvisorVO>> aiClientAdvisorListFuture = CompletableFuture.supplyAsync(() -> {
-            log.info("查询配置数据(ai_client_advisor) {}", clientIdList);
-            return repository.AiClientAdvisorVOByClientIds(clientIdList);
-        }, threadPoolExecutor);
-
-        CompletableFuture<List<AiClientVO>> aiClientListFuture = CompletableFuture.supplyAsync(() -> {
-            log.info("查询配置数据(ai_client) {}", clientIdList);
-            return repository.AiClientVOByClientIds(clientIdList);
-        }, threadPoolExecutor);
-
-        CompletableFuture.allOf(aiClientApiListFuture).thenRun(() -> {
-            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_API.getDataName(), aiClientApiListFuture.join());
-            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_MODEL.getDataName(), aiClientModelListFuture.join());
-            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_SYSTEM_PROMPT.getDataName(), aiClientSystemPromptListFuture.join());
-            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_TOOL_MCP.getDataName(), aiClientToolMcpListFuture.join());
-            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_ADVISOR.getDataName(), aiClientAdvisorListFuture.join());
-            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT.getDataName(), aiClientListFuture.join());
-
-        }).join();
-
+        // 配置图一次加载，每张配置表最多查询一次
+        return CompletableFuture.supplyAsync(() -> {
+            log.info("查询配置数据(client graph) {}", clientIdList);
+            return repository.queryAiClientConfigGraphByClientIds(clientIdList);
+        }, armoryThreadPoolExecutor).thenAccept(configGraph -> {
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_API.getDataName(), configGraph.getAiClientApiList());
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_MODEL.getDataName(), configGraph.getAiClientModelList());
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_SYSTEM_PROMPT.getDataName(), configGraph.getAiClientSystemPromptMap());
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_TOOL_MCP.getDataName(), configGraph.getAiClientToolMcpList());
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_ADVISOR.getDataName(), configGraph.getAiClientAdvisorList());
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT.getDataName(), configGraph.getAiClientList());
+        });
     }
 
 }
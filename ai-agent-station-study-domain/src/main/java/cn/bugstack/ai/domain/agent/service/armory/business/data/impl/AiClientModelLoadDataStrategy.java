@@ -2,8 +2,7 @@ package cn.bugstack.ai.domain.agent.service.armory.business.data.impl;
 
 import cn.bugstack.ai.domain.agent.adapter.repository.IAgentRepository;
 import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
-import cn.bugstack.ai.domain.agent.model.valobj.AiClientApiVO;
-import cn.bugstack.ai.domain.agent.model.valobj.AiClientModelVO;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
 import cn.bugstack.ai.domain.agent.service.armory.business.data.ILoadDataStrategy;
 import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
 import jakarta.annotation.Resource;
@@ -15,7 +14,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadPoolExecutor;
 
 /**
- * 以客户端对话模型，加载数据策略
+ * 以客户端对话模型，加载数据策略；只加载模型及其依赖的 API、MCP，不装配客户端
  * @author jinjie
  * 2025/6/28 20:12
  */
@@ -27,22 +26,24 @@ public class AiClientModelLoadDataStrategy implements ILoadDataStrategy {
     private IAgentRepository repository;
 
     @Resource
-    protected ThreadPoolExecutor threadPoolExecutor;
+    protected ThreadPoolExecutor armoryThreadPoolExecutor;
 
     @Override
-    public void loadData(ArmoryCommandEntity armoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) {
+    public CompletableFuture<Void> loadDataAsync(ArmoryCommandEntity armoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) {
         List<String> modelIdList = armoryCommandEntity.getCommandIdList();
 
-        CompletableFuture<List<AiClientApiVO>> aiClientApiListFuture = CompletableFuture.supplyAsync(() -> {
-            log.info("查询配置数据(ai_client_api) {}", modelIdList);
-            return repository.queryAiClientApiVOListByModelIds(modelIdList);
-        }, threadPoolExecutor);
-
-        CompletableFuture<List<AiClientModelVO>> aiClientModelListFuture = CompletableFuture.supplyAsync(() -> {
-            log.info("查询配置数据(ai_client_model) {}", modelIdList);
-            return repository.AiClientModelVOByModelIds(modelIdList);
-        }, threadPoolExecutor);
-
+        // 配置图一次加载，每张配置表最多查询一次
+        return CompletableFuture.supplyAsync(() -> {
+            log.info("查询配置数据(model graph) {}", modelIdList);
+            return repository.queryAiClientConfigGraphByModelIds(modelIdList);
+        }, armoryThreadPoolExecutor).thenAccept(configGraph -> {
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_API.getDataName(), configGraph.getAiClientApiList());
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_MODEL.getDataName(), configGraph.getAiClientModelList());
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_SYSTEM_PROMPT.getDataName(), configGraph.getAiClientSystemPromptMap());
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_TOOL_MCP.getDataName(), configGraph.getAiClientToolMcpList());
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_ADVISOR.getDataName(), configGraph.getAiClientAdvisorList());
+            dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT.getDataName(), configGraph.getAiClientList());
+        });
     }
 
 }
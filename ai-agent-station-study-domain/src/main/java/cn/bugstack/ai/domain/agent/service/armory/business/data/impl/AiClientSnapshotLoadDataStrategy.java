@@ -0,0 +1,175 @@
+package cn.bugstack.ai.domain.agent.service.armory.business.data.impl;
+
+import cn.bugstack.ai.domain.agent.adapter.repository.IAgentRepository;
+import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
+import cn.bugstack.ai.domain.agent.model.entity.ArmorySnapshotEntity;
+import cn.bugstack.ai.domain.agent.model.valobj.*;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
+import cn.bugstack.ai.domain.agent.service.armory.business.data.ILoadDataStrategy;
+import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.armory.snapshot.ArmorySnapshotService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 以客户端串联，从本地装配快照加载数据策略；配置不访问数据库。
+ * 快照不保存 API 密钥，按 apiId 从配置 spring.ai.agent.armory.snapshot.api-key.{apiId} 读取，未配置时查询数据库；
+ * 取不到密钥的 API 及依赖它的模型、客户端跳过，由随后的数据库对账装配。
+ *
+ * @author jinjie
+ * 2025/8/11 10:32
+ */
+@Slf4j
+@Service("aiClientSnapshotLoadDataStrategy")
+public class AiClientSnapshotLoadDataStrategy implements ILoadDataStrategy {
+
+    private static final String API_KEY_PROPERTY = "spring.ai.agent.armory.snapshot.api-key.";
+
+    @Resource
+    private ArmorySnapshotService armorySnapshotService;
+
+    @Resource
+    private IAgentRepository repository;
+
+    @Resource
+    private Environment environment;
+
+    @Override
+    public CompletableFuture<Void> loadDataAsync(ArmoryCommandEntity armoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext dynamicContext) {
+        ArmorySnapshotEntity snapshot = armorySnapshotService.getSnapshot();
+        if (null == snapshot) {
+            return CompletableFuture.failedFuture(new IllegalStateException("armory snapshot not found"));
+        }
+
+        log.info("查询配置数据(snapshot) version:{} {}", snapshot.getVersion(), armoryCommandEntity.getCommandIdList());
+
+        List<AiClientVO> aiClientList = new ArrayList<>();
+        Set<String> modelIds = new LinkedHashSet<>();
+        Set<String> mcpIds = new LinkedHashSet<>();
+        Set<String> advisorIds = new LinkedHashSet<>();
+        Map<String, AiClientSystemPromptVO> systemPromptMap = new HashMap<>();
+        for (String clientId : armoryCommandEntity.getCommandIdList()) {
+            AiClientVO aiClientVO = snapshot.getClientMap().get(clientId);
+            if (null == aiClientVO) {
+                return CompletableFuture.failedFuture(new IllegalStateException("client not found in armory snapshot: " + clientId));
+            }
+            aiClientList.add(aiClientVO);
+            modelIds.add(aiClientVO.getModelId());
+            mcpIds.addAll(aiClientVO.getMcpIdList());
+            advisorIds.addAll(aiClientVO.getAdvisorIdList());
+            for (String promptId : aiClientVO.getPromptIdList()) {
+                systemPromptMap.put(promptId, snapshot.getSystemPromptMap().get(promptId));
+            }
+        }
+
+        Map<String, AiClientModelVO> aiClientModelMap = new LinkedHashMap<>();
+        for (String modelId : modelIds) {
+            AiClientModelVO aiClientModelVO = snapshot.getModelMap().get(modelId);
+            if (null == aiClientModelVO) {
+                log.warn("装配快照中不存在对话模型，跳过 modelId:{}", modelId);
+                continue;
+            }
+            aiClientModelMap.put(modelId, aiClientModelVO);
+        }
+
+        Map<String, AiClientApiVO> aiClientApiMap = resolveApiKeys(snapshot, aiClientModelMap.values());
+
+        List<AiClientModelVO> aiClientModelList = new ArrayList<>();
+        for (AiClientModelVO aiClientModelVO : aiClientModelMap.values()) {
+            if (!aiClientApiMap.containsKey(aiClientModelVO.getApiId())) {
+                log.warn("装配快照中对话模型的 API 不可用，跳过 modelId:{} apiId:{}", aiClientModelVO.getModelId(), aiClientModelVO.getApiId());
+                continue;
+            }
+            aiClientModelList.add(aiClientModelVO);
+            if (null != aiClientModelVO.getToolMcpIds()) {
+                mcpIds.addAll(aiClientModelVO.getToolMcpIds());
+            }
+        }
+
+        // 对话模型被跳过的客户端一并跳过
+        Set<String> readyModelIds = new HashSet<>();
+        aiClientModelList.forEach(vo -> readyModelIds.add(vo.getModelId()));
+        aiClientList.removeIf(aiClientVO -> {
+            if (readyModelIds.contains(aiClientVO.getModelId())) {
+                return false;
+            }
+            log.warn("装配快照中客户端的对话模型不可用，跳过 clientId:{} modelId:{}", aiClientVO.getClientId(), aiClientVO.getModelId());
+            return true;
+        });
+
+        dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_API.getDataName(), new ArrayList<>(aiClientApiMap.values()));
+        dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_MODEL.getDataName(), aiClientModelList);
+        dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_SYSTEM_PROMPT.getDataName(), systemPromptMap);
+        dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_TOOL_MCP.getDataName(), select(snapshot.getToolMcpMap(), mcpIds));
+        dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT_ADVISOR.getDataName(), select(snapshot.getAdvisorMap(), advisorIds));
+        dynamicContext.setValue(AiAgentEnumVO.AI_CLIENT.getDataName(), aiClientList);
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * 补全快照中 API 的密钥；优先读取配置，其余一次查询数据库，数据库不可用时跳过
+     *
+     * @return apiId -> 带密钥的 API 配置，不含取不到密钥的 API
+     */
+    private Map<String, AiClientApiVO> resolveApiKeys(ArmorySnapshotEntity snapshot, Collection<AiClientModelVO> aiClientModelList) {
+        Map<String, AiClientApiVO> aiClientApiMap = new LinkedHashMap<>();
+        List<String> unresolvedModelIds = new ArrayList<>();
+        for (AiClientModelVO aiClientModelVO : aiClientModelList) {
+            AiClientApiVO aiClientApiVO = snapshot.getApiMap().get(aiClientModelVO.getApiId());
+            if (null == aiClientApiVO || aiClientApiMap.containsKey(aiClientApiVO.getApiId())) {
+                continue;
+            }
+            String apiKey = environment.getProperty(API_KEY_PROPERTY + aiClientApiVO.getApiId());
+            if (StringUtils.isNotBlank(apiKey)) {
+                aiClientApiMap.put(aiClientApiVO.getApiId(), withApiKey(aiClientApiVO, apiKey));
+            } else {
+                unresolvedModelIds.add(aiClientModelVO.getModelId());
+            }
+        }
+
+        if (unresolvedModelIds.isEmpty()) {
+            return aiClientApiMap;
+        }
+        try {
+            for (AiClientApiVO aiClientApiVO : repository.queryAiClientApiVOListByModelIds(unresolvedModelIds)) {
+                AiClientApiVO snapshotApiVO = snapshot.getApiMap().get(aiClientApiVO.getApiId());
+                if (null != snapshotApiVO && StringUtils.isNotBlank(aiClientApiVO.getApiKey())) {
+                    aiClientApiMap.putIfAbsent(aiClientApiVO.getApiId(), withApiKey(snapshotApiVO, aiClientApiVO.getApiKey()));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("装配快照查询 API 密钥失败，未配置密钥的 API 跳过 modelIds:{}", unresolvedModelIds, e);
+        }
+        return aiClientApiMap;
+    }
+
+    private AiClientApiVO withApiKey(AiClientApiVO vo, String apiKey) {
+        return AiClientApiVO.builder()
+                .apiId(vo.getApiId())
+                .baseUrl(vo.getBaseUrl())
+                .apiKey(apiKey)
+                .completionsPath(vo.getCompletionsPath())
+                .embeddingsPath(vo.getEmbeddingsPath())
+                .updateTime(vo.getUpdateTime())
+                .build();
+    }
+
+    private <T> List<T> select(Map<String, T> map, Set<String> ids) {
+        List<T> list = new ArrayList<>();
+        for (String id : ids) {
+            T vo = map.get(id);
+            if (null != vo) {
+                list.add(vo);
+            }
+        }
+        return list;
+    }
+
+}
@@ -1,16 +1,26 @@
 package cn.bugstack.ai.domain.agent.service.armory.factory;
 
 import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
 import cn.bugstack.ai.domain.agent.service.armory.RootNode;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentStaging;
+import cn.bugstack.ai.types.enums.ResponseCode;
+import cn.bugstack.ai.types.exception.AppException;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * 工厂类
@@ -21,16 +31,45 @@ import java.util.Map;
 @Service
 public class DefaultArmoryStrategyFactory {
 
+    /**
+     * 支持的装配命令类型；以客户端或对话模型为入口加载配置
+     */
+    private static final Set<String> COMMAND_TYPES = Set.of(AiAgentEnumVO.AI_CLIENT.getCode(), AiAgentEnumVO.AI_CLIENT_MODEL.getCode());
+
     private final RootNode rootNode;
 
-    public DefaultArmoryStrategyFactory(RootNode rootNode) {
+    private final ThreadPoolExecutor armoryThreadPoolExecutor;
+
+    public DefaultArmoryStrategyFactory(RootNode rootNode, @Qualifier("armoryThreadPoolExecutor") ThreadPoolExecutor armoryThreadPoolExecutor) {
         this.rootNode = rootNode;
+        this.armoryThreadPoolExecutor = armoryThreadPoolExecutor;
     }
 
     public StrategyHandler<ArmoryCommandEntity, DefaultArmoryStrategyFactory.DynamicContext, String> armoryStrategyHandler(){
         return rootNode;
     }
 
+    /**
+     * 异步装配；在装配线程池中执行装配链路，调用方可组合返回的任务，不占用请求线程。
+     * 装配链路等待的组件任务同样提交到装配线程池，该线程池不排队，不会因等待自身队列中的任务而阻塞。
+     *
+     * @param armoryCommandEntity 装配命令
+     * @return 装配任务；命令类型不支持时以 ILLEGAL_PARAMETER 异常完成
+     */
+    public CompletableFuture<String> armoryAsync(ArmoryCommandEntity armoryCommandEntity) {
+        if (!armoryCommandEntity.isSnapshot() && !COMMAND_TYPES.contains(armoryCommandEntity.getCommandType())) {
+            return CompletableFuture.failedFuture(new AppException(ResponseCode.ILLEGAL_PARAMETER.getCode(),
+                    "不支持的装配命令类型 commandType:" + armoryCommandEntity.getCommandType() + "，可选 " + COMMAND_TYPES));
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return rootNode.apply(armoryCommandEntity, new DynamicContext());
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, armoryThreadPoolExecutor);
+    }
+
     @Data
     @Builder
     @AllArgsConstructor
@@ -39,6 +78,31 @@ public class DefaultArmoryStrategyFactory {
 
         private Map<String, Object> dataObjects = new HashMap<>();
 
+        /**
+         * 组件构建任务；beanName -> 构建结果，按依赖关系并行装配
+         */
+        private Map<String, CompletableFuture<?>> componentFutures = new ConcurrentHashMap<>();
+
+        /**
+         * 降级组件；初始化失败或超时的组件 beanName，下游组件装配时跳过
+         */
+        private Set<String> degradedComponents = ConcurrentHashMap.newKeySet();
+
+        /**
+         * 增量装配；来自装配命令
+         */
+        private boolean incremental;
+
+        /**
+         * 是否从本地快照装配；快照装配的结果不再回写快照
+         */
+        private boolean snapshot;
+
+        /**
+         * 组件暂存区；本次装配构建的组件，完成后整体发布
+         */
+        private AgentComponentStaging staging;
+
         public <T> void setValue(String key, T value) {
             dataObjects.put(key, value);
         }
@@ -46,6 +110,18 @@ public class DefaultArmoryStrategyFactory {
         public <T> T getValue(String key) {
             return (T) dataObjects.get(key);
         }
+
+        public <T> void setComponentFuture(String beanName, CompletableFuture<T> future) {
+            componentFutures.put(beanName, future);
+        }
+
+        public <T> CompletableFuture<T> getComponentFuture(String beanName) {
+            return (CompletableFuture<T>) componentFutures.get(beanName);
+        }
+
+        public void addDegradedComponent(String beanName) {
+            degradedComponents.add(beanName);
+        }
     }
 
 }
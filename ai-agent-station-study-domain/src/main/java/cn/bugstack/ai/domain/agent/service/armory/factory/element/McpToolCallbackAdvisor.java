@@ -0,0 +1,80 @@
+package cn.bugstack.ai.domain.agent.service.armory.factory.element;
+
+import org.springframework.ai.chat.client.ChatClientRequest;
+import org.springframework.ai.chat.client.ChatClientResponse;
+import org.springframework.ai.chat.client.advisor.api.AdvisorChain;
+import org.springframework.ai.chat.client.advisor.api.BaseAdvisor;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.core.Ordered;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 客户端 MCP 工具挂载；每次请求时从工具回调提供者取工具定义并合并到请求参数，
+ * 构建客户端时不等待 MCP 握手，工具变更后无需重建客户端。同名工具以请求中已有的为准。
+ *
+ * @author jinjie
+ * 2025/8/17 10:26
+ */
+public class McpToolCallbackAdvisor implements BaseAdvisor {
+
+    private final ToolCallbackProvider toolCallbackProvider;
+
+    public McpToolCallbackAdvisor(ToolCallbackProvider toolCallbackProvider) {
+        this.toolCallbackProvider = toolCallbackProvider;
+    }
+
+    @Override
+    public ChatClientRequest before(ChatClientRequest chatClientRequest, AdvisorChain advisorChain) {
+        ToolCallback[] mcpToolCallbacks = toolCallbackProvider.getToolCallbacks();
+        if (mcpToolCallbacks.length == 0) {
+            return chatClientRequest;
+        }
+
+        ChatOptions chatOptions = chatClientRequest.prompt().getOptions();
+        ToolCallingChatOptions toolCallingChatOptions = chatOptions instanceof ToolCallingChatOptions options
+                ? (ToolCallingChatOptions) options.copy()
+                : ToolCallingChatOptions.builder().build();
+
+        List<ToolCallback> toolCallbacks = new ArrayList<>(toolCallingChatOptions.getToolCallbacks());
+        Set<String> toolNames = new HashSet<>();
+        for (ToolCallback toolCallback : toolCallbacks) {
+            toolNames.add(toolCallback.getToolDefinition().name());
+        }
+        for (ToolCallback toolCallback : mcpToolCallbacks) {
+            if (toolNames.add(toolCallback.getToolDefinition().name())) {
+                toolCallbacks.add(toolCallback);
+            }
+        }
+        toolCallingChatOptions.setToolCallbacks(toolCallbacks);
+
+        return chatClientRequest.mutate()
+                .prompt(chatClientRequest.prompt().mutate().chatOptions(toolCallingChatOptions).build())
+                .build();
+    }
+
+    @Override
+    public ChatClientResponse after(ChatClientResponse chatClientResponse, AdvisorChain advisorChain) {
+        return chatClientResponse;
+    }
+
+    /**
+     * 排在其他顾问之后、模型调用之前，避免被改写提示词的顾问丢弃
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+
+    @Override
+    public String getName() {
+        return this.getClass().getSimpleName();
+    }
+
+}
@@ -0,0 +1,35 @@
+package cn.bugstack.ai.domain.agent.service.armory.factory.element;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 对话模型默认参数；MCP 工具回调在每次请求读取时解析，模型构建时不等待 MCP 握手，工具变更后无需重建模型。
+ *
+ * @author jinjie
+ * 2025/8/17 10:32
+ */
+public class McpToolChatOptions extends OpenAiChatOptions {
+
+    @JsonIgnore
+    private final ToolCallbackProvider mcpToolCallbackProvider;
+
+    public McpToolChatOptions(String model, ToolCallbackProvider mcpToolCallbackProvider) {
+        this.mcpToolCallbackProvider = mcpToolCallbackProvider;
+        setModel(model);
+    }
+
+    @Override
+    @JsonIgnore
+    public List<ToolCallback> getToolCallbacks() {
+        List<ToolCallback> toolCallbacks = new ArrayList<>(super.getToolCallbacks());
+        toolCallbacks.addAll(List.of(mcpToolCallbackProvider.getToolCallbacks()));
+        return toolCallbacks;
+    }
+
+}
@@ -0,0 +1,329 @@
+package cn.bugstack.ai.domain.agent.service.armory.lazy;
+
+import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
+import cn.bugstack.ai.domain.agent.model.entity.ArmorySnapshotEntity;
+import cn.bugstack.ai.domain.agent.model.valobj.AiAgentClientFlowConfigVO;
+import cn.bugstack.ai.domain.agent.model.valobj.AiClientModelVO;
+import cn.bugstack.ai.domain.agent.model.valobj.AiClientVO;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
+import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentHandle;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentRegistry;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentStaging;
+import cn.bugstack.ai.domain.agent.service.armory.snapshot.ArmorySnapshotService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 按需装配；智能体首次执行时根据客户端执行配置装配缺失的客户端，同一智能体并发的首次请求共享同一次装配。
+ * 空闲超过 idle-ttl 的智能体下线其按需装配的客户端及不再被引用的依赖组件，释放 MCP 进程和内存；
+ * 执行中的会话持有智能体，会话结束时刷新访问时间，长时间执行的智能体不会在运行中被下线。
+ * 装配在装配线程池中执行，会话线程等待装配时不占用装配所需的线程。
+ *
+ * @author jinjie
+ * 2025/8/12 09:18
+ */
+@Slf4j
+@Service
+public class LazyAgentArmoryService {
+
+    @Resource
+    private DefaultArmoryStrategyFactory defaultArmoryStrategyFactory;
+
+    @Resource
+    private AgentComponentRegistry agentComponentRegistry;
+
+    @Resource
+    private ArmorySnapshotService armorySnapshotService;
+
+    @Resource
+    private ThreadPoolExecutor armoryThreadPoolExecutor;
+
+    /**
+     * 是否启用按需装配
+     */
+    @Value("${spring.ai.agent.armory.lazy.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 空闲下线时间（分钟）
+     */
+    @Value("${spring.ai.agent.armory.lazy.idle-ttl:30}")
+    private long idleTtl;
+
+    /**
+     * 等待装配完成的超时时间（秒）
+     */
+    @Value("${spring.ai.agent.armory.lazy.armory-timeout:120}")
+    private long armoryTimeout;
+
+    /**
+     * aiAgentId -> 按需装配状态
+     */
+    private final Map<String, LazyAgent> agents = new ConcurrentHashMap<>();
+
+    /**
+     * 判断缺失客户端与下线组件互斥，避免下线刚被新请求确认存在的客户端
+     */
+    private final Object evictLock = new Object();
+
+    /**
+     * 确保智能体的客户端已装配，未装配时发起（或等待进行中的）装配；成功返回后会话持有该智能体，结束时须调用 {@link #release(String)}
+     *
+     * @param aiAgentId 智能体ID
+     */
+    public void ensureArmed(String aiAgentId) throws Exception {
+        if (!enabled) {
+            return;
+        }
+
+        LazyAgent agent;
+        boolean created = false;
+        synchronized (evictLock) {
+            agent = agents.get(aiAgentId);
+            if (null == agent) {
+                agent = new LazyAgent();
+                agents.put(aiAgentId, agent);
+                created = true;
+            }
+            agent.sessions++;
+            agent.lastAccessTime = System.currentTimeMillis();
+        }
+
+        if (created) {
+            armory(aiAgentId, agent);
+        }
+
+        try {
+            agent.armed.get(armoryTimeout, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            release(aiAgentId, agent);
+            if (e instanceof ExecutionException) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 会话结束，释放对智能体的持有并刷新访问时间，空闲计时从此刻开始
+     *
+     * @param aiAgentId 智能体ID
+     */
+    public void release(String aiAgentId) {
+        if (!enabled) {
+            return;
+        }
+        LazyAgent agent = agents.get(aiAgentId);
+        if (null != agent) {
+            release(aiAgentId, agent);
+        }
+    }
+
+    private void release(String aiAgentId, LazyAgent agent) {
+        synchronized (evictLock) {
+            if (agent.sessions > 0) {
+                agent.sessions--;
+            } else {
+                log.warn("Ai Agent 按需装配会话计数异常 aiAgentId:{}", aiAgentId);
+            }
+            agent.lastAccessTime = System.currentTimeMillis();
+        }
+    }
+
+    private void armory(String aiAgentId, LazyAgent agent) {
+        CompletableFuture.supplyAsync(() -> resolveMissingClientIds(aiAgentId, agent), armoryThreadPoolExecutor)
+                .thenCompose(missingClientIds -> {
+                    if (missingClientIds.isEmpty()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    log.info("Ai Agent 按需装配 aiAgentId:{} clientIds:{}", aiAgentId, missingClientIds);
+                    return defaultArmoryStrategyFactory.armoryAsync(ArmoryCommandEntity.builder()
+                            .commandType(AiAgentEnumVO.AI_CLIENT.getCode())
+                            .commandIdList(missingClientIds)
+                            .build());
+                })
+                .thenAccept(result -> log.info("Ai Agent 按需装配完成 aiAgentId:{}", aiAgentId))
+                .whenComplete((v, e) -> {
+                    // 装配失败不保留，下次请求重新装配
+                    if (null != e) {
+                        log.error("Ai Agent 按需装配失败 aiAgentId:{}", aiAgentId, e);
+                        agents.remove(aiAgentId, agent);
+                        agent.armed.completeExceptionally(e);
+                    } else {
+                        agent.armed.complete(null);
+                    }
+                });
+    }
+
+    private List<String> resolveMissingClientIds(String aiAgentId, LazyAgent agent) {
+        Map<String, AiAgentClientFlowConfigVO> aiAgentClientFlowConfigVOMap = armorySnapshotService.queryAiAgentClientFlowConfig(aiAgentId);
+
+        synchronized (evictLock) {
+            agent.clientIds = aiAgentClientFlowConfigVOMap.values().stream()
+                    .map(AiAgentClientFlowConfigVO::getClientId)
+                    .distinct()
+                    .toList();
+
+            List<String> missingClientIds = new ArrayList<>();
+            for (String clientId : agent.clientIds) {
+                if (null == agentComponentRegistry.getHandle(AiAgentEnumVO.AI_CLIENT, clientId)) {
+                    missingClientIds.add(clientId);
+                }
+            }
+            agent.ownedClientIds = missingClientIds;
+            return missingClientIds;
+        }
+    }
+
+    /**
+     * 下线空闲的智能体；仅下线由按需装配构建、且不被其他活跃智能体使用的客户端
+     */
+    @Scheduled(fixedDelayString = "${spring.ai.agent.armory.lazy.evict-interval:60000}")
+    public void evictIdleAgents() {
+        if (!enabled) {
+            return;
+        }
+
+        long deadline = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleTtl);
+
+        synchronized (evictLock) {
+            Set<String> evictClientIds = new LinkedHashSet<>();
+            for (Map.Entry<String, LazyAgent> entry : agents.entrySet()) {
+                LazyAgent agent = entry.getValue();
+                if (agent.sessions == 0 && agent.armed.isDone() && !agent.armed.isCompletedExceptionally() && agent.lastAccessTime < deadline
+                        && agents.remove(entry.getKey(), agent)) {
+                    log.info("Ai Agent 空闲下线 aiAgentId:{}", entry.getKey());
+                    evictClientIds.addAll(agent.ownedClientIds);
+                }
+            }
+
+            // 仍在使用（含装配中）的智能体的客户端保留
+            for (LazyAgent agent : agents.values()) {
+                if (null != agent.clientIds) {
+                    evictClientIds.removeAll(agent.clientIds);
+                }
+            }
+
+            if (evictClientIds.isEmpty()) {
+                return;
+            }
+
+            AgentComponentStaging staging = agentComponentRegistry.stage();
+            for (String clientId : evictClientIds) {
+                staging.evict(AiAgentEnumVO.AI_CLIENT, clientId);
+            }
+            evictDependencies(staging, evictClientIds);
+
+            agentComponentRegistry.publish(staging);
+            log.info("Ai Agent 下线客户端 clientIds:{}", evictClientIds);
+        }
+    }
+
+    /**
+     * 下线不再被任何客户端引用的对话模型、MCP、顾问角色和 API；依赖关系取自装配快照，信息不全时只下线客户端
+     */
+    private void evictDependencies(AgentComponentStaging staging, Set<String> evictClientIds) {
+        ArmorySnapshotEntity snapshot = armorySnapshotService.getSnapshot();
+        if (null == snapshot) {
+            return;
+        }
+
+        Dependencies candidates = new Dependencies();
+        for (String clientId : evictClientIds) {
+            if (!candidates.addClient(snapshot, clientId)) {
+                return;
+            }
+        }
+
+        Set<String> retainedClientIds = new HashSet<>();
+        for (AgentComponentHandle<?> handle : agentComponentRegistry.getCurrentGeneration().getHandles(AiAgentEnumVO.AI_CLIENT)) {
+            retainedClientIds.add(handle.getId());
+        }
+        for (LazyAgent agent : agents.values()) {
+            if (null != agent.clientIds) {
+                retainedClientIds.addAll(agent.clientIds);
+            }
+        }
+        retainedClientIds.removeAll(evictClientIds);
+
+        Dependencies retained = new Dependencies();
+        for (String clientId : retainedClientIds) {
+            if (!retained.addClient(snapshot, clientId)) {
+                return;
+            }
+        }
+
+        candidates.evict(staging, AiAgentEnumVO.AI_CLIENT_MODEL, candidates.modelIds, retained.modelIds);
+        candidates.evict(staging, AiAgentEnumVO.AI_CLIENT_API, candidates.apiIds, retained.apiIds);
+        candidates.evict(staging, AiAgentEnumVO.AI_CLIENT_TOOL_MCP, candidates.mcpIds, retained.mcpIds);
+        candidates.evict(staging, AiAgentEnumVO.AI_CLIENT_ADVISOR, candidates.advisorIds, retained.advisorIds);
+    }
+
+    private static class LazyAgent {
+
+        private final CompletableFuture<Void> armed = new CompletableFuture<>();
+
+        /**
+         * 持有该智能体的执行中会话数，由 evictLock 保护；大于 0 时不下线
+         */
+        private int sessions;
+
+        /**
+         * 智能体使用的全部客户端
+         */
+        private volatile List<String> clientIds;
+
+        /**
+         * 由本次按需装配构建的客户端，下线时只移除这些客户端
+         */
+        private volatile List<String> ownedClientIds = List.of();
+
+        private volatile long lastAccessTime = System.currentTimeMillis();
+
+    }
+
+    private static class Dependencies {
+
+        private final Set<String> modelIds = new HashSet<>();
+        private final Set<String> apiIds = new HashSet<>();
+        private final Set<String> mcpIds = new HashSet<>();
+        private final Set<String> advisorIds = new HashSet<>();
+
+        private boolean addClient(ArmorySnapshotEntity snapshot, String clientId) {
+            AiClientVO aiClientVO = snapshot.getClientMap().get(clientId);
+            if (null == aiClientVO) {
+                return false;
+            }
+            AiClientModelVO aiClientModelVO = snapshot.getModelMap().get(aiClientVO.getModelId());
+            if (null == aiClientModelVO) {
+                return false;
+            }
+
+            modelIds.add(aiClientModelVO.getModelId());
+            apiIds.add(aiClientModelVO.getApiId());
+            if (null != aiClientModelVO.getToolMcpIds()) {
+                mcpIds.addAll(aiClientModelVO.getToolMcpIds());
+            }
+            mcpIds.addAll(aiClientVO.getMcpIdList());
+            advisorIds.addAll(aiClientVO.getAdvisorIdList());
+            return true;
+        }
+
+        private void evict(AgentComponentStaging staging, AiAgentEnumVO type, Set<String> candidateIds, Set<String> retainedIds) {
+            for (String id : candidateIds) {
+                if (!retainedIds.contains(id)) {
+                    staging.evict(type, id);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,129 @@
+package cn.bugstack.ai.domain.agent.service.armory.registry;
+
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Agent 组件代；一次装配发布的完整组件图，发布后不可变。
+ * 会话开始时固定（pin）当前代，执行期间只从该代读取组件，新代发布不影响进行中的会话。
+ *
+ * @author jinjie
+ * 2025/8/10 09:30
+ */
+public class AgentComponentGeneration {
+
+    /**
+     * 代ID；每次发布递增
+     */
+    @Getter
+    private final long generationId;
+
+    /**
+     * 组件类型 -> (组件ID -> 组件句柄)，只读
+     */
+    private final Map<AiAgentEnumVO, Map<String, AgentComponentHandle<?>>> components;
+
+    /**
+     * 固定该代的会话数
+     */
+    private final AtomicInteger pinCount = new AtomicInteger();
+
+    /**
+     * 已被新代替换
+     */
+    private volatile boolean retired;
+
+    /**
+     * 已释放资源
+     */
+    private final AtomicBoolean drained = new AtomicBoolean();
+
+    AgentComponentGeneration(long generationId, Map<AiAgentEnumVO, Map<String, AgentComponentHandle<?>>> components) {
+        Map<AiAgentEnumVO, Map<String, AgentComponentHandle<?>>> snapshot = new EnumMap<>(AiAgentEnumVO.class);
+        for (AiAgentEnumVO type : AiAgentEnumVO.values()) {
+            Map<String, AgentComponentHandle<?>> handles = components.get(type);
+            snapshot.put(type, null == handles ? Map.of() : Map.copyOf(handles));
+        }
+        this.generationId = generationId;
+        this.components = Collections.unmodifiableMap(snapshot);
+    }
+
+    public <T> AgentComponentHandle<T> getHandle(AiAgentEnumVO type, String id) {
+        return (AgentComponentHandle<T>) components.get(type).get(id);
+    }
+
+    /**
+     * 获取组件实例
+     *
+     * @return 组件实例，不存在时返回 null
+     */
+    public <T> T getComponent(AiAgentEnumVO type, String id, Class<T> componentClass) {
+        AgentComponentHandle<?> handle = components.get(type).get(id);
+        if (null == handle) {
+            return null;
+        }
+        return componentClass.cast(handle.getComponent());
+    }
+
+    /**
+     * 获取组件实例，不存在时抛出异常
+     */
+    public <T> T getRequiredComponent(AiAgentEnumVO type, String id, Class<T> componentClass) {
+        T component = getComponent(type, id, componentClass);
+        if (null == component) {
+            throw new RuntimeException("component " + type.getBeanName(id) + " not exist! generation " + generationId);
+        }
+        return component;
+    }
+
+    public Collection<AgentComponentHandle<?>> getHandles(AiAgentEnumVO type) {
+        return components.get(type).values();
+    }
+
+    Map<AiAgentEnumVO, Map<String, AgentComponentHandle<?>>> getComponents() {
+        return components;
+    }
+
+    void pin() {
+        pinCount.incrementAndGet();
+    }
+
+    /**
+     * 释放一次固定
+     *
+     * @return 已替换且不再有会话固定，可以释放资源
+     */
+    boolean unpin() {
+        return pinCount.decrementAndGet() == 0 && retired;
+    }
+
+    /**
+     * 标记为已替换
+     *
+     * @return 没有会话固定，可以立即释放资源
+     */
+    boolean retire() {
+        retired = true;
+        return pinCount.get() == 0;
+    }
+
+    boolean markDrained() {
+        return drained.compareAndSet(false, true);
+    }
+
+    public int getPinCount() {
+        return pinCount.get();
+    }
+
+    public boolean isRetired() {
+        return retired;
+    }
+
+}
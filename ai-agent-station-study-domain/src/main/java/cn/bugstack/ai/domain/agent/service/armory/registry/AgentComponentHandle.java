@@ -0,0 +1,74 @@
+package cn.bugstack.ai.domain.agent.service.armory.registry;
+
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
+import io.modelcontextprotocol.client.McpSyncClient;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Agent 组件句柄；组件类型、ID、实例及注册版本，注册后不可变
+ *
+ * @author jinjie
+ * 2025/8/9 10:12
+ */
+@Getter
+@AllArgsConstructor
+public class AgentComponentHandle<T> {
+
+    /**
+     * 组件类型
+     */
+    private final AiAgentEnumVO type;
+
+    /**
+     * 组件ID
+     */
+    private final String id;
+
+    /**
+     * 组件类型 Class
+     */
+    private final Class<T> componentClass;
+
+    /**
+     * 组件实例
+     */
+    private final T component;
+
+    /**
+     * 注册版本；每次注册递增
+     */
+    private final long version;
+
+    /**
+     * 配置指纹；由组件配置的更新时间及依赖组件版本组成，增量装配时用于判断是否需要重建
+     */
+    private final String fingerprint;
+
+    /**
+     * 直接依赖的组件 beanName；增量装配据此计算反向依赖闭包
+     */
+    private final Set<String> dependencies;
+
+    /**
+     * 组件持有的 MCP 客户端；MCP 组件为其自身，模型、客户端为挂载工具的 MCP 客户端（客户端含其模型的）。
+     * 组件所在的暂存区和每一代各持有一次引用，组件未重建时其引用的旧 MCP 客户端不会被关闭
+     */
+    private final List<McpSyncClient> mcpSyncClients;
+
+    /**
+     * 是否直接依赖给定组件中的任意一个
+     */
+    public boolean dependsOnAny(Set<String> beanNames) {
+        for (String dependency : dependencies) {
+            if (beanNames.contains(dependency)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,194 @@
+package cn.bugstack.ai.domain.agent.service.armory.registry;
+
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
+import io.modelcontextprotocol.client.McpSyncClient;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Agent 组件注册表；按组件类型和ID存放装配结果。
+ * 组件以代（generation）为单位发布，读取当前代无锁；装配在暂存区构建新代，完成后原子切换。
+ * 每一代对其组件持有的 MCP 客户端（MCP 组件本身，以及模型、客户端挂载工具的 MCP 客户端）各持有一次引用，
+ * 被替换的代在最后一个固定它的会话结束后释放引用；未重建的模型、客户端引用的旧 MCP 客户端因此保持可用。
+ *
+ * @author jinjie
+ * 2025/8/9 10:12
+ */
+@Slf4j
+@Service
+public class AgentComponentRegistry {
+
+    /**
+     * 当前代
+     */
+    private final AtomicReference<AgentComponentGeneration> current = new AtomicReference<>(new AgentComponentGeneration(0L, Map.of()));
+
+    @Resource
+    private McpClientPool mcpClientPool;
+
+    /**
+     * 注册版本
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 代ID
+     */
+    private final AtomicLong generationId = new AtomicLong();
+
+    /**
+     * 开始一次装配，新构建的组件写入暂存区，发布前对会话不可见
+     */
+    public AgentComponentStaging stage() {
+        return new AgentComponentStaging(this, current.get());
+    }
+
+    /**
+     * 发布暂存区的组件；与当前代合并为新代后原子切换，旧代在无会话固定时释放
+     *
+     * @param staging 暂存区
+     * @return 新发布的代
+     */
+    public synchronized AgentComponentGeneration publish(AgentComponentStaging staging) {
+        AgentComponentGeneration previous = current.get();
+
+        Map<AiAgentEnumVO, Map<String, AgentComponentHandle<?>>> components = new EnumMap<>(AiAgentEnumVO.class);
+        for (AiAgentEnumVO type : AiAgentEnumVO.values()) {
+            Map<String, AgentComponentHandle<?>> handles = new HashMap<>(previous.getComponents().get(type));
+            handles.putAll(staging.getStaged().get(type));
+            handles.keySet().removeAll(staging.getEvicted().get(type));
+            components.put(type, handles);
+        }
+
+        AgentComponentGeneration generation = new AgentComponentGeneration(generationId.incrementAndGet(), components);
+
+        // 新代引用其全部组件持有的 MCP 客户端，暂存区的引用随之释放
+        for (AiAgentEnumVO type : AiAgentEnumVO.values()) {
+            for (AgentComponentHandle<?> handle : generation.getHandles(type)) {
+                retainHandle(handle);
+            }
+        }
+        releaseStaged(staging);
+
+        current.set(generation);
+        log.info("Ai Agent 组件代发布 generation: {} -> {}", previous.getGenerationId(), generation.getGenerationId());
+
+        if (previous.retire()) {
+            drain(previous);
+        }
+
+        return generation;
+    }
+
+    /**
+     * 放弃暂存区；装配失败时释放本次登记的 MCP 客户端引用
+     */
+    public void discard(AgentComponentStaging staging) {
+        releaseStaged(staging);
+    }
+
+    private void releaseStaged(AgentComponentStaging staging) {
+        for (Map<String, AgentComponentHandle<?>> handles : staging.getStaged().values()) {
+            for (AgentComponentHandle<?> handle : handles.values()) {
+                releaseHandle(handle);
+            }
+        }
+    }
+
+    /**
+     * 对组件持有的 MCP 客户端各取得一次引用
+     */
+    void retainHandle(AgentComponentHandle<?> handle) {
+        for (McpSyncClient mcpSyncClient : handle.getMcpSyncClients()) {
+            mcpClientPool.retain(mcpSyncClient);
+        }
+    }
+
+    /**
+     * 释放组件持有的 MCP 客户端引用，计数归零的客户端关闭
+     */
+    void releaseHandle(AgentComponentHandle<?> handle) {
+        for (McpSyncClient mcpSyncClient : handle.getMcpSyncClients()) {
+            mcpClientPool.release(mcpSyncClient);
+        }
+    }
+
+    /**
+     * 会话开始时固定当前代，执行期间从该代读取组件
+     */
+    public AgentComponentGeneration pin() {
+        while (true) {
+            AgentComponentGeneration generation = current.get();
+            generation.pin();
+            // 固定期间发生切换则重试，保证拿到的代未被释放
+            if (generation == current.get()) {
+                return generation;
+            }
+            release(generation);
+        }
+    }
+
+    /**
+     * 会话结束时释放固定的代
+     */
+    public void release(AgentComponentGeneration generation) {
+        if (null != generation && generation.unpin()) {
+            drain(generation);
+        }
+    }
+
+    private void drain(AgentComponentGeneration generation) {
+        if (!generation.markDrained()) {
+            return;
+        }
+        for (AiAgentEnumVO type : AiAgentEnumVO.values()) {
+            for (AgentComponentHandle<?> handle : generation.getHandles(type)) {
+                releaseHandle(handle);
+            }
+        }
+        log.info("Ai Agent 组件代释放 generation: {}", generation.getGenerationId());
+    }
+
+    public AgentComponentGeneration getCurrentGeneration() {
+        return current.get();
+    }
+
+    public <T> AgentComponentHandle<T> getHandle(AiAgentEnumVO type, String id) {
+        return current.get().getHandle(type, id);
+    }
+
+    /**
+     * 获取当前代的组件实例
+     *
+     * @param type           组件类型
+     * @param id             组件ID
+     * @param componentClass 组件类型 Class
+     * @return 组件实例，不存在时返回 null
+     */
+    public <T> T getComponent(AiAgentEnumVO type, String id, Class<T> componentClass) {
+        return current.get().getComponent(type, id, componentClass);
+    }
+
+    /**
+     * 获取当前代的组件实例，不存在时抛出异常
+     */
+    public <T> T getRequiredComponent(AiAgentEnumVO type, String id, Class<T> componentClass) {
+        return current.get().getRequiredComponent(type, id, componentClass);
+    }
+
+    long nextVersion() {
+        return version.incrementAndGet();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+}
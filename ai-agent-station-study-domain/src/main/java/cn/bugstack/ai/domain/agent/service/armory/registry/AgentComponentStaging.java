@@ -0,0 +1,121 @@
+package cn.bugstack.ai.domain.agent.service.armory.registry;
+
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
+import io.modelcontextprotocol.client.McpSyncClient;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 待发布的组件；装配过程中新构建的组件先写入这里，对执行中的会话不可见，装配完成后整体发布为新的组件代。
+ * 读取时优先本次装配的组件，其次为装配开始时的当前代。
+ *
+ * @author jinjie
+ * 2025/8/10 09:30
+ */
+public class AgentComponentStaging {
+
+    private final AgentComponentRegistry registry;
+
+    /**
+     * 装配开始时的当前代
+     */
+    private final AgentComponentGeneration base;
+
+    /**
+     * 本次装配构建的组件
+     */
+    private final Map<AiAgentEnumVO, Map<String, AgentComponentHandle<?>>> staged = new EnumMap<>(AiAgentEnumVO.class);
+
+    /**
+     * 本次发布需要下线的组件
+     */
+    private final Map<AiAgentEnumVO, Set<String>> evicted = new EnumMap<>(AiAgentEnumVO.class);
+
+    AgentComponentStaging(AgentComponentRegistry registry, AgentComponentGeneration base) {
+        this.registry = registry;
+        this.base = base;
+        for (AiAgentEnumVO type : AiAgentEnumVO.values()) {
+            staged.put(type, new ConcurrentHashMap<>());
+            evicted.put(type, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * 登记组件；暂存区对组件持有的 MCP 客户端各取得一次引用，发布或放弃时释放
+     *
+     * @param type           组件类型
+     * @param id             组件ID
+     * @param componentClass 组件类型 Class
+     * @param component      组件实例
+     * @param fingerprint    配置指纹
+     * @param dependencies   直接依赖的组件 beanName
+     * @param mcpSyncClients 组件持有的 MCP 客户端
+     * @return 组件句柄
+     */
+    public <T> AgentComponentHandle<T> register(AiAgentEnumVO type, String id, Class<T> componentClass, T component, String fingerprint,
+                                                Set<String> dependencies, List<McpSyncClient> mcpSyncClients) {
+        AgentComponentHandle<T> handle = new AgentComponentHandle<>(type, id, componentClass, component, registry.nextVersion(), fingerprint,
+                Set.copyOf(dependencies), List.copyOf(mcpSyncClients));
+        registry.retainHandle(handle);
+        AgentComponentHandle<?> replaced = staged.get(type).put(id, handle);
+        if (null != replaced) {
+            registry.releaseHandle(replaced);
+        }
+        return handle;
+    }
+
+    public <T> AgentComponentHandle<T> getHandle(AiAgentEnumVO type, String id) {
+        AgentComponentHandle<?> handle = staged.get(type).get(id);
+        if (null == handle) {
+            handle = base.getHandle(type, id);
+        }
+        return (AgentComponentHandle<T>) handle;
+    }
+
+    public <T> T getRequiredComponent(AiAgentEnumVO type, String id, Class<T> componentClass) {
+        AgentComponentHandle<?> handle = getHandle(type, id);
+        if (null == handle) {
+            throw new RuntimeException("component " + type.getBeanName(id) + " not exist!");
+        }
+        return componentClass.cast(handle.getComponent());
+    }
+
+    /**
+     * 获取组件注册版本，不存在时返回 0
+     */
+    public long getComponentVersion(AiAgentEnumVO type, String id) {
+        AgentComponentHandle<?> handle = getHandle(type, id);
+        return null == handle ? 0L : handle.getVersion();
+    }
+
+    /**
+     * 移除本次装配登记的组件（如握手失败的 MCP 服务），发布后沿用当前代的同ID组件
+     */
+    public void remove(AiAgentEnumVO type, String id) {
+        AgentComponentHandle<?> handle = staged.get(type).remove(id);
+        if (null != handle) {
+            registry.releaseHandle(handle);
+        }
+    }
+
+    /**
+     * 下线组件；发布的新代不再包含该组件，MCP 客户端在旧代释放后关闭
+     */
+    public void evict(AiAgentEnumVO type, String id) {
+        remove(type, id);
+        evicted.get(type).add(id);
+    }
+
+    Map<AiAgentEnumVO, Set<String>> getEvicted() {
+        return evicted;
+    }
+
+    Map<AiAgentEnumVO, Map<String, AgentComponentHandle<?>>> getStaged() {
+        return staged;
+    }
+
+}
@@ -0,0 +1,199 @@
+package cn.bugstack.ai.domain.agent.service.armory.registry;
+
+import io.modelcontextprotocol.client.McpSyncClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MCP 客户端池；同一 mcpId、同一配置指纹的 MCP 服务只保留一个客户端，由各组件代及装配暂存区按持有它的组件引用计数，
+ * 计数归零时关闭。工具定义按客户端缓存，服务端通知工具变更时失效，模型和客户端装配不再重复请求 tools/list。
+ * 模型和客户端在请求时经 {@link McpToolCallbackProvider} 取工具定义，懒连接模式下首次调用等待握手完成。
+ *
+ * @author jinjie
+ * 2025/8/10 15:06
+ */
+@Slf4j
+@Service
+public class McpClientPool {
+
+    /**
+     * 等待 MCP 服务握手的截止时间（秒），与装配时的握手截止时间一致
+     */
+    @Value("${spring.ai.agent.armory.mcp.init-timeout:30}")
+    private long initTimeout;
+
+    /**
+     * mcpId -> 最新的共享客户端，用于去重
+     */
+    private final Map<String, SharedMcpClient> latestClients = new ConcurrentHashMap<>();
+
+    /**
+     * 客户端实例 -> 共享客户端
+     */
+    private final Map<McpSyncClient, SharedMcpClient> sharedClients = new ConcurrentHashMap<>();
+
+    /**
+     * 获取可复用的客户端；存在相同配置指纹的客户端时引用计数加一
+     *
+     * @param mcpId       MCP ID
+     * @param fingerprint 配置指纹
+     * @return 可复用的客户端，不存在时返回 null
+     */
+    public synchronized McpSyncClient acquire(String mcpId, String fingerprint) {
+        SharedMcpClient sharedMcpClient = latestClients.get(mcpId);
+        if (null == sharedMcpClient || !sharedMcpClient.fingerprint.equals(fingerprint) || sharedMcpClient.refCount <= 0) {
+            return null;
+        }
+        sharedMcpClient.refCount++;
+        log.info("Tool MCP 复用共享客户端 mcpId:{} refCount:{}", mcpId, sharedMcpClient.refCount);
+        return sharedMcpClient.client;
+    }
+
+    /**
+     * 登记新建的客户端，引用计数为一（归调用方所有）
+     *
+     * @param initialized 握手任务；懒连接模式下登记时握手可能尚未完成
+     */
+    public synchronized void register(String mcpId, String fingerprint, McpSyncClient client, CompletableFuture<?> initialized) {
+        SharedMcpClient sharedMcpClient = new SharedMcpClient(mcpId, fingerprint, client, initialized);
+        latestClients.put(mcpId, sharedMcpClient);
+        sharedClients.put(client, sharedMcpClient);
+    }
+
+    public synchronized void retain(McpSyncClient client) {
+        SharedMcpClient sharedMcpClient = sharedClients.get(client);
+        if (null != sharedMcpClient) {
+            sharedMcpClient.refCount++;
+        }
+    }
+
+    /**
+     * 引用计数减一，归零时关闭客户端
+     */
+    public synchronized void release(McpSyncClient client) {
+        SharedMcpClient sharedMcpClient = sharedClients.get(client);
+        if (null == sharedMcpClient || --sharedMcpClient.refCount > 0) {
+            return;
+        }
+
+        sharedClients.remove(client);
+        latestClients.remove(sharedMcpClient.mcpId, sharedMcpClient);
+        log.info("Ai Agent 关闭 MCP 客户端 mcpId:{}", sharedMcpClient.mcpId);
+        client.closeGracefully();
+    }
+
+    /**
+     * 创建请求时解析的工具回调提供者，供模型和客户端挂载 MCP 工具
+     *
+     * @param clients MCP 客户端
+     * @return 工具回调提供者
+     */
+    public McpToolCallbackProvider toolCallbackProvider(List<McpSyncClient> clients) {
+        return new McpToolCallbackProvider(this, clients);
+    }
+
+    /**
+     * 等待客户端握手完成；未登记的客户端视为已完成
+     *
+     * @return 握手成功返回 true，失败或超过截止时间返回 false
+     */
+    public boolean awaitInitialized(McpSyncClient client) {
+        SharedMcpClient sharedMcpClient = sharedClients.get(client);
+        if (null == sharedMcpClient) {
+            return true;
+        }
+        try {
+            sharedMcpClient.initialized.get(initTimeout, TimeUnit.SECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.warn("Tool MCP 握手未完成，跳过工具挂载 mcpId:{}", sharedMcpClient.mcpId);
+            return false;
+        }
+    }
+
+    /**
+     * 获取 MCP 服务的工具回调；同一客户端只在首次或工具变更后请求 tools/list
+     *
+     * @param clients MCP 客户端
+     * @return 工具回调
+     */
+    public List<ToolCallback> getToolCallbacks(List<McpSyncClient> clients) {
+        List<ToolCallback> toolCallbacks = new ArrayList<>();
+        for (McpSyncClient client : clients) {
+            SharedMcpClient sharedMcpClient = sharedClients.get(client);
+            if (null == sharedMcpClient) {
+                toolCallbacks.addAll(Arrays.asList(new SyncMcpToolCallbackProvider(client).getToolCallbacks()));
+                continue;
+            }
+            toolCallbacks.addAll(sharedMcpClient.toolCallbacks());
+        }
+        return toolCallbacks;
+    }
+
+    /**
+     * 服务端通知工具变更，工具定义缓存失效
+     */
+    public void invalidateToolCallbacks(McpSyncClient client) {
+        SharedMcpClient sharedMcpClient = sharedClients.get(client);
+        if (null != sharedMcpClient) {
+            sharedMcpClient.toolCallbacks = null;
+            log.info("Tool MCP 工具变更，缓存失效 mcpId:{}", sharedMcpClient.mcpId);
+        }
+    }
+
+    private static class SharedMcpClient {
+
+        private final String mcpId;
+
+        private final String fingerprint;
+
+        private final McpSyncClient client;
+
+        /**
+         * 握手任务
+         */
+        private final CompletableFuture<?> initialized;
+
+        /**
+         * 引用计数；由 synchronized 方法维护
+         */
+        private int refCount = 1;
+
+        /**
+         * 工具回调缓存
+         */
+        private volatile List<ToolCallback> toolCallbacks;
+
+        private SharedMcpClient(String mcpId, String fingerprint, McpSyncClient client, CompletableFuture<?> initialized) {
+            this.mcpId = mcpId;
+            this.fingerprint = fingerprint;
+            this.client = client;
+            this.initialized = initialized;
+        }
+
+        private List<ToolCallback> toolCallbacks() {
+            List<ToolCallback> cached = toolCallbacks;
+            if (null == cached) {
+                cached = List.of(new SyncMcpToolCallbackProvider(client).getToolCallbacks());
+                toolCallbacks = cached;
+            }
+            return cached;
+        }
+
+    }
+
+}
@@ -0,0 +1,47 @@
+package cn.bugstack.ai.domain.agent.service.armory.registry;
+
+import io.modelcontextprotocol.client.McpSyncClient;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MCP 工具回调提供者；装配时只持有客户端，请求时才解析工具定义。
+ * 懒连接模式下首次调用等待握手完成，握手失败或超时的服务跳过；服务端通知工具变更后，已构建的模型和客户端随之取到新的工具定义。
+ *
+ * @author jinjie
+ * 2025/8/17 10:20
+ */
+public class McpToolCallbackProvider implements ToolCallbackProvider {
+
+    private final McpClientPool mcpClientPool;
+
+    private final List<McpSyncClient> mcpSyncClients;
+
+    McpToolCallbackProvider(McpClientPool mcpClientPool, List<McpSyncClient> mcpSyncClients) {
+        this.mcpClientPool = mcpClientPool;
+        this.mcpSyncClients = List.copyOf(mcpSyncClients);
+    }
+
+    @Override
+    public ToolCallback[] getToolCallbacks() {
+        List<McpSyncClient> initializedClients = new ArrayList<>();
+        for (McpSyncClient mcpSyncClient : mcpSyncClients) {
+            if (mcpClientPool.awaitInitialized(mcpSyncClient)) {
+                initializedClients.add(mcpSyncClient);
+            }
+        }
+        return mcpClientPool.getToolCallbacks(initializedClients).toArray(new ToolCallback[0]);
+    }
+
+    public List<McpSyncClient> getMcpSyncClients() {
+        return mcpSyncClients;
+    }
+
+    public boolean isEmpty() {
+        return mcpSyncClients.isEmpty();
+    }
+
+}
@@ -0,0 +1,248 @@
+package cn.bugstack.ai.domain.agent.service.armory.snapshot;
+
+import cn.bugstack.ai.domain.agent.adapter.repository.IAgentRepository;
+import cn.bugstack.ai.domain.agent.adapter.repository.IArmorySnapshotRepository;
+import cn.bugstack.ai.domain.agent.model.entity.ArmorySnapshotEntity;
+import cn.bugstack.ai.domain.agent.model.valobj.*;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
+import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 装配快照服务；每次装配发布成功后把本次加载的配置合并进快照并写入本地文件，
+ * 启动时读取快照先行装配，数据库不可用时执行链路可从快照读取客户端执行配置。
+ * API 密钥不写入快照，快照装配时从配置或数据库读取；已删除智能体的执行配置在对账时清理。
+ *
+ * @author jinjie
+ * 2025/8/11 10:05
+ */
+@Slf4j
+@Service
+public class ArmorySnapshotService {
+
+    @Resource
+    private IArmorySnapshotRepository armorySnapshotRepository;
+
+    @Resource
+    private IAgentRepository repository;
+
+    @Resource
+    private ThreadPoolExecutor threadPoolExecutor;
+
+    /**
+     * 当前快照；写入时复制替换，读取无锁
+     */
+    private volatile ArmorySnapshotEntity snapshot;
+
+    /**
+     * 是否有待写入的变更，合并多次装配的写盘请求
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    /**
+     * 写盘锁，保证最后写入的是最新快照
+     */
+    private final Object flushLock = new Object();
+
+    /**
+     * 获取快照，首次调用时从本地文件读取
+     *
+     * @return 快照，不存在时返回 null
+     */
+    public ArmorySnapshotEntity getSnapshot() {
+        ArmorySnapshotEntity current = snapshot;
+        if (null != current) {
+            return current;
+        }
+        boolean leaked = false;
+        synchronized (this) {
+            if (null == snapshot) {
+                ArmorySnapshotEntity loaded = armorySnapshotRepository.load();
+                snapshot = null == loaded ? new ArmorySnapshotEntity() : loaded;
+                // 旧版本快照含明文 API 密钥，读取后去除并重写文件
+                for (Map.Entry<String, AiClientApiVO> entry : snapshot.getApiMap().entrySet()) {
+                    if (null != entry.getValue().getApiKey()) {
+                        entry.setValue(withoutApiKey(entry.getValue()));
+                        leaked = true;
+                    }
+                }
+            }
+            current = snapshot;
+        }
+        if (leaked) {
+            log.warn("Ai Agent 装配快照含明文 API 密钥，已去除并重写快照");
+            scheduleFlush();
+        }
+        return current.getVersion() > 0 ? current : null;
+    }
+
+    /**
+     * 快照是否包含全部客户端
+     */
+    public boolean containsClients(List<String> clientIdList) {
+        ArmorySnapshotEntity current = getSnapshot();
+        return null != current && current.getClientMap().keySet().containsAll(clientIdList);
+    }
+
+    /**
+     * 装配发布成功后记录本次加载的配置
+     *
+     * @param dynamicContext 装配上下文
+     */
+    public void record(DefaultArmoryStrategyFactory.DynamicContext dynamicContext) {
+        List<AiClientApiVO> aiClientApiList = dynamicContext.getValue(AiAgentEnumVO.AI_CLIENT_API.getDataName());
+        List<AiClientModelVO> aiClientModelList = dynamicContext.getValue(AiAgentEnumVO.AI_CLIENT_MODEL.getDataName());
+        List<AiClientToolMcpVO> aiClientToolMcpList = dynamicContext.getValue(AiAgentEnumVO.AI_CLIENT_TOOL_MCP.getDataName());
+        List<AiClientAdvisorVO> aiClientAdvisorList = dynamicContext.getValue(AiAgentEnumVO.AI_CLIENT_ADVISOR.getDataName());
+        Map<String, AiClientSystemPromptVO> systemPromptMap = dynamicContext.getValue(AiAgentEnumVO.AI_CLIENT_SYSTEM_PROMPT.getDataName());
+        List<AiClientVO> aiClientList = dynamicContext.getValue(AiAgentEnumVO.AI_CLIENT.getDataName());
+
+        update(next -> {
+            if (null != aiClientApiList) {
+                aiClientApiList.forEach(vo -> next.getApiMap().put(vo.getApiId(), withoutApiKey(vo)));
+            }
+            if (null != aiClientModelList) {
+                aiClientModelList.forEach(vo -> next.getModelMap().put(vo.getModelId(), vo));
+            }
+            if (null != aiClientToolMcpList) {
+                aiClientToolMcpList.forEach(vo -> next.getToolMcpMap().put(vo.getMcpId(), vo));
+            }
+            if (null != aiClientAdvisorList) {
+                aiClientAdvisorList.forEach(vo -> next.getAdvisorMap().put(vo.getAdvisorId(), vo));
+            }
+            if (null != systemPromptMap) {
+                next.getSystemPromptMap().putAll(systemPromptMap);
+            }
+            if (null != aiClientList) {
+                aiClientList.forEach(vo -> next.getClientMap().put(vo.getClientId(), vo));
+            }
+        });
+    }
+
+    /**
+     * 记录智能体的客户端执行配置
+     */
+    public void recordFlowConfig(String aiAgentId, Map<String, AiAgentClientFlowConfigVO> aiAgentClientFlowConfigVOMap) {
+        ArmorySnapshotEntity current = getSnapshot();
+        if (null != current && aiAgentClientFlowConfigVOMap.equals(current.getFlowConfigMap().get(aiAgentId))) {
+            return;
+        }
+        update(next -> next.getFlowConfigMap().put(aiAgentId, aiAgentClientFlowConfigVOMap));
+    }
+
+    /**
+     * 查询智能体的客户端执行配置并记录到快照；数据库中已无配置（智能体已删除）时移除快照记录，数据库不可用时从快照读取
+     */
+    public Map<String, AiAgentClientFlowConfigVO> queryAiAgentClientFlowConfig(String aiAgentId) {
+        try {
+            Map<String, AiAgentClientFlowConfigVO> aiAgentClientFlowConfigVOMap = repository.queryAiAgentClientFlowConfig(aiAgentId);
+            if (aiAgentClientFlowConfigVOMap.isEmpty()) {
+                removeFlowConfig(Set.of(aiAgentId));
+            } else {
+                recordFlowConfig(aiAgentId, aiAgentClientFlowConfigVOMap);
+            }
+            return aiAgentClientFlowConfigVOMap;
+        } catch (RuntimeException e) {
+            Map<String, AiAgentClientFlowConfigVO> aiAgentClientFlowConfigVOMap = queryFlowConfig(aiAgentId);
+            if (null == aiAgentClientFlowConfigVOMap) {
+                throw e;
+            }
+            log.warn("查询客户端执行配置失败，使用本地装配快照 aiAgentId:{}", aiAgentId, e);
+            return aiAgentClientFlowConfigVOMap;
+        }
+    }
+
+    /**
+     * 与数据库对账，移除已删除智能体的客户端执行配置
+     */
+    public void pruneFlowConfig() {
+        ArmorySnapshotEntity current = getSnapshot();
+        if (null == current || current.getFlowConfigMap().isEmpty()) {
+            return;
+        }
+        Set<String> aiAgentIds;
+        try {
+            aiAgentIds = repository.queryAiAgentIds();
+        } catch (RuntimeException e) {
+            log.warn("Ai Agent 装配快照清理执行配置失败，下次对账时重试", e);
+            return;
+        }
+        Set<String> deleted = new HashSet<>(current.getFlowConfigMap().keySet());
+        deleted.removeAll(aiAgentIds);
+        if (!deleted.isEmpty()) {
+            log.info("Ai Agent 装配快照清理已删除智能体的执行配置 aiAgentIds:{}", deleted);
+            removeFlowConfig(deleted);
+        }
+    }
+
+    private void removeFlowConfig(Set<String> aiAgentIds) {
+        ArmorySnapshotEntity current = getSnapshot();
+        if (null == current || aiAgentIds.stream().noneMatch(current.getFlowConfigMap()::containsKey)) {
+            return;
+        }
+        update(next -> next.getFlowConfigMap().keySet().removeAll(aiAgentIds));
+    }
+
+    /**
+     * 从快照读取智能体的客户端执行配置
+     *
+     * @return 客户端执行配置，快照中不存在时返回 null
+     */
+    public Map<String, AiAgentClientFlowConfigVO> queryFlowConfig(String aiAgentId) {
+        ArmorySnapshotEntity current = getSnapshot();
+        return null == current ? null : current.getFlowConfigMap().get(aiAgentId);
+    }
+
+    private void update(Consumer<ArmorySnapshotEntity> mutation) {
+        getSnapshot();
+        synchronized (this) {
+            ArmorySnapshotEntity next = snapshot.copy();
+            mutation.accept(next);
+            next.setVersion(snapshot.getVersion() + 1);
+            next.setSnapshotTime(LocalDateTime.now());
+            snapshot = next;
+        }
+        scheduleFlush();
+    }
+
+    /**
+     * 后台写盘；写入期间再次变更只追加一次写入
+     */
+    private void scheduleFlush() {
+        if (dirty.compareAndSet(false, true)) {
+            threadPoolExecutor.execute(this::flush);
+        }
+    }
+
+    /**
+     * 去除 API 密钥的副本；快照文件不保存密钥
+     */
+    private AiClientApiVO withoutApiKey(AiClientApiVO vo) {
+        return AiClientApiVO.builder()
+                .apiId(vo.getApiId())
+                .baseUrl(vo.getBaseUrl())
+                .completionsPath(vo.getCompletionsPath())
+                .embeddingsPath(vo.getEmbeddingsPath())
+                .updateTime(vo.getUpdateTime())
+                .build();
+    }
+
+    private void flush() {
+        synchronized (flushLock) {
+            dirty.set(false);
+            armorySnapshotRepository.save(snapshot);
+        }
+    }
+
+}
@@ -2,7 +2,14 @@ package cn.bugstack.ai.domain.agent.service.execute.auto;
 
 import cn.bugstack.ai.domain.agent.model.entity.AutoAgentExecuteResultEntity;
 import cn.bugstack.ai.domain.agent.model.entity.ExecuteCommandEntity;
+import cn.bugstack.ai.domain.agent.model.entity.ExecuteSessionEntity;
+import cn.bugstack.ai.domain.agent.service.armory.lazy.LazyAgentArmoryService;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentGeneration;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentRegistry;
 import cn.bugstack.ai.domain.agent.service.execute.IExecuteStrategy;
+import cn.bugstack.ai.domain.agent.service.execute.cancel.ExecuteCancellationToken;
+import cn.bugstack.ai.domain.agent.service.execute.checkpoint.ExecuteCheckpointService;
+import cn.bugstack.ai.domain.agent.service.execute.event.ExecuteEventRecorder;
 import cn.bugstack.ai.domain.agent.service.execute.auto.step.factory.DefaultAutoAgentExecuteStrategyFactory;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
 import com.alibaba.fastjson.JSON;
@@ -23,6 +30,18 @@ public class AutoAgentExecuteStrategy implements IExecuteStrategy {
     @Resource
     private DefaultAutoAgentExecuteStrategyFactory defaultAutoAgentExecuteStrategyFactory;
 
+    @Resource
+    private AgentComponentRegistry agentComponentRegistry;
+
+    @Resource
+    private LazyAgentArmoryService lazyAgentArmoryService;
+
+    @Resource
+    private ExecuteEventRecorder executeEventRecorder;
+
+    @Resource
+    private ExecuteCheckpointService executeCheckpointService;
+
     @Override
     public void execute(ExecuteCommandEntity executeCommandEntity, ResponseBodyEmitter emitter) throws Exception {
         StrategyHandler<ExecuteCommandEntity, DefaultAutoAgentExecuteStrategyFactory.DynamicContext, String> executeHandler
@@ -31,16 +50,53 @@ public class AutoAgentExecuteStrategy implements IExecuteStrategy {
         // 创建动态上下文并初始化必要字段
         DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext = new DefaultAutoAgentExecuteStrategyFactory.DynamicContext();
         dynamicContext.setMaxStep(executeCommandEntity.getMaxStep() != null ? executeCommandEntity.getMaxStep() : 3);
-        dynamicContext.setExecutionHistory(new StringBuilder());
         dynamicContext.setCurrentTask(executeCommandEntity.getMessage());
         dynamicContext.setValue("emitter", emitter);
-        
-        String apply = executeHandler.apply(executeCommandEntity, dynamicContext);
-        log.info("测试结果:{}", apply);
+
+        // 客户端断开、推送超时或出错时取消执行，不再为无人接收的结果调用模型
+        ExecuteCancellationToken cancellationToken = new ExecuteCancellationToken(executeCommandEntity.getTimeout());
+        emitter.onCompletion(() -> cancellationToken.cancel("emitter completed"));
+        emitter.onTimeout(() -> cancellationToken.cancel("emitter timeout"));
+        emitter.onError(e -> cancellationToken.cancel("emitter error: " + e.getMessage()));
+        dynamicContext.setCancellationToken(cancellationToken);
+
+        // 同一会话ID同时只允许一个执行，并发提交时拒绝
+        executeCheckpointService.lock(executeCommandEntity.getSessionId());
+        try {
+            ExecuteSessionEntity sessionStart = ExecuteSessionEntity.start(executeCommandEntity, dynamicContext.getMaxStep());
+            executeEventRecorder.recordSessionStart(sessionStart);
+
+            boolean success = false;
+            try {
+                // 按需装配模式下，确保智能体的客户端已装配；执行期间持有智能体，不被空闲下线
+                lazyAgentArmoryService.ensureArmed(executeCommandEntity.getAiAgentId());
+
+                try {
+                    // 固定当前组件代，会话结束后释放
+                    AgentComponentGeneration generation = agentComponentRegistry.pin();
+                    dynamicContext.setGeneration(generation);
+
+                    try {
+                        String apply = executeHandler.apply(executeCommandEntity, dynamicContext);
+                        log.info("测试结果:{}", apply);
+                        success = true;
+                    } finally {
+                        agentComponentRegistry.release(generation);
+                    }
+                } finally {
+                    lazyAgentArmoryService.release(executeCommandEntity.getAiAgentId());
+                }
+            } finally {
+                executeEventRecorder.recordSessionEnd(ExecuteSessionEntity.end(executeCommandEntity, dynamicContext.getMaxStep(), sessionStart.getStartTime(), success));
+            }
+        } finally {
+            executeCheckpointService.unlock(executeCommandEntity.getSessionId());
+        }
         
         // 发送完成标识
         try {
             AutoAgentExecuteResultEntity completeResult = AutoAgentExecuteResultEntity.createCompleteResult(executeCommandEntity.getSessionId());
+            executeEventRecorder.recordEvent(completeResult);
             // 发送SSE格式的数据
             String sseData = "data: " + JSON.toJSONString(completeResult) + "\n\n";
             emitter.send(sseData);
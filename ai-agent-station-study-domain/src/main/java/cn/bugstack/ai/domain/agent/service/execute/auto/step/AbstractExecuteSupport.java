@@ -4,20 +4,41 @@ import cn.bugstack.ai.domain.agent.adapter.repository.IAgentRepository;
 import cn.bugstack.ai.domain.agent.model.entity.AutoAgentExecuteResultEntity;
 import cn.bugstack.ai.domain.agent.model.entity.ExecuteCommandEntity;
 import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
-import cn.bugstack.ai.domain.agent.service.armory.AbstractArmorySupport;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AutoAgentExecuteStateVO;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentGeneration;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentHandle;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentRegistry;
+import cn.bugstack.ai.domain.agent.service.execute.cache.ChatResponseCache;
+import cn.bugstack.ai.domain.agent.service.execute.cancel.ExecuteCancellationToken;
+import cn.bugstack.ai.domain.agent.service.execute.event.ExecuteEventRecorder;
+import cn.bugstack.ai.domain.agent.service.execute.parser.StreamingSectionParser;
+import cn.bugstack.ai.domain.agent.service.execute.prompt.AssembledPrompt;
+import cn.bugstack.ai.domain.agent.service.execute.prompt.PromptAssembler;
 import cn.bugstack.ai.domain.agent.service.execute.auto.step.factory.DefaultAutoAgentExecuteStrategyFactory;
+import cn.bugstack.ai.types.enums.ResponseCode;
+import cn.bugstack.ai.types.exception.AppException;
 import cn.bugstack.wrench.design.framework.tree.AbstractMultiThreadStrategyRouter;
 import com.alibaba.fastjson.JSON;
 import jakarta.annotation.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.client.advisor.api.BaseChatMemoryAdvisor;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 /**
  * @author jinjie
@@ -33,16 +54,284 @@ public abstract class AbstractExecuteSupport extends AbstractMultiThreadStrategy
     @Resource
     protected IAgentRepository repository;
 
+    @Resource
+    protected AgentComponentRegistry agentComponentRegistry;
+
+    @Resource
+    protected ExecuteEventRecorder executeEventRecorder;
+
+    @Resource
+    protected PromptAssembler promptAssembler;
+
+    @Resource
+    protected ChatResponseCache chatResponseCache;
+
+    /**
+     * 步骤调用以流式方式输出，增量文本实时推送给客户端
+     */
+    @Value("${spring.ai.agent.execute.stream.enabled:true}")
+    protected boolean streamEnabled;
+
     public static final String CHAT_MEMORY_CONVERSATION_ID_KEY = "chat_memory_conversation_id";
     public static final String CHAT_MEMORY_RETRIEVE_SIZE_KEY = "chat_memory_response_size";
 
+    /**
+     * 节点对应的执行状态
+     */
+    public abstract AutoAgentExecuteStateVO executeState();
+
     @Override
     protected void multiThread(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws ExecutionException, InterruptedException, TimeoutException {
 
     }
 
-    protected ChatClient getChatClientByClientId(String clientId) {
-        return getBean(AiAgentEnumVO.AI_CLIENT.getBeanName(clientId));
+    protected ChatClient getChatClientByClientId(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, String clientId) {
+        // 优先从会话固定的组件代获取，装配切换不影响进行中的会话
+        AgentComponentGeneration generation = dynamicContext.getGeneration();
+        if (null != generation) {
+            return generation.getRequiredComponent(AiAgentEnumVO.AI_CLIENT, clientId, ChatClient.class);
+        }
+        return agentComponentRegistry.getRequiredComponent(AiAgentEnumVO.AI_CLIENT, clientId, ChatClient.class);
+    }
+
+    /**
+     * 客户端配置指纹，作为应答缓存键的一部分；客户端重新装配后变化
+     */
+    protected String getClientFingerprint(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, String clientId) {
+        AgentComponentGeneration generation = dynamicContext.getGeneration();
+        AgentComponentHandle<ChatClient> handle = null != generation
+                ? generation.getHandle(AiAgentEnumVO.AI_CLIENT, clientId)
+                : agentComponentRegistry.getHandle(AiAgentEnumVO.AI_CLIENT, clientId);
+        if (null == handle) {
+            return null;
+        }
+        return null != handle.getFingerprint() ? handle.getFingerprint() : String.valueOf(handle.getVersion());
+    }
+
+    /**
+     * 客户端应答是否可缓存；挂载 MCP 工具（工具调用可能有副作用，命中缓存时不会执行）或对话记忆顾问
+     * （应答依赖会话记忆，命中缓存时也不会写入记忆）的客户端不缓存
+     */
+    protected boolean isResponseCacheable(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, String clientId) {
+        if (!chatResponseCache.isEnabled(clientId)) {
+            return false;
+        }
+        AgentComponentGeneration generation = null != dynamicContext.getGeneration()
+                ? dynamicContext.getGeneration()
+                : agentComponentRegistry.getCurrentGeneration();
+        AgentComponentHandle<ChatClient> handle = generation.getHandle(AiAgentEnumVO.AI_CLIENT, clientId);
+        if (null == handle || !handle.getMcpSyncClients().isEmpty()) {
+            return false;
+        }
+        for (AgentComponentHandle<?> advisorHandle : generation.getHandles(AiAgentEnumVO.AI_CLIENT_ADVISOR)) {
+            if (advisorHandle.getComponent() instanceof BaseChatMemoryAdvisor
+                    && handle.getDependencies().contains(AiAgentEnumVO.AI_CLIENT_ADVISOR.getBeanName(advisorHandle.getId()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 流式调用对话客户端；增量文本作为 delta 事件推送，同时累积完整文本返回，供解析和流转判断。
+     * 未开启流式时不推送增量，输出完整后整体返回。
+     *
+     * @param stage 所属阶段（analysis、execution、supervision、summary），用于客户端归并增量
+     */
+    protected String stream(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, String clientId, AssembledPrompt prompt,
+                            String conversationId, int retrieveSize, String sessionId, String stage) {
+        return stream(dynamicContext, clientId, prompt, conversationId, retrieveSize, sessionId, stage, null);
+    }
+
+    /**
+     * 流式调用对话客户端，增量文本同时送入分段解析器，段落结束即回调，不等待完整输出
+     *
+     * @param parser 分段解析器，可为 null
+     */
+    protected String stream(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, String clientId, AssembledPrompt prompt,
+                            String conversationId, int retrieveSize, String sessionId, String stage, StreamingSectionParser parser) {
+        if (!streamEnabled) {
+            String result = callUntil(dynamicContext, clientId, prompt, conversationId, retrieveSize, stage, null);
+            if (null != parser) {
+                if (null != result) {
+                    parser.feed(result);
+                }
+                parser.finish();
+            }
+            return result;
+        }
+
+        throwIfCancelled(dynamicContext);
+        Integer step = "summary".equals(stage) ? null : dynamicContext.getStep();
+
+        // 缓存命中时整段作为一次增量推送
+        boolean cacheable = isResponseCacheable(dynamicContext, clientId);
+        String clientFingerprint = cacheable ? getClientFingerprint(dynamicContext, clientId) : null;
+        String cached = cacheable ? chatResponseCache.get(clientId, clientFingerprint, prompt.getText()) : null;
+        if (null != cached) {
+            log.info("模型应答缓存命中 clientId:{} stage:{}", clientId, stage);
+            sendSseDelta(dynamicContext, AutoAgentExecuteResultEntity.createDeltaResult(stage, step, cached, sessionId));
+            if (null != parser) {
+                parser.feed(cached);
+                parser.finish();
+            }
+            return cached;
+        }
+
+        ChatClient chatClient = getChatClientByClientId(dynamicContext, clientId);
+
+        Flux<ChatResponse> chatResponses = requestSpec(chatClient, prompt)
+                .advisors(a -> a
+                        .param(CHAT_MEMORY_CONVERSATION_ID_KEY, conversationId)
+                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, retrieveSize))
+                .stream().chatResponse();
+
+        // 取消或超出时间预算时中止订阅，进行中的模型请求（含工具调用）随之断开
+        StringBuilder content = new StringBuilder();
+        AtomicReference<ChatResponse> usageResponse = new AtomicReference<>();
+        collect(dynamicContext, chatResponses, stage, delta -> {
+            content.append(delta);
+            sendSseDelta(dynamicContext, AutoAgentExecuteResultEntity.createDeltaResult(stage, step, delta, sessionId));
+            if (null != parser) {
+                parser.feed(delta);
+            }
+        }, usageResponse);
+
+        if (null != parser) {
+            parser.finish();
+        }
+
+        promptAssembler.record(clientId, prompt, usageResponse.get());
+        if (cacheable) {
+            chatResponseCache.put(clientId, clientFingerprint, prompt.getText(), content.toString());
+        }
+
+        return content.toString();
+    }
+
+    /**
+     * 以流式请求完成一次调用，输出累积后整体返回，不推送增量；执行取消或 abortSignal 发出时中止订阅，进行中的模型请求随之断开。
+     * 整个调用超出时间预算时抛出截止异常
+     *
+     * @param stage       所属阶段，用于日志和异常信息
+     * @param abortSignal 中止信号，可为 null
+     * @return 模型输出；被 abortSignal 中止时返回 null
+     */
+    protected String callUntil(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, String clientId, AssembledPrompt prompt,
+                               String conversationId, int retrieveSize, String stage, Mono<Void> abortSignal) {
+        throwIfCancelled(dynamicContext);
+
+        boolean cacheable = isResponseCacheable(dynamicContext, clientId);
+        String clientFingerprint = cacheable ? getClientFingerprint(dynamicContext, clientId) : null;
+        String cached = cacheable ? chatResponseCache.get(clientId, clientFingerprint, prompt.getText()) : null;
+        if (null != cached) {
+            log.info("模型应答缓存命中 clientId:{} stage:{}", clientId, stage);
+            return cached;
+        }
+
+        ChatClient chatClient = getChatClientByClientId(dynamicContext, clientId);
+
+        Flux<ChatResponse> chatResponses = requestSpec(chatClient, prompt)
+                .advisors(a -> a
+                        .param(CHAT_MEMORY_CONVERSATION_ID_KEY, conversationId)
+                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, retrieveSize))
+                .stream().chatResponse();
+
+        AtomicBoolean aborted = new AtomicBoolean();
+        if (null != abortSignal) {
+            chatResponses = chatResponses.takeUntilOther(abortSignal.doOnTerminate(() -> aborted.set(true)));
+        }
+
+        StringBuilder content = new StringBuilder();
+        AtomicReference<ChatResponse> usageResponse = new AtomicReference<>();
+        collect(dynamicContext, chatResponses, stage, content::append, usageResponse);
+        if (aborted.get()) {
+            return null;
+        }
+
+        promptAssembler.record(clientId, prompt, usageResponse.get());
+        if (cacheable) {
+            chatResponseCache.put(clientId, clientFingerprint, prompt.getText(), content.toString());
+        }
+        return content.toString();
+    }
+
+    /**
+     * 静态前缀作为前导用户消息、动态后缀作为最后一条用户消息；系统提示词仍取客户端默认配置，
+     * 检索增强与对话记忆顾问读取的用户消息为动态后缀
+     */
+    private ChatClient.ChatClientRequestSpec requestSpec(ChatClient chatClient, AssembledPrompt prompt) {
+        if (prompt.getStaticPrefix().isEmpty() || prompt.getSuffix().isBlank()) {
+            return chatClient.prompt(prompt.getText());
+        }
+        return chatClient.prompt()
+                .messages(new UserMessage(prompt.getStaticPrefix()))
+                .user(prompt.getSuffix());
+    }
+
+    /**
+     * 订阅模型输出直到结束，增量文本交给 onDelta；执行取消时中止订阅，进行中的模型请求随之断开。
+     * 时限作用于整个调用（从订阅开始计时），而不是相邻两个输出片段之间的间隔；到时中止订阅并抛出截止异常
+     */
+    private void collect(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, Flux<ChatResponse> chatResponses, String stage,
+                         Consumer<String> onDelta, AtomicReference<ChatResponse> usageResponse) {
+        ExecuteCancellationToken cancellationToken = dynamicContext.getCancellationToken();
+        Duration callTimeout = callTimeout(dynamicContext);
+        if (null != cancellationToken) {
+            chatResponses = chatResponses.takeUntilOther(cancellationToken.onCancel());
+        }
+        AtomicBoolean timedOut = new AtomicBoolean();
+        if (null != callTimeout) {
+            chatResponses = chatResponses.takeUntilOther(Mono.delay(callTimeout).doOnNext(tick -> timedOut.set(true)));
+        }
+
+        chatResponses
+                .doOnNext(chatResponse -> {
+                    if (null != chatResponse.getMetadata() && null != chatResponse.getMetadata().getUsage()
+                            && null != chatResponse.getMetadata().getUsage().getPromptTokens()
+                            && chatResponse.getMetadata().getUsage().getPromptTokens() > 0) {
+                        usageResponse.set(chatResponse);
+                    }
+                    if (null == chatResponse.getResult() || null == chatResponse.getResult().getOutput()) {
+                        return;
+                    }
+                    String delta = chatResponse.getResult().getOutput().getText();
+                    if (null == delta || delta.isEmpty()) {
+                        return;
+                    }
+                    onDelta.accept(delta);
+                })
+                .blockLast();
+        throwIfCancelled(dynamicContext);
+        if (timedOut.get()) {
+            throw new AppException(ResponseCode.EXECUTE_DEADLINE_EXCEEDED.getCode(),
+                    String.format("%s 阶段超出时间预算 %ss", stage, callTimeout.toSeconds()));
+        }
+    }
+
+    protected void throwIfCancelled(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) {
+        ExecuteCancellationToken cancellationToken = dynamicContext.getCancellationToken();
+        if (null != cancellationToken) {
+            cancellationToken.throwIfCancelled();
+        }
+    }
+
+    /**
+     * 本次调用的时限；剩余时间先为总结预留一份，其余按剩余步数均分，当前步骤的调用使用一份。
+     * 前面的步骤提前结束时，节省的时间在之后的调用中重新分配。未设置截止时间时返回 null
+     */
+    protected Duration callTimeout(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) {
+        ExecuteCancellationToken cancellationToken = dynamicContext.getCancellationToken();
+        if (null == cancellationToken || !cancellationToken.hasDeadline()) {
+            return null;
+        }
+        Duration remaining = cancellationToken.remaining();
+        if (AutoAgentExecuteStateVO.SUMMARIZE == executeState()) {
+            return remaining;
+        }
+        int remainingSteps = Math.max(1, dynamicContext.getMaxStep() - dynamicContext.getStep() + 1);
+        Duration summaryReserve = remaining.dividedBy(remainingSteps + 1);
+        return remaining.minus(summaryReserve).dividedBy(remainingSteps);
     }
 
     protected <T> T getBean(String beanName) {
@@ -56,6 +345,16 @@ public abstract class AbstractExecuteSupport extends AbstractMultiThreadStrategy
      */
     protected void sendSseResult(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, 
                                 AutoAgentExecuteResultEntity result) {
+        // 事件异步落库，不阻塞推送
+        executeEventRecorder.recordEvent(result);
+        sendSseDelta(dynamicContext, result);
+    }
+
+    /**
+     * 发送流式增量；增量只推送不落库，完整结果由各阶段解析后经 sendSseResult 记录
+     */
+    protected void sendSseDelta(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext,
+                                AutoAgentExecuteResultEntity result) {
         try {
             ResponseBodyEmitter emitter = dynamicContext.getValue("emitter");
             if (emitter != null) {
@@ -65,6 +364,11 @@ public abstract class AbstractExecuteSupport extends AbstractMultiThreadStrategy
             }
         } catch (IOException e) {
             log.error("发送SSE结果失败：{}", e.getMessage(), e);
+            // 客户端已断开，取消后续执行
+            ExecuteCancellationToken cancellationToken = dynamicContext.getCancellationToken();
+            if (null != cancellationToken) {
+                cancellationToken.cancel("send failed: " + e.getMessage());
+            }
         }
     }
 
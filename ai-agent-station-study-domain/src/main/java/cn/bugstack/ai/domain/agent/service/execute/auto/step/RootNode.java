@@ -1,17 +1,30 @@
 package cn.bugstack.ai.domain.agent.service.execute.auto.step;
 
+import cn.bugstack.ai.domain.agent.model.entity.AutoAgentExecuteResultEntity;
 import cn.bugstack.ai.domain.agent.model.entity.ExecuteCommandEntity;
+import cn.bugstack.ai.domain.agent.model.entity.ExecutionHistoryEntity;
 import cn.bugstack.ai.domain.agent.model.valobj.AiAgentClientFlowConfigVO;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AutoAgentExecuteStateVO;
+import cn.bugstack.ai.domain.agent.service.armory.snapshot.ArmorySnapshotService;
 import cn.bugstack.ai.domain.agent.service.execute.auto.step.factory.DefaultAutoAgentExecuteStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.execute.cache.AgentAnswerCache;
+import cn.bugstack.ai.domain.agent.service.execute.checkpoint.ExecuteCheckpointService;
+import cn.bugstack.ai.types.enums.ResponseCode;
+import cn.bugstack.ai.types.exception.AppException;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
 
 /**
- * 执行根节点
+ * 执行根节点；以循环驱动 分析 → 执行 → 监督 → 总结 各节点，节点不再逐级 router 递归，
+ * 调用栈深度与执行步数无关。下一个节点仍由各节点的 get 决定，每次流转更新上下文中的执行状态。
+ * 每个节点完成后记录执行检查点，同一会话ID重新提交时从检查点的状态继续。
+ * 每个节点执行前检查取消令牌；设置截止时间时，步骤用完时间预算后直接进入总结。
+ * 开启答案语义缓存时，未从检查点继续的请求先查缓存，相似问题命中直接返回答案，任务完成的答案写入缓存。
  *
  * @author jinjie
  * 2025/7/27 16:33
@@ -23,6 +36,30 @@ public class RootNode extends AbstractExecuteSupport {
     @Resource
     private Step1AnalyzerNode step1AnalyzerNode;
 
+    @Resource
+    private Step2PrecisionExecutorNode step2PrecisionExecutorNode;
+
+    @Resource
+    private Step3QualitySupervisorNode step3QualitySupervisorNode;
+
+    @Resource
+    private Step4LogExecutionSummaryNode step4LogExecutionSummaryNode;
+
+    @Resource
+    private ArmorySnapshotService armorySnapshotService;
+
+    @Resource
+    private ExecuteCheckpointService executeCheckpointService;
+
+    @Resource
+    private AgentAnswerCache agentAnswerCache;
+
+    @Value("${spring.ai.agent.execute.history.token-budget:6000}")
+    private int historyTokenBudget;
+
+    @Value("${spring.ai.agent.execute.history.keep-recent-steps:2}")
+    private int historyKeepRecentSteps;
+
     @Override
     protected String doApply(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws Exception {
         log.info("=== 动态多轮执行测试开始 ====");
@@ -30,18 +67,120 @@ public class RootNode extends AbstractExecuteSupport {
         log.info("最大执行步数: {}", requestParameter.getMaxStep());
         log.info("会话ID: {}", requestParameter.getSessionId());
 
-        Map<String, AiAgentClientFlowConfigVO> aiAgentClientFlowConfigVOMap = repository.queryAiAgentClientFlowConfig(requestParameter.getAiAgentId());
+        Map<String, AiAgentClientFlowConfigVO> aiAgentClientFlowConfigVOMap = armorySnapshotService.queryAiAgentClientFlowConfig(requestParameter.getAiAgentId());
 
         // 客户端对话组
         dynamicContext.setAiAgentClientFlowConfigVOMap(aiAgentClientFlowConfigVOMap);
         // 上下文信息
-        dynamicContext.setExecutionHistory(new StringBuilder());
+        dynamicContext.setExecutionHistory(new ExecutionHistoryEntity(historyTokenBudget, historyKeepRecentSteps, promptAssembler::estimateTokens));
         // 当前任务信息
         dynamicContext.setCurrentTask(requestParameter.getMessage());
         // 最大任务步骤
         dynamicContext.setMaxStep(requestParameter.getMaxStep());
+        dynamicContext.setState(AutoAgentExecuteStateVO.INIT);
+
+        // 同一会话ID重新提交时，从最后一个检查点继续
+        boolean restored = executeCheckpointService.restore(requestParameter, dynamicContext);
+
+        // 未从检查点继续时，相似问题已有答案则直接返回，不再执行多轮循环
+        if (!restored) {
+            String cachedAnswer = agentAnswerCache.lookup(requestParameter.getAiAgentId(), requestParameter.getMessage());
+            if (null != cachedAnswer) {
+                return replyCachedAnswer(requestParameter, dynamicContext, cachedAnswer);
+            }
+        }
+
+        String result = drive(requestParameter, dynamicContext);
 
-        return router(requestParameter, dynamicContext);
+        // 任务完成的答案写入语义缓存
+        if (dynamicContext.isCompleted()) {
+            agentAnswerCache.store(requestParameter.getAiAgentId(), requestParameter.getSessionId(), requestParameter.getMessage(),
+                    dynamicContext.getValue("finalSummary"));
+        }
+
+        return result;
+    }
+
+    /**
+     * 以缓存的答案作为总结结果推送；完成标识由执行策略统一发送。会话已结束，清除可能遗留的检查点
+     */
+    private String replyCachedAnswer(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, String cachedAnswer) {
+        String sessionId = requestParameter.getSessionId();
+        sendSseDelta(dynamicContext, AutoAgentExecuteResultEntity.createDeltaResult("summary", null, cachedAnswer, sessionId));
+        sendSseResult(dynamicContext, AutoAgentExecuteResultEntity.createSummaryResult(cachedAnswer, sessionId));
+        dynamicContext.setValue("finalSummary", cachedAnswer);
+        transition(requestParameter, dynamicContext, AutoAgentExecuteStateVO.DONE);
+        executeCheckpointService.clear(sessionId);
+        return cachedAnswer;
+    }
+
+    /**
+     * 驱动循环；从上下文中的执行状态继续，每个节点执行完后由其 get 给出下一个节点
+     */
+    public String drive(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws Exception {
+        String result = null;
+        AbstractExecuteSupport node = resume(requestParameter, dynamicContext);
+        while (null != node) {
+            throwIfCancelled(dynamicContext);
+            transition(requestParameter, dynamicContext, node.executeState());
+            try {
+                result = node.apply(requestParameter, dynamicContext);
+            } catch (AppException e) {
+                if (!isStepBudgetExceeded(e, node, dynamicContext)) {
+                    throw e;
+                }
+                // 步骤用完时间预算，以已有的执行历史进入总结
+                log.warn("执行步骤超出时间预算，进入总结 sessionId:{} step:{} {}", requestParameter.getSessionId(), dynamicContext.getStep(), e.getInfo());
+                node = step4LogExecutionSummaryNode;
+                executeCheckpointService.checkpoint(requestParameter, dynamicContext, node.executeState());
+                continue;
+            }
+
+            StrategyHandler<ExecuteCommandEntity, DefaultAutoAgentExecuteStrategyFactory.DynamicContext, String> next = node.get(requestParameter, dynamicContext);
+            node = next instanceof AbstractExecuteSupport ? (AbstractExecuteSupport) next : null;
+
+            // 节点完成后记录检查点，中断后从下一个节点继续
+            if (null != node) {
+                executeCheckpointService.checkpoint(requestParameter, dynamicContext, node.executeState());
+            }
+        }
+        transition(requestParameter, dynamicContext, AutoAgentExecuteStateVO.DONE);
+        executeCheckpointService.clear(requestParameter.getSessionId());
+        return result;
+    }
+
+    /**
+     * 是否为单个步骤超出时间预算；整体截止时间已到或已取消时不再进入总结
+     */
+    private boolean isStepBudgetExceeded(AppException e, AbstractExecuteSupport node, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) {
+        return ResponseCode.EXECUTE_DEADLINE_EXCEEDED.getCode().equals(e.getCode())
+                && AutoAgentExecuteStateVO.SUMMARIZE != node.executeState()
+                && null != dynamicContext.getCancellationToken()
+                && !dynamicContext.getCancellationToken().isCancelled();
+    }
+
+    private AbstractExecuteSupport resume(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws Exception {
+        AutoAgentExecuteStateVO state = dynamicContext.getState();
+        if (null == state || AutoAgentExecuteStateVO.INIT == state) {
+            return (AbstractExecuteSupport) get(requestParameter, dynamicContext);
+        }
+        return switch (state) {
+            case ANALYZE -> step1AnalyzerNode;
+            case EXECUTE -> step2PrecisionExecutorNode;
+            case SUPERVISE -> step3QualitySupervisorNode;
+            case SUMMARIZE -> step4LogExecutionSummaryNode;
+            default -> null;
+        };
+    }
+
+    private void transition(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, AutoAgentExecuteStateVO state) {
+        log.info("执行状态流转 sessionId:{} step:{} {} -> {}", requestParameter.getSessionId(), dynamicContext.getStep(), dynamicContext.getState(), state);
+        dynamicContext.setState(state);
+    }
+
+    @Override
+    public AutoAgentExecuteStateVO executeState() {
+        return AutoAgentExecuteStateVO.INIT;
     }
 
     @Override
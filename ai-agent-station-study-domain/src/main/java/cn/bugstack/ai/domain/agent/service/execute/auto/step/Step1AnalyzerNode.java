@@ -4,10 +4,14 @@ import cn.bugstack.ai.domain.agent.model.entity.AutoAgentExecuteResultEntity;
 import cn.bugstack.ai.domain.agent.model.entity.ExecuteCommandEntity;
 import cn.bugstack.ai.domain.agent.model.valobj.AiAgentClientFlowConfigVO;
 import cn.bugstack.ai.domain.agent.model.valobj.enums.AiClientTypeEnumVO;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AutoAgentExecuteStateVO;
 import cn.bugstack.ai.domain.agent.service.execute.auto.step.factory.DefaultAutoAgentExecuteStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.execute.parser.SectionRules;
+import cn.bugstack.ai.domain.agent.service.execute.parser.StreamingSectionParser;
+import cn.bugstack.ai.domain.agent.service.execute.prompt.AssembledPrompt;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -20,6 +24,20 @@ import org.springframework.stereotype.Service;
 @Service
 public class Step1AnalyzerNode extends AbstractExecuteSupport {
 
+    /**
+     * 分析结果分段规则；同一行命中多个标题时按声明顺序取先者
+     */
+    private static final SectionRules ANALYSIS_SECTION_RULES = SectionRules.builder()
+            .section("analysis_status", SectionRules.HeaderMode.SKIP, "任务状态分析:")
+            .section("analysis_history", SectionRules.HeaderMode.SKIP, "执行历史评估:")
+            .section("analysis_strategy", SectionRules.HeaderMode.SKIP, "下一步策略:")
+            .section("analysis_progress", SectionRules.HeaderMode.LINE, "完成度评估:")
+            .section("analysis_task_status", SectionRules.HeaderMode.LINE, "任务状态:")
+            .build();
+
+    @Value("${spring.ai.agent.execute.sub-task.enabled:false}")
+    private boolean subTaskEnabled;
+
     @Override
     protected String doApply(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws Exception {
         log.info("\n🎯 === 执行第 {} 步 ===", dynamicContext.getStep());
@@ -29,7 +47,11 @@ public class Step1AnalyzerNode extends AbstractExecuteSupport {
 
         // 第一阶段：任务分析
         log.info("\n📊 阶段1: 任务状态分析");
-        String analysisPrompt = String.format(aiAgentClientFlowConfigVO.getStepPrompt(),
+        // 开启子任务并行时，要求分析师列出可并行的独立子任务
+        String analysisTemplate = subTaskEnabled
+                ? aiAgentClientFlowConfigVO.getStepPrompt() + Step2PrecisionExecutorNode.SUB_TASK_INSTRUCTION
+                : aiAgentClientFlowConfigVO.getStepPrompt();
+        AssembledPrompt analysisPrompt = promptAssembler.assemble(analysisTemplate,
                 requestParameter.getMessage(),
                 dynamicContext.getStep(),
                 dynamicContext.getMaxStep(),
@@ -37,18 +59,16 @@ public class Step1AnalyzerNode extends AbstractExecuteSupport {
                 dynamicContext.getCurrentTask()
         );
 
-        ChatClient chatClient = getChatClientByClientId(aiAgentClientFlowConfigVO.getClientId());
-
-        String analysisResult = chatClient
-                .prompt(analysisPrompt)
-                .advisors(a -> a
-                        .param(CHAT_MEMORY_CONVERSATION_ID_KEY, requestParameter.getSessionId())
-                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 1024))
-                .call().content();
+        // 分析结果边输出边分段，每段结束即推送细分结果
+        String sessionId = requestParameter.getSessionId();
+        log.info("\n📊 === 第 {} 步分析结果 ===", dynamicContext.getStep());
+        StreamingSectionParser parser = ANALYSIS_SECTION_RULES.newParser((subType, content) ->
+                sendAnalysisSubResult(dynamicContext, subType, content, sessionId));
+        String analysisResult = stream(dynamicContext, aiAgentClientFlowConfigVO.getClientId(), analysisPrompt, sessionId, 1024,
+                sessionId, "analysis", parser);
 
         assert analysisResult != null;
-        parseAnalysisResult(dynamicContext, analysisResult, requestParameter.getSessionId());
-        
+
         // 将分析结果保存到动态上下文中，供下一步使用
         dynamicContext.setValue("analysisResult", analysisResult);
 
@@ -57,10 +77,14 @@ public class Step1AnalyzerNode extends AbstractExecuteSupport {
                 analysisResult.contains("完成度评估: 100%")) {
             dynamicContext.setCompleted(true);
             log.info("✅ 任务分析显示已完成！");
-            return router(requestParameter, dynamicContext);
         }
 
-        return router(requestParameter, dynamicContext);
+        return analysisResult;
+    }
+
+    @Override
+    public AutoAgentExecuteStateVO executeState() {
+        return AutoAgentExecuteStateVO.ANALYZE;
     }
 
     @Override
@@ -74,93 +98,13 @@ public class Step1AnalyzerNode extends AbstractExecuteSupport {
         return getBean("step2PrecisionExecutorNode");
     }
 
-    private void parseAnalysisResult(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, String analysisResult, String sessionId) {
-        int step = dynamicContext.getStep();
-        log.info("\n📊 === 第 {} 步分析结果 ===", step);
-        
-        String[] lines = analysisResult.split("\n");
-        String currentSection = "";
-        StringBuilder sectionContent = new StringBuilder();
-
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty()) continue;
-
-            if (line.contains("任务状态分析:")) {
-                // 发送上一个section的内容
-                sendAnalysisSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "analysis_status";
-                sectionContent = new StringBuilder();
-                log.info("\n🎯 任务状态分析:");
-                continue;
-            } else if (line.contains("执行历史评估:")) {
-                // 发送上一个section的内容
-                sendAnalysisSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "analysis_history";
-                sectionContent = new StringBuilder();
-                log.info("\n📈 执行历史评估:");
-                continue;
-            } else if (line.contains("下一步策略:")) {
-                // 发送上一个section的内容
-                sendAnalysisSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "analysis_strategy";
-                sectionContent = new StringBuilder();
-                log.info("\n🚀 下一步策略:");
-                continue;
-            } else if (line.contains("完成度评估:")) {
-                // 发送上一个section的内容
-                sendAnalysisSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "analysis_progress";
-                sectionContent = new StringBuilder();
-                String progress = line.substring(line.indexOf(":") + 1).trim();
-                log.info("\n📊 完成度评估: {}", progress);
-                sectionContent.append(line).append("\n");
-                continue;
-            } else if (line.contains("任务状态:")) {
-                // 发送上一个section的内容
-                sendAnalysisSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "analysis_task_status";
-                sectionContent = new StringBuilder();
-                String status = line.substring(line.indexOf(":") + 1).trim();
-                if (status.equals("COMPLETED")) {
-                    log.info("\n✅ 任务状态: 已完成");
-                } else {
-                    log.info("\n🔄 任务状态: 继续执行");
-                }
-                sectionContent.append(line).append("\n");
-                continue;
-            }
-
-            // 收集当前section的内容
-            if (!currentSection.isEmpty()) {
-                sectionContent.append(line).append("\n");
-                switch (currentSection) {
-                    case "analysis_status":
-                        log.info("   📋 {}", line);
-                        break;
-                    case "analysis_history":
-                        log.info("   📊 {}", line);
-                        break;
-                    case "analysis_strategy":
-                        log.info("   🎯 {}", line);
-                        break;
-                    default:
-                        log.info("   📝 {}", line);
-                        break;
-                }
-            }
-        }
-        
-        // 发送最后一个section的内容
-        sendAnalysisSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-    }
-
     /**
      * 发送分析阶段细分结果到流式输出
      */
     private void sendAnalysisSubResult(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, 
                                       String subType, String content, String sessionId) {
         if (!subType.isEmpty() && !content.isEmpty()) {
+            log.info("\n📋 {}:\n{}", subType, content);
             AutoAgentExecuteResultEntity result = AutoAgentExecuteResultEntity.createAnalysisSubResult(
                     dynamicContext.getStep(), subType, content, sessionId);
             sendSseResult(dynamicContext, result);
@@ -4,11 +4,33 @@ import cn.bugstack.ai.domain.agent.model.entity.AutoAgentExecuteResultEntity;
 import cn.bugstack.ai.domain.agent.model.entity.ExecuteCommandEntity;
 import cn.bugstack.ai.domain.agent.model.valobj.AiAgentClientFlowConfigVO;
 import cn.bugstack.ai.domain.agent.model.valobj.enums.AiClientTypeEnumVO;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AutoAgentExecuteStateVO;
 import cn.bugstack.ai.domain.agent.service.execute.auto.step.factory.DefaultAutoAgentExecuteStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.execute.cancel.ExecuteCancellationToken;
+import cn.bugstack.ai.domain.agent.service.execute.parser.SectionRules;
+import cn.bugstack.ai.domain.agent.service.execute.parser.StreamingSectionParser;
+import cn.bugstack.ai.domain.agent.service.execute.prompt.AssembledPrompt;
+import cn.bugstack.ai.types.enums.ResponseCode;
+import cn.bugstack.ai.types.exception.AppException;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * 精准执行节点
@@ -20,6 +42,45 @@ import org.springframework.stereotype.Service;
 @Service
 public class Step2PrecisionExecutorNode extends AbstractExecuteSupport{
 
+    /**
+     * 分析结果中独立子任务列表的标识；全角冒号按半角匹配
+     */
+    public static final String SUB_TASK_MARKER = "独立子任务:";
+
+    /**
+     * 开启子任务并行时追加到分析提示词末尾的输出要求
+     */
+    public static final String SUB_TASK_INSTRUCTION = """
+            
+            **独立子任务（可选）:**
+            如果下一步需要执行多个互不依赖、可以同时进行的操作（如分别查询多个索引、分别搜索多个关键词），
+            请在分析结果末尾另起一行输出 "独立子任务:"，随后每行一个子任务，格式为 "1. 子任务描述"；否则不要输出该部分。
+            """;
+
+    private static final Pattern SUB_TASK_ITEM = Pattern.compile("^\\s*(?:[-*]|\\d+[.、)])\\s*(.+)$");
+
+    /**
+     * 执行结果分段规则
+     */
+    private static final SectionRules EXECUTION_SECTION_RULES = SectionRules.builder()
+            .section("execution_target", SectionRules.HeaderMode.SKIP, "执行目标:")
+            .section("execution_process", SectionRules.HeaderMode.SKIP, "执行过程:")
+            .section("execution_result", SectionRules.HeaderMode.SKIP, "执行结果:")
+            .section("execution_quality", SectionRules.HeaderMode.SKIP, "质量检查:")
+            .build();
+
+    @Resource(name = "stepThreadPoolExecutor")
+    private ThreadPoolExecutor stepThreadPoolExecutor;
+
+    @Value("${spring.ai.agent.execute.sub-task.enabled:false}")
+    private boolean subTaskEnabled;
+
+    @Value("${spring.ai.agent.execute.sub-task.parallelism:3}")
+    private int subTaskParallelism;
+
+    @Value("${spring.ai.agent.execute.sub-task.max-sub-tasks:8}")
+    private int maxSubTasks;
+
     @Override
     protected String doApply(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws Exception {
         log.info("\n⚡ 阶段2: 精准任务执行");
@@ -33,111 +94,176 @@ public class Step2PrecisionExecutorNode extends AbstractExecuteSupport{
 
         AiAgentClientFlowConfigVO aiAgentClientFlowConfigVO = dynamicContext.getAiAgentClientFlowConfigVOMap().get(AiClientTypeEnumVO.PRECISION_EXECUTOR_CLIENT.getCode());
 
-        String executionPrompt = String.format(aiAgentClientFlowConfigVO.getStepPrompt(), requestParameter.getMessage(), analysisResult);
+        List<String> subTasks = subTaskEnabled ? parseSubTasks(analysisResult, maxSubTasks) : List.of();
 
-        // 获取对话客户端
-        ChatClient chatClient = getChatClientByClientId(aiAgentClientFlowConfigVO.getClientId());
+        // 执行结果边输出边分段，每段结束即推送细分结果
+        String sessionId = requestParameter.getSessionId();
+        log.info("\n⚡ === 第 {} 步执行结果 ===", dynamicContext.getStep());
+        StreamingSectionParser parser = EXECUTION_SECTION_RULES.newParser((subType, content) ->
+                sendExecutionSubResult(dynamicContext, subType, content, sessionId));
 
-        String executionResult = chatClient
-                .prompt(executionPrompt)
-                .advisors(a -> a
-                        .param(CHAT_MEMORY_CONVERSATION_ID_KEY, requestParameter.getSessionId())
-                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 1024))
-                .call().content();
+        String executionResult;
+        if (subTasks.size() > 1) {
+            executionResult = executeSubTasks(requestParameter, dynamicContext, aiAgentClientFlowConfigVO, analysisResult, subTasks);
+            parser.feed(executionResult);
+            parser.finish();
+        } else {
+            AssembledPrompt executionPrompt = promptAssembler.assemble(aiAgentClientFlowConfigVO.getStepPrompt(), requestParameter.getMessage(), analysisResult);
+            executionResult = stream(dynamicContext, aiAgentClientFlowConfigVO.getClientId(), executionPrompt, sessionId, 1024,
+                    sessionId, "execution", parser);
+        }
 
         assert executionResult != null;
-        parseExecutionResult(dynamicContext, executionResult, requestParameter.getSessionId());
-        
+
         // 将执行结果保存到动态上下文中，供下一步使用
         dynamicContext.setValue("executionResult", executionResult);
         
         // 更新执行历史
-        String stepSummary = String.format("""
-                === 第 %d 步执行记录 ===
-                【分析阶段】%s
-                【执行阶段】%s
-                """, dynamicContext.getStep(), analysisResult, executionResult);
-        
-        dynamicContext.getExecutionHistory().append(stepSummary);
+        dynamicContext.getExecutionHistory().recordExecution(dynamicContext.getStep(), analysisResult, executionResult);
 
-        return router(requestParameter, dynamicContext);
+        return executionResult;
     }
 
-    @Override
-    public StrategyHandler<ExecuteCommandEntity, DefaultAutoAgentExecuteStrategyFactory.DynamicContext, String> get(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws Exception {
-        return getBean("step3QualitySupervisorNode");
+    /**
+     * 并行执行独立子任务，最多 parallelism 个同时调用执行客户端，结果按子任务顺序合并为一条执行记录。
+     * 当前线程作为其中一个工作者，其余工作者提交到步骤线程池，线程池已满时只由当前线程依次执行。
+     * 等待不超过本次调用时限，执行取消时立即结束，未完成的子任务请求随之中止。
+     * 子任务使用各自的对话记忆ID，避免并发写入同一会话记忆；单个子任务失败记入结果，不影响其他子任务。
+     */
+    private String executeSubTasks(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext,
+                                   AiAgentClientFlowConfigVO aiAgentClientFlowConfigVO, String analysisResult, List<String> subTasks) {
+        int total = subTasks.size();
+        int parallelism = Math.min(Math.max(1, subTaskParallelism), total);
+        log.info("\n🔀 拆分为 {} 个独立子任务并行执行，并行度 {}", total, parallelism);
+
+        Duration callTimeout = callTimeout(dynamicContext);
+        long startNanos = System.nanoTime();
+
+        String[] results = new String[total];
+        AtomicInteger next = new AtomicInteger();
+        Sinks.Empty<Void> abort = Sinks.empty();
+
+        // 固定数量的工作者依次领取子任务，不占用额外的等待线程
+        Runnable worker = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < total) {
+                String subTask = subTasks.get(index);
+                String strategy = String.format("%s\n\n**当前子任务（%d/%d）:** %s\n只执行当前子任务，其他子任务由其他执行器并行完成。",
+                        analysisResult, index + 1, total, subTask);
+                try {
+                    AssembledPrompt executionPrompt = promptAssembler.assemble(aiAgentClientFlowConfigVO.getStepPrompt(), requestParameter.getMessage(), strategy);
+                    results[index] = callUntil(dynamicContext, aiAgentClientFlowConfigVO.getClientId(), executionPrompt,
+                            requestParameter.getSessionId() + "-subtask-" + (index + 1), 1024, "execution", abort.asMono());
+                } catch (Exception e) {
+                    log.error("子任务执行失败 {}/{}: {}", index + 1, total, e.getMessage(), e);
+                    results[index] = "子任务执行失败: " + e.getMessage();
+                }
+            }
+        };
+
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        try {
+            for (int w = 1; w < parallelism; w++) {
+                try {
+                    workers.add(CompletableFuture.runAsync(worker, stepThreadPoolExecutor));
+                } catch (RejectedExecutionException e) {
+                    log.info("步骤线程池已满，剩余子任务在当前线程执行");
+                    break;
+                }
+            }
+            worker.run();
+            awaitSubTasks(dynamicContext, workers, callTimeout, startNanos);
+        } finally {
+            // 超时或取消时中止仍在进行的子任务请求
+            abort.tryEmitEmpty();
+        }
+
+        // 等待异常结束时可能有子任务没有结果，明确标记，不合并为 "null"
+        StringBuilder executionResult = new StringBuilder();
+        for (int i = 0; i < total; i++) {
+            String result = null == results[i] ? "子任务未完成" : results[i];
+            executionResult.append(String.format("### 子任务 %d/%d: %s\n%s\n\n", i + 1, total, subTasks.get(i), result));
+        }
+        return executionResult.toString().trim();
     }
-    
+
     /**
-     * 解析执行结果
+     * 等待其他工作者结束；不超过本次调用时限，执行取消时立即返回并抛出异常
      */
-    private void parseExecutionResult(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, String executionResult, String sessionId) {
-        int step = dynamicContext.getStep();
-        log.info("\n⚡ === 第 {} 步执行结果 ===", step);
-        
-        String[] lines = executionResult.split("\n");
-        String currentSection = "";
-        StringBuilder sectionContent = new StringBuilder();
-        
+    private void awaitSubTasks(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, List<CompletableFuture<Void>> workers,
+                               Duration callTimeout, long startNanos) {
+        if (workers.isEmpty()) {
+            throwIfCancelled(dynamicContext);
+            return;
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(workers.toArray(new CompletableFuture[0]));
+        ExecuteCancellationToken cancellationToken = dynamicContext.getCancellationToken();
+        CompletableFuture<Object> done = null == cancellationToken
+                ? CompletableFuture.anyOf(all)
+                : CompletableFuture.anyOf(all, cancellationToken.onCancel().toFuture());
+        try {
+            if (null == callTimeout) {
+                done.get();
+            } else {
+                long remainingNanos = callTimeout.toNanos() - (System.nanoTime() - startNanos);
+                done.get(Math.max(0L, remainingNanos), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException(ResponseCode.EXECUTE_CANCELLED.getCode(), ResponseCode.EXECUTE_CANCELLED.getInfo());
+        } catch (ExecutionException e) {
+            // 工作者内部已捕获子任务异常，这里只可能是取消信号本身出错
+            log.warn("等待子任务结束失败: {}", e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            throwIfCancelled(dynamicContext);
+            throw new AppException(ResponseCode.EXECUTE_DEADLINE_EXCEEDED.getCode(),
+                    String.format("execution 阶段子任务超出时间预算 %ss", callTimeout.toSeconds()));
+        }
+        throwIfCancelled(dynamicContext);
+    }
+
+    /**
+     * 解析分析结果中的独立子任务列表；标识行之后连续的列表项，遇到非列表行结束
+     */
+    public static List<String> parseSubTasks(String analysisResult, int maxSubTasks) {
+        // 逐字符替换，归一后的下标与原文一致，子任务描述保留原文
+        int markerIndex = analysisResult.replace('：', ':').lastIndexOf(SUB_TASK_MARKER);
+        if (markerIndex < 0) {
+            return List.of();
+        }
+
+        List<String> subTasks = new ArrayList<>();
+        String[] lines = analysisResult.substring(markerIndex + SUB_TASK_MARKER.length()).split("\n");
         for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty()) continue;
-            
-            if (line.contains("执行目标:")) {
-                // 发送上一个section的内容
-                sendExecutionSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "execution_target";
-                sectionContent = new StringBuilder();
-                log.info("\n🎯 执行目标:");
-                continue;
-            } else if (line.contains("执行过程:")) {
-                // 发送上一个section的内容
-                sendExecutionSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "execution_process";
-                sectionContent = new StringBuilder();
-                log.info("\n🔧 执行过程:");
-                continue;
-            } else if (line.contains("执行结果:")) {
-                // 发送上一个section的内容
-                sendExecutionSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "execution_result";
-                sectionContent = new StringBuilder();
-                log.info("\n📈 执行结果:");
-                continue;
-            } else if (line.contains("质量检查:")) {
-                // 发送上一个section的内容
-                sendExecutionSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "execution_quality";
-                sectionContent = new StringBuilder();
-                log.info("\n🔍 质量检查:");
-                continue;
+            if (line.trim().isEmpty()) {
+                if (subTasks.isEmpty()) {
+                    continue;
+                }
+                break;
             }
-            
-            // 收集当前section的内容
-            if (!currentSection.isEmpty()) {
-                sectionContent.append(line).append("\n");
-                switch (currentSection) {
-                    case "execution_target":
-                        log.info("   🎯 {}", line);
-                        break;
-                    case "execution_process":
-                        log.info("   ⚙️ {}", line);
-                        break;
-                    case "execution_result":
-                        log.info("   📊 {}", line);
-                        break;
-                    case "execution_quality":
-                        log.info("   ✅ {}", line);
-                        break;
-                    default:
-                        log.info("   📝 {}", line);
-                        break;
+            Matcher matcher = SUB_TASK_ITEM.matcher(line);
+            if (!matcher.matches()) {
+                if (subTasks.isEmpty()) {
+                    continue;
                 }
+                break;
+            }
+            subTasks.add(matcher.group(1).trim());
+            if (subTasks.size() >= maxSubTasks) {
+                break;
             }
         }
-        
-        // 发送最后一个section的内容
-        sendExecutionSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
+        return subTasks;
+    }
+
+    @Override
+    public AutoAgentExecuteStateVO executeState() {
+        return AutoAgentExecuteStateVO.EXECUTE;
+    }
+
+    @Override
+    public StrategyHandler<ExecuteCommandEntity, DefaultAutoAgentExecuteStrategyFactory.DynamicContext, String> get(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws Exception {
+        return getBean("step3QualitySupervisorNode");
     }
     
     /**
@@ -147,6 +273,7 @@ public class Step2PrecisionExecutorNode extends AbstractExecuteSupport{
                                        String subType, String content, String sessionId) {
         // 抽取的通用判断逻辑
         if (!subType.isEmpty() && !content.isEmpty()) {
+            log.info("\n🔧 {}:\n{}", subType, content);
             AutoAgentExecuteResultEntity result = AutoAgentExecuteResultEntity.createExecutionSubResult(
                     dynamicContext.getStep(), subType, content, sessionId);
             sendSseResult(dynamicContext, result);
@@ -4,12 +4,19 @@ import cn.bugstack.ai.domain.agent.model.entity.AutoAgentExecuteResultEntity;
 import cn.bugstack.ai.domain.agent.model.entity.ExecuteCommandEntity;
 import cn.bugstack.ai.domain.agent.model.valobj.AiAgentClientFlowConfigVO;
 import cn.bugstack.ai.domain.agent.model.valobj.enums.AiClientTypeEnumVO;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AutoAgentExecuteStateVO;
 import cn.bugstack.ai.domain.agent.service.execute.auto.step.factory.DefaultAutoAgentExecuteStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.execute.parser.SectionRules;
+import cn.bugstack.ai.domain.agent.service.execute.parser.StreamingSectionParser;
+import cn.bugstack.ai.domain.agent.service.execute.prompt.AssembledPrompt;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Locale;
+
 /**
  * 质量监督节点
  *
@@ -20,6 +27,26 @@ import org.springframework.stereotype.Service;
 @Service
 public class Step3QualitySupervisorNode extends AbstractExecuteSupport {
 
+    /**
+     * 监督结果分段规则；评分与是否通过只取冒号后的值
+     */
+    private static final SectionRules SUPERVISION_SECTION_RULES = SectionRules.builder()
+            .section("assessment", SectionRules.HeaderMode.SKIP, "质量评估:")
+            .section("issues", SectionRules.HeaderMode.SKIP, "问题识别:")
+            .section("suggestions", SectionRules.HeaderMode.SKIP, "改进建议:")
+            .section("score", SectionRules.HeaderMode.VALUE, "质量评分:")
+            .section("pass", SectionRules.HeaderMode.VALUE, "是否通过:")
+            .build();
+
+    @Resource
+    private Step4LogExecutionSummaryNode step4LogExecutionSummaryNode;
+
+    /**
+     * 流水线模式：质量监督期间预先生成总结，监督通过时直接采用
+     */
+    @Value("${spring.ai.agent.execute.pipeline.enabled:false}")
+    private boolean pipelineEnabled;
+
     @Override
     protected String doApply(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws Exception {
         // 第三阶段：质量监督
@@ -34,65 +61,76 @@ public class Step3QualitySupervisorNode extends AbstractExecuteSupport {
 
         AiAgentClientFlowConfigVO aiAgentClientFlowConfigVO = dynamicContext.getAiAgentClientFlowConfigVOMap().get(AiClientTypeEnumVO.QUALITY_SUPERVISOR_CLIENT.getCode());
         
-        String supervisionPrompt = String.format(aiAgentClientFlowConfigVO.getStepPrompt(), requestParameter.getMessage(), executionResult);
+        AssembledPrompt supervisionPrompt = promptAssembler.assemble(aiAgentClientFlowConfigVO.getStepPrompt(), requestParameter.getMessage(), executionResult);
 
-        // 获取对话客户端
-        ChatClient chatClient = getChatClientByClientId(aiAgentClientFlowConfigVO.getClientId());
+        // 监督通过即进入总结，与监督并行预先生成
+        if (pipelineEnabled) {
+            step4LogExecutionSummaryNode.speculateSummary(requestParameter, dynamicContext);
+        }
 
-        String supervisionResult = chatClient
-                .prompt(supervisionPrompt)
-                .advisors(a -> a
-                        .param(CHAT_MEMORY_CONVERSATION_ID_KEY, requestParameter.getSessionId())
-                        .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 1024))
-                .call().content();
+        // 监督结果边输出边分段，每段结束即推送细分结果
+        String sessionId = requestParameter.getSessionId();
+        log.info("\n🔍 === 第 {} 步监督结果 ===", dynamicContext.getStep());
+        String[] passValue = new String[1];
+        StreamingSectionParser parser = SUPERVISION_SECTION_RULES.newParser((section, content) -> {
+            if ("pass".equals(section)) {
+                passValue[0] = content;
+            }
+            sendSupervisionSubResult(dynamicContext, section, content, sessionId);
+        });
+        String supervisionResult = stream(dynamicContext, aiAgentClientFlowConfigVO.getClientId(), supervisionPrompt, sessionId, 1024,
+                sessionId, "supervision", parser);
 
         assert supervisionResult != null;
-        parseSupervisionResult(dynamicContext, supervisionResult, requestParameter.getSessionId());
-        
+        // 发送完整的监督结果
+        sendSupervisionResult(dynamicContext, supervisionResult, sessionId);
+
         // 将监督结果保存到动态上下文中
         dynamicContext.setValue("supervisionResult", supervisionResult);
         
-        // 根据监督结果决定是否需要重新执行
-        if (supervisionResult.contains("是否通过: FAIL")) {
+        // 根据解析出的是否通过取值决定是否需要重新执行；冒号全角/半角、有无空格均已由分段解析归一
+        String pass = null == passValue[0] ? "" : passValue[0].trim().toUpperCase(Locale.ROOT);
+        boolean passed = false;
+        if (pass.startsWith("FAIL")) {
             log.info("❌ 质量检查未通过，需要重新执行");
             dynamicContext.setCurrentTask("根据质量监督的建议重新执行任务");
-        } else if (supervisionResult.contains("是否通过: OPTIMIZE")) {
+        } else if (pass.startsWith("OPTIMIZE")) {
             log.info("🔧 质量检查建议优化，继续改进");
             dynamicContext.setCurrentTask("根据质量监督的建议优化执行结果");
-        } else {
+        } else if (pass.startsWith("PASS")) {
             log.info("✅ 质量检查通过");
+            passed = true;
+            dynamicContext.setCompleted(true);
+        } else {
+            log.warn("⚠️ 未识别是否通过取值 [{}]，按通过结束执行", passValue[0]);
             dynamicContext.setCompleted(true);
         }
+
+        // 仅在明确通过时采用预先生成的总结；未通过或取值缺失、无法识别时作废，由总结阶段按实际监督结果重新生成
+        if (!passed) {
+            step4LogExecutionSummaryNode.discardSpeculativeSummary(dynamicContext);
+        }
         
-        // 更新执行历史
-        String stepSummary = String.format("""
-                === 第 %d 步完整记录 ===
-                【分析阶段】%s
-                【执行阶段】%s
-                【监督阶段】%s
-                """, dynamicContext.getStep(), 
-                dynamicContext.getValue("analysisResult"), 
-                executionResult, 
-                supervisionResult);
-        
-        dynamicContext.getExecutionHistory().append(stepSummary);
+        // 更新执行历史，分析与执行结果已在执行阶段记录
+        dynamicContext.getExecutionHistory().recordSupervision(dynamicContext.getStep(), supervisionResult);
         
         // 增加步骤计数
         dynamicContext.setStep(dynamicContext.getStep() + 1);
-        
-        // 如果任务已完成或达到最大步数，进入总结阶段
-        if (dynamicContext.isCompleted() || dynamicContext.getStep() > dynamicContext.getMaxStep()) {
-            return router(requestParameter, dynamicContext);
-        }
-        
-        // 否则继续下一轮执行，返回到Step1AnalyzerNode
-        return router(requestParameter, dynamicContext);
+
+        return supervisionResult;
+    }
+
+    @Override
+    public AutoAgentExecuteStateVO executeState() {
+        return AutoAgentExecuteStateVO.SUPERVISE;
     }
 
     @Override
     public StrategyHandler<ExecuteCommandEntity, DefaultAutoAgentExecuteStrategyFactory.DynamicContext, String> get(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws Exception {
-        // 如果任务已完成或达到最大步数，进入总结阶段
-        if (dynamicContext.isCompleted() || dynamicContext.getStep() > dynamicContext.getMaxStep()) {
+        // 如果任务已完成、达到最大步数或执行结果为空（监督跳过），进入总结阶段
+        String executionResult = dynamicContext.getValue("executionResult");
+        if (dynamicContext.isCompleted() || dynamicContext.getStep() > dynamicContext.getMaxStep()
+                || executionResult == null || executionResult.trim().isEmpty()) {
             return getBean("step4LogExecutionSummaryNode");
         }
         
@@ -100,99 +138,6 @@ public class Step3QualitySupervisorNode extends AbstractExecuteSupport {
         return getBean("step1AnalyzerNode");
     }
     
-    /**
-     * 解析监督结果
-     */
-    private void parseSupervisionResult(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, String supervisionResult, String sessionId) {
-        int step = dynamicContext.getStep();
-        log.info("\n🔍 === 第 {} 步监督结果 ===", step);
-        
-        String[] lines = supervisionResult.split("\n");
-        String currentSection = "";
-        StringBuilder sectionContent = new StringBuilder();
-        
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty()) continue;
-            
-            if (line.contains("质量评估:")) {
-                // 发送前一个部分的内容
-                sendSupervisionSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "assessment";
-                sectionContent.setLength(0);
-                log.info("\n📊 质量评估:");
-                continue;
-            } else if (line.contains("问题识别:")) {
-                // 发送前一个部分的内容
-                sendSupervisionSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "issues";
-                sectionContent.setLength(0);
-                log.info("\n⚠️ 问题识别:");
-                continue;
-            } else if (line.contains("改进建议:")) {
-                // 发送前一个部分的内容
-                sendSupervisionSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "suggestions";
-                sectionContent.setLength(0);
-                log.info("\n💡 改进建议:");
-                continue;
-            } else if (line.contains("质量评分:")) {
-                // 发送前一个部分的内容
-                sendSupervisionSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "score";
-                sectionContent.setLength(0);
-                String score = line.substring(line.indexOf(":") + 1).trim();
-                log.info("\n📊 质量评分: {}", score);
-                sectionContent.append(score);
-                continue;
-            } else if (line.contains("是否通过:")) {
-                // 发送前一个部分的内容
-                sendSupervisionSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                currentSection = "pass";
-                sectionContent.setLength(0);
-                String status = line.substring(line.indexOf(":") + 1).trim();
-                if (status.equals("PASS")) {
-                    log.info("\n✅ 检查结果: 通过");
-                } else if (status.equals("FAIL")) {
-                    log.info("\n❌ 检查结果: 未通过");
-                } else {
-                    log.info("\n🔧 检查结果: 需要优化");
-                }
-                sectionContent.append(status);
-                continue;
-            }
-            
-            // 收集当前部分的内容
-            if (!currentSection.isEmpty()) {
-                if (!sectionContent.isEmpty()) {
-                    sectionContent.append("\n");
-                }
-                sectionContent.append(line);
-            }
-            
-            switch (currentSection) {
-                case "assessment":
-                    log.info("   📋 {}", line);
-                    break;
-                case "issues":
-                    log.info("   ⚠️ {}", line);
-                    break;
-                case "suggestions":
-                    log.info("   💡 {}", line);
-                    break;
-                default:
-                    log.info("   📝 {}", line);
-                    break;
-            }
-        }
-        
-        // 发送最后一个部分的内容
-        sendSupervisionSubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-        
-        // 发送完整的监督结果
-        sendSupervisionResult(dynamicContext, supervisionResult, sessionId);
-    }
-    
     /**
      * 发送监督结果到流式输出
      */
@@ -210,6 +155,7 @@ public class Step3QualitySupervisorNode extends AbstractExecuteSupport {
                                         String section, String content, String sessionId) {
         // 抽取的通用判断逻辑
         if (!content.isEmpty() && !section.isEmpty()) {
+            log.info("\n📊 {}:\n{}", section, content);
             AutoAgentExecuteResultEntity result = AutoAgentExecuteResultEntity.createSupervisionSubResult(
                     dynamicContext.getStep(), section, content, sessionId);
             sendSseResult(dynamicContext, result);
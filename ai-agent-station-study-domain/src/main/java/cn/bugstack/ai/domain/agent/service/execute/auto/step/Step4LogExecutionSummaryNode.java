@@ -2,13 +2,29 @@ package cn.bugstack.ai.domain.agent.service.execute.auto.step;
 
 import cn.bugstack.ai.domain.agent.model.entity.AutoAgentExecuteResultEntity;
 import cn.bugstack.ai.domain.agent.model.entity.ExecuteCommandEntity;
+import cn.bugstack.ai.domain.agent.model.entity.ExecutionHistoryEntity;
 import cn.bugstack.ai.domain.agent.model.valobj.AiAgentClientFlowConfigVO;
 import cn.bugstack.ai.domain.agent.model.valobj.enums.AiClientTypeEnumVO;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AutoAgentExecuteStateVO;
 import cn.bugstack.ai.domain.agent.service.execute.auto.step.factory.DefaultAutoAgentExecuteStrategyFactory;
+import cn.bugstack.ai.domain.agent.service.execute.parser.SectionRules;
+import cn.bugstack.ai.domain.agent.service.execute.parser.StreamingSectionParser;
+import cn.bugstack.ai.domain.agent.service.execute.prompt.AssembledPrompt;
+import cn.bugstack.ai.types.exception.AppException;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 执行总结节点
@@ -20,6 +36,78 @@ import org.springframework.stereotype.Service;
 @Service
 public class Step4LogExecutionSummaryNode extends AbstractExecuteSupport {
 
+    private static final String SPECULATIVE_SUMMARY_KEY = "speculativeSummary";
+
+    /**
+     * 总结分段规则；标题行计入内容，首个标题之前的内容归入概述。同一行命中多个标题时按声明顺序取先者
+     */
+    private static final SectionRules SUMMARY_SECTION_RULES = SectionRules.builder()
+            .initial("summary_overview")
+            .section("completed_work", SectionRules.HeaderMode.LINE, "已完成的工作", "完成的工作", "工作内容和成果")
+            .section("incomplete_reasons", SectionRules.HeaderMode.LINE, "未完成的原因", "未完成原因")
+            .section("key_factors", SectionRules.HeaderMode.LINE, "关键因素", "完成的关键因素")
+            .section("efficiency_quality", SectionRules.HeaderMode.LINE, "执行效率", "执行效率和质量")
+            .section("suggestions", SectionRules.HeaderMode.LINE, "完成剩余任务的建议", "建议", "优化建议", "经验总结")
+            .section("evaluation", SectionRules.HeaderMode.LINE, "整体执行效果", "评估")
+            .build();
+
+    /**
+     * 预先生成时假定的监督结果；预先生成的总结只在监督通过时采用
+     */
+    private static final String SPECULATIVE_SUPERVISION = "是否通过: PASS";
+
+    @Resource(name = "stepThreadPoolExecutor")
+    private ThreadPoolExecutor stepThreadPoolExecutor;
+
+    /**
+     * 等待预先生成总结的最长时间（秒）
+     */
+    @Value("${spring.ai.agent.execute.pipeline.summary-wait:120}")
+    private long summaryWait;
+
+    /**
+     * 任务已完成的总结提示词
+     */
+    private static final String SUMMARY_COMPLETED_TEMPLATE = """
+            基于以下执行过程，请直接回答用户的原始问题，提供最终的答案和结果：
+
+            **用户原始问题:** %s
+
+            **执行历史和过程:**
+            %s
+
+            **要求:**
+            1. 直接回答用户的原始问题
+            2. 基于执行过程中获得的信息和结果
+            3. 提供具体、实用的最终答案
+            4. 如果是要求制定计划、列表等，请直接给出完整的内容
+            5. 避免只描述执行过程，重点是最终答案
+            6. 以MD语法的表格形式，优化展示结果数据
+
+            请直接给出用户问题的最终答案：
+            """;
+
+    /**
+     * 任务未完成的总结提示词
+     */
+    private static final String SUMMARY_INCOMPLETE_TEMPLATE = """
+            虽然任务未完全执行完成，但请基于已有的执行过程，尽力回答用户的原始问题：
+
+            **用户原始问题:** %s
+
+            **已执行的过程和获得的信息:**
+            %s
+
+            **要求:**
+            1. 基于已有信息，尽力回答用户的原始问题
+            2. 如果信息不足，说明哪些部分无法完成并给出原因
+            3. 提供已能确定的部分答案
+            4. 给出完成剩余部分的具体建议
+            5. 以MD语法的表格形式，优化展示结果数据
+
+            请基于现有信息给出用户问题的答案：
+            """;
+
     @Override
     protected String doApply(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws Exception {
         log.info("\n📊 === 执行第 {} 步 ===", dynamicContext.getStep());
@@ -38,6 +126,85 @@ public class Step4LogExecutionSummaryNode extends AbstractExecuteSupport {
         return "ai agent execution summary completed!";
     }
 
+    /**
+     * 预先生成已完成任务的总结，由质量监督节点在监督期间发起；提示词在当前线程组装，
+     * 执行历史中当前步骤的监督结果按通过计入（只有监督通过时才采用）。
+     * 在步骤线程池执行，线程用尽时放弃预先生成；使用独立的对话记忆ID，作废的结果不写入总结的对话记忆。
+     */
+    public void speculateSummary(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) {
+        AiAgentClientFlowConfigVO aiAgentClientFlowConfigVO = dynamicContext.getAiAgentClientFlowConfigVOMap().get(AiClientTypeEnumVO.RESPONSE_ASSISTANT.getCode());
+        if (null == aiAgentClientFlowConfigVO) {
+            return;
+        }
+        ExecutionHistoryEntity executionHistory = dynamicContext.getExecutionHistory()
+                .withSupervision(dynamicContext.getStep(), SPECULATIVE_SUPERVISION);
+        AssembledPrompt summaryPrompt = getSummaryPrompt(requestParameter, executionHistory, true);
+
+        Sinks.Empty<Void> abort = Sinks.empty();
+        try {
+            CompletableFuture<String> result = CompletableFuture.supplyAsync(() ->
+                    callUntil(dynamicContext, aiAgentClientFlowConfigVO.getClientId(), summaryPrompt,
+                            requestParameter.getSessionId() + "-summary-speculative", 50, "summary", abort.asMono()), stepThreadPoolExecutor);
+            dynamicContext.setValue(SPECULATIVE_SUMMARY_KEY, new SpeculativeSummary(result, abort));
+        } catch (RejectedExecutionException e) {
+            log.info("步骤线程池已满，不预先生成总结");
+        }
+    }
+
+    public void discardSpeculativeSummary(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) {
+        SpeculativeSummary speculativeSummary = dynamicContext.getValue(SPECULATIVE_SUMMARY_KEY);
+        if (null != speculativeSummary) {
+            dynamicContext.setValue(SPECULATIVE_SUMMARY_KEY, null);
+            speculativeSummary.abort();
+            log.info("质量监督未通过，丢弃预先生成的总结");
+        }
+    }
+
+    /**
+     * 取出预先生成的总结；任务未完成、生成失败或等待超时时中止并返回 null，由调用方重新生成
+     */
+    private String takeSpeculativeSummary(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, boolean isCompleted) {
+        SpeculativeSummary speculativeSummary = dynamicContext.getValue(SPECULATIVE_SUMMARY_KEY);
+        if (null == speculativeSummary) {
+            return null;
+        }
+        dynamicContext.setValue(SPECULATIVE_SUMMARY_KEY, null);
+        if (!isCompleted) {
+            speculativeSummary.abort();
+            return null;
+        }
+        // 最多等待 summary-wait，设置截止时间时不超过剩余时间
+        Duration timeout = Duration.ofSeconds(summaryWait);
+        Duration callTimeout = callTimeout(dynamicContext);
+        if (null != callTimeout && callTimeout.compareTo(timeout) < 0) {
+            timeout = callTimeout;
+        }
+        try {
+            String summaryResult = speculativeSummary.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (null == summaryResult) {
+                return null;
+            }
+            log.info("采用预先生成的总结");
+            return summaryResult;
+        } catch (InterruptedException e) {
+            speculativeSummary.abort();
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("预先生成总结失败，重新生成: {}", e.getCause().getMessage());
+            return null;
+        } catch (TimeoutException e) {
+            log.warn("等待预先生成的总结超过 {}ms，中止并重新生成", timeout.toMillis());
+            speculativeSummary.abort();
+            return null;
+        }
+    }
+
+    @Override
+    public AutoAgentExecuteStateVO executeState() {
+        return AutoAgentExecuteStateVO.SUMMARIZE;
+    }
+
     @Override
     public StrategyHandler<ExecuteCommandEntity, DefaultAutoAgentExecuteStrategyFactory.DynamicContext, String> get(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) throws Exception {
         // 总结节点是最后一个节点，返回null表示执行结束
@@ -47,10 +214,10 @@ public class Step4LogExecutionSummaryNode extends AbstractExecuteSupport {
     /**
      * 记录执行总结
      */
-    private void logExecutionSummary(int maxSteps, StringBuilder executionHistory, boolean isCompleted) {
+    private void logExecutionSummary(int maxSteps, ExecutionHistoryEntity executionHistory, boolean isCompleted) {
         log.info("\n📊 === 动态多轮执行总结 ====");
         
-        int actualSteps = Math.min(maxSteps, executionHistory.toString().split("=== 第").length - 1);
+        int actualSteps = Math.min(maxSteps, executionHistory.getStepCount());
         log.info("📈 总执行步数: {} 步", actualSteps);
         
         if (isCompleted) {
@@ -72,128 +239,50 @@ public class Step4LogExecutionSummaryNode extends AbstractExecuteSupport {
             boolean isCompleted = dynamicContext.isCompleted();
             log.info("\n--- 生成{}任务的最终答案 ---", isCompleted ? "已完成" : "未完成");
 
-            String summaryPrompt = getSummaryPrompt(requestParameter, dynamicContext, isCompleted);
+            // 总结边输出边分段，每段结束即推送细分结果
+            String sessionId = requestParameter.getSessionId();
+            log.info("\n📋 === {}任务最终总结报告 ===", isCompleted ? "已完成" : "未完成");
+            StreamingSectionParser parser = SUMMARY_SECTION_RULES.newParser((subType, content) ->
+                    sendSummarySubResult(dynamicContext, subType, content, sessionId));
 
-            // 获取对话客户端 - 使用任务分析客户端进行总结
-            AiAgentClientFlowConfigVO aiAgentClientFlowConfigVO = dynamicContext.getAiAgentClientFlowConfigVOMap().get(AiClientTypeEnumVO.RESPONSE_ASSISTANT.getCode());
-            ChatClient chatClient = getChatClientByClientId(aiAgentClientFlowConfigVO.getClientId());
-            
-            String summaryResult = chatClient
-                    .prompt(summaryPrompt)
-                    .advisors(a -> a
-                            .param(CHAT_MEMORY_CONVERSATION_ID_KEY, requestParameter.getSessionId() + "-summary")
-                            .param(CHAT_MEMORY_RETRIEVE_SIZE_KEY, 50))
-                    .call().content();
+            String summaryResult = takeSpeculativeSummary(dynamicContext, isCompleted);
+            if (null != summaryResult) {
+                parser.feed(summaryResult);
+                parser.finish();
+            } else {
+                AssembledPrompt summaryPrompt = getSummaryPrompt(requestParameter, dynamicContext.getExecutionHistory(), isCompleted);
+
+                // 获取对话客户端 - 使用任务分析客户端进行总结
+                AiAgentClientFlowConfigVO aiAgentClientFlowConfigVO = dynamicContext.getAiAgentClientFlowConfigVOMap().get(AiClientTypeEnumVO.RESPONSE_ASSISTANT.getCode());
+
+                summaryResult = stream(dynamicContext, aiAgentClientFlowConfigVO.getClientId(), summaryPrompt, sessionId + "-summary", 50,
+                        sessionId, "summary", parser);
+            }
 
             assert summaryResult != null;
-            logFinalReport(dynamicContext, summaryResult, requestParameter.getSessionId());
+            logFinalReport(dynamicContext, summaryResult, sessionId);
             
             // 将总结结果保存到动态上下文中
             dynamicContext.setValue("finalSummary", summaryResult);
             
+        } catch (AppException e) {
+            // 取消或超出截止时间，保留检查点，由调用方结束会话
+            throw e;
         } catch (Exception e) {
             log.error("生成最终总结报告时出现异常: {}", e.getMessage(), e);
         }
     }
 
-    private static String getSummaryPrompt(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, boolean isCompleted) {
-        String summaryPrompt;
-        if (isCompleted) {
-            summaryPrompt = String.format("""
-                    基于以下执行过程，请直接回答用户的原始问题，提供最终的答案和结果：
-                    
-                    **用户原始问题:** %s
-                    
-                    **执行历史和过程:**
-                    %s
-                    
-                    **要求:**
-                    1. 直接回答用户的原始问题
-                    2. 基于执行过程中获得的信息和结果
-                    3. 提供具体、实用的最终答案
-                    4. 如果是要求制定计划、列表等，请直接给出完整的内容
-                    5. 避免只描述执行过程，重点是最终答案
-                    6. 以MD语法的表格形式，优化展示结果数据
-                    
-                    请直接给出用户问题的最终答案：
-                    """,
-                    requestParameter.getMessage(),
-                    dynamicContext.getExecutionHistory().toString());
-        } else {
-            summaryPrompt = String.format("""
-                    虽然任务未完全执行完成，但请基于已有的执行过程，尽力回答用户的原始问题：
-                    
-                    **用户原始问题:** %s
-                    
-                    **已执行的过程和获得的信息:**
-                    %s
-                    
-                    **要求:**
-                    1. 基于已有信息，尽力回答用户的原始问题
-                    2. 如果信息不足，说明哪些部分无法完成并给出原因
-                    3. 提供已能确定的部分答案
-                    4. 给出完成剩余部分的具体建议
-                    5. 以MD语法的表格形式，优化展示结果数据
-                    
-                    请基于现有信息给出用户问题的答案：
-                    """,
-                    requestParameter.getMessage(),
-                    dynamicContext.getExecutionHistory().toString());
-        }
-        return summaryPrompt;
+    private AssembledPrompt getSummaryPrompt(ExecuteCommandEntity requestParameter, ExecutionHistoryEntity executionHistory, boolean isCompleted) {
+        return promptAssembler.assemble(isCompleted ? SUMMARY_COMPLETED_TEMPLATE : SUMMARY_INCOMPLETE_TEMPLATE,
+                requestParameter.getMessage(),
+                executionHistory.toString());
     }
 
     /**
-     * 输出最终总结报告
+     * 输出最终总结报告；细分结果已在生成过程中逐段推送，这里发送完整结果与完成标识
      */
     private void logFinalReport(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, String summaryResult, String sessionId) {
-        boolean isCompleted = dynamicContext.isCompleted();
-        log.info("\n📋 === {}任务最终总结报告 ===", isCompleted ? "已完成" : "未完成");
-
-        String[] lines = summaryResult.split("\n");
-        String currentSection = "summary_overview";
-        StringBuilder sectionContent = new StringBuilder();
-        
-        for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty()) continue;
-            
-            // 检测是否开始新的总结部分
-            String newSection = detectSummarySection(line);
-            if (newSection != null && !newSection.equals(currentSection)) {
-                // 发送前一个部分的内容
-                if (!sectionContent.isEmpty()) {
-                    sendSummarySubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-                }
-                currentSection = newSection;
-                sectionContent.setLength(0);
-            }
-            
-            // 收集当前部分的内容
-            if (!sectionContent.isEmpty()) {
-                sectionContent.append("\n");
-            }
-            sectionContent.append(line);
-            
-            // 根据内容类型添加不同图标
-            if (line.contains("已完成") || line.contains("完成的工作")) {
-                log.info("✅ {}", line);
-            } else if (line.contains("未完成") || line.contains("原因")) {
-                log.info("❌ {}", line);
-            } else if (line.contains("建议") || line.contains("推荐")) {
-                log.info("💡 {}", line);
-            } else if (line.contains("评估") || line.contains("效果")) {
-                log.info("📊 {}", line);
-            } else {
-                log.info("📝 {}", line);
-            }
-        }
-        
-        // 发送最后一个部分的内容
-        if (!sectionContent.isEmpty()) {
-            sendSummarySubResult(dynamicContext, currentSection, sectionContent.toString(), sessionId);
-        }
-        
         // 发送完整的总结结果
         sendSummaryResult(dynamicContext, summaryResult, sessionId);
         
@@ -216,6 +305,7 @@ public class Step4LogExecutionSummaryNode extends AbstractExecuteSupport {
      */
     private void sendSummarySubResult(DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext, 
                                      String subType, String content, String sessionId) {
+        log.info("\n📝 {}:\n{}", subType, content);
         AutoAgentExecuteResultEntity result = AutoAgentExecuteResultEntity.createSummarySubResult(
                 subType, content, sessionId);
         sendSseResult(dynamicContext, result);
@@ -229,25 +319,26 @@ public class Step4LogExecutionSummaryNode extends AbstractExecuteSupport {
         sendSseResult(dynamicContext, result);
         log.info("✅ 已发送完成标识");
     }
-    
+
     /**
-     * 检测总结部分标识
+     * 预先生成的总结；中止信号断开进行中的模型请求
      */
-    private String detectSummarySection(String content) {
-        if (content.contains("已完成的工作") || content.contains("完成的工作") || content.contains("工作内容和成果")) {
-            return "completed_work";
-        } else if (content.contains("未完成的原因") || content.contains("未完成原因")) {
-            return "incomplete_reasons";
-        } else if (content.contains("关键因素") || content.contains("完成的关键因素")) {
-            return "key_factors";
-        } else if (content.contains("执行效率") || content.contains("执行效率和质量")) {
-            return "efficiency_quality";
-        } else if (content.contains("完成剩余任务的建议") || content.contains("建议") || content.contains("优化建议") || content.contains("经验总结")) {
-            return "suggestions";
-        } else if (content.contains("整体执行效果") || content.contains("评估")) {
-            return "evaluation";
+    private static class SpeculativeSummary {
+
+        private final CompletableFuture<String> result;
+
+        private final Sinks.Empty<Void> abortSignal;
+
+        private SpeculativeSummary(CompletableFuture<String> result, Sinks.Empty<Void> abortSignal) {
+            this.result = result;
+            this.abortSignal = abortSignal;
+        }
+
+        private void abort() {
+            abortSignal.tryEmitEmpty();
+            result.cancel(false);
         }
-        return null;
+
     }
 
 }
@@ -1,8 +1,12 @@
 package cn.bugstack.ai.domain.agent.service.execute.auto.step.factory;
 
 import cn.bugstack.ai.domain.agent.model.entity.ExecuteCommandEntity;
+import cn.bugstack.ai.domain.agent.model.entity.ExecutionHistoryEntity;
 import cn.bugstack.ai.domain.agent.model.valobj.AiAgentClientFlowConfigVO;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AutoAgentExecuteStateVO;
+import cn.bugstack.ai.domain.agent.service.armory.registry.AgentComponentGeneration;
 import cn.bugstack.ai.domain.agent.service.execute.auto.step.RootNode;
+import cn.bugstack.ai.domain.agent.service.execute.cancel.ExecuteCancellationToken;
 import cn.bugstack.wrench.design.framework.tree.StrategyHandler;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -44,14 +48,24 @@ public class DefaultAutoAgentExecuteStrategyFactory {
         // 最大任务步骤
         private int maxStep = 1;
 
-        private StringBuilder executionHistory;
+        // 执行历史，按 token 预算压缩
+        private ExecutionHistoryEntity executionHistory;
 
         private String currentTask;
 
         boolean isCompleted = false;
 
+        // 当前执行状态，由根节点驱动循环维护；步骤之间可据此挂起、恢复
+        private AutoAgentExecuteStateVO state;
+
         private Map<String, AiAgentClientFlowConfigVO> aiAgentClientFlowConfigVOMap;
 
+        // 会话固定的组件代，执行期间只从该代获取对话客户端
+        private AgentComponentGeneration generation;
+
+        // 取消令牌，客户端断开或超出截止时间时取消
+        private ExecuteCancellationToken cancellationToken;
+
         private Map<String, Object> dataObjects = new HashMap<>();
 
         public <T> void setValue(String key, T value) {
@@ -0,0 +1,171 @@
+package cn.bugstack.ai.domain.agent.service.execute.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 智能体最终答案语义缓存；已完成任务的用户输入向量化写入独立的 pgvector 表，答案存于元数据。
+ * 执行前以用户输入检索同一智能体、未过期且相似度不低于阈值的答案，命中时直接返回，不再执行分析、执行、监督、总结循环。
+ * 默认关闭，可按智能体开启；未配置 answerCacheVectorStore（pgvector 数据源缺失）时视为关闭。过期记录定时清理。
+ *
+ * @author jinjie
+ * 2025/8/16 20:10
+ */
+@Slf4j
+@Service
+public class AgentAnswerCache {
+
+    private static final String META_AI_AGENT_ID = "aiAgentId";
+    private static final String META_ANSWER = "answer";
+    private static final String META_SESSION_ID = "sessionId";
+    private static final String META_CREATE_TIME = "createTime";
+
+    /**
+     * 答案向量库为条件装配，可能不存在
+     */
+    @Autowired
+    @Qualifier("answerCacheVectorStore")
+    private ObjectProvider<VectorStore> answerCacheVectorStoreProvider;
+
+    private VectorStore answerCacheVectorStore;
+
+    @Resource
+    private ThreadPoolExecutor threadPoolExecutor;
+
+    @Value("${spring.ai.agent.execute.answer-cache.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 开启缓存的智能体ID，为空时全部智能体开启
+     */
+    @Value("${spring.ai.agent.execute.answer-cache.ai-agent-ids:}")
+    private Set<String> aiAgentIds;
+
+    @Value("${spring.ai.agent.execute.answer-cache.similarity-threshold:0.92}")
+    private double similarityThreshold;
+
+    /**
+     * 答案有效期（分钟）
+     */
+    @Value("${spring.ai.agent.execute.answer-cache.ttl:1440}")
+    private long ttl;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        aiAgentIds = null == aiAgentIds ? Set.of() : aiAgentIds.stream()
+                .map(String::trim)
+                .filter(aiAgentId -> !aiAgentId.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        answerCacheVectorStore = answerCacheVectorStoreProvider.getIfAvailable();
+        if (enabled && null == answerCacheVectorStore) {
+            log.warn("智能体答案缓存已开启，但未配置 answerCacheVectorStore，缓存不生效");
+        }
+    }
+
+    public boolean isEnabled(String aiAgentId) {
+        return enabled && null != answerCacheVectorStore && (aiAgentIds.isEmpty() || aiAgentIds.contains(aiAgentId));
+    }
+
+    /**
+     * 检索相似问题的答案；检索失败按未命中处理
+     *
+     * @return 答案，未开启或未命中时返回 null
+     */
+    public String lookup(String aiAgentId, String message) {
+        if (!isEnabled(aiAgentId) || null == message || message.isBlank()) {
+            return null;
+        }
+        try {
+            long minCreateTime = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(ttl);
+            FilterExpressionBuilder b = new FilterExpressionBuilder();
+            List<Document> documents = answerCacheVectorStore.similaritySearch(SearchRequest.builder()
+                    .query(message)
+                    .topK(1)
+                    .similarityThreshold(similarityThreshold)
+                    .filterExpression(b.and(b.eq(META_AI_AGENT_ID, aiAgentId), b.gte(META_CREATE_TIME, minCreateTime)).build())
+                    .build());
+
+            if (null == documents || documents.isEmpty()) {
+                misses.incrementAndGet();
+                return null;
+            }
+
+            Document document = documents.get(0);
+            Object answer = document.getMetadata().get(META_ANSWER);
+            if (!(answer instanceof String) || ((String) answer).isEmpty()) {
+                misses.incrementAndGet();
+                return null;
+            }
+            long hitCount = hits.incrementAndGet();
+            log.info("智能体答案缓存命中 aiAgentId:{} score:{} question:{} | 累计 命中:{} 未命中:{}",
+                    aiAgentId, document.getScore(), document.getText(), hitCount, misses.get());
+            return (String) answer;
+        } catch (Exception e) {
+            misses.incrementAndGet();
+            log.warn("智能体答案缓存检索失败 aiAgentId:{}", aiAgentId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 异步写入已完成任务的答案，向量化不占用执行线程
+     */
+    public void store(String aiAgentId, String sessionId, String message, String answer) {
+        if (!isEnabled(aiAgentId) || null == message || message.isBlank() || null == answer || answer.isBlank()) {
+            return;
+        }
+        threadPoolExecutor.execute(() -> {
+            try {
+                Document document = new Document(message, Map.of(
+                        META_AI_AGENT_ID, aiAgentId,
+                        META_ANSWER, answer,
+                        META_SESSION_ID, null == sessionId ? "" : sessionId,
+                        META_CREATE_TIME, System.currentTimeMillis()));
+                answerCacheVectorStore.add(List.of(document));
+            } catch (Exception e) {
+                log.warn("智能体答案缓存写入失败 aiAgentId:{} sessionId:{}", aiAgentId, sessionId, e);
+            }
+        });
+    }
+
+    /**
+     * 清理过期答案
+     */
+    @Scheduled(fixedDelayString = "${spring.ai.agent.execute.answer-cache.cleanup-interval:3600000}")
+    public void cleanup() {
+        if (!enabled || null == answerCacheVectorStore) {
+            return;
+        }
+        try {
+            long minCreateTime = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(ttl);
+            FilterExpressionBuilder b = new FilterExpressionBuilder();
+            answerCacheVectorStore.delete(b.lt(META_CREATE_TIME, minCreateTime).build());
+        } catch (Exception e) {
+            log.warn("智能体答案缓存清理失败", e);
+        }
+    }
+
+}
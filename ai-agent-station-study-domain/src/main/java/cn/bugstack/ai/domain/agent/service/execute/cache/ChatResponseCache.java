@@ -0,0 +1,112 @@
+package cn.bugstack.ai.domain.agent.service.execute.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.Hashing;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 模型应答精确匹配缓存；步骤调用以（客户端ID、客户端配置指纹、完整提示词）的摘要为键，命中时不再调用模型。
+ * 客户端配置指纹由装配时的模型、系统提示词、顾问等依赖版本组成，重新装配后自然失效，旧条目由容量与过期时间淘汰。
+ * 键中不含会话记忆，命中时也不会执行工具调用，因此只缓存未挂载 MCP 工具和对话记忆顾问的客户端，由调用方判断。
+ * 默认关闭，可按客户端开启；容量有界（LRU），写入后超过 expire-after 过期。
+ *
+ * @author jinjie
+ * 2025/8/16 17:05
+ */
+@Slf4j
+@Service
+public class ChatResponseCache {
+
+    @Value("${spring.ai.agent.execute.response-cache.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 开启缓存的客户端ID，为空时全部客户端开启
+     */
+    @Value("${spring.ai.agent.execute.response-cache.client-ids:}")
+    private Set<String> clientIds;
+
+    @Value("${spring.ai.agent.execute.response-cache.maximum-size:1000}")
+    private long maximumSize;
+
+    @Value("${spring.ai.agent.execute.response-cache.expire-after:60}")
+    private long expireAfter;
+
+    private Cache<String, String> cache;
+
+    @PostConstruct
+    public void init() {
+        clientIds = null == clientIds ? Set.of() : clientIds.stream()
+                .map(String::trim)
+                .filter(clientId -> !clientId.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfter, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled(String clientId) {
+        return enabled && (clientIds.isEmpty() || clientIds.contains(clientId));
+    }
+
+    /**
+     * 查询缓存的应答
+     *
+     * @return 应答文本，未开启或未命中时返回 null
+     */
+    public String get(String clientId, String clientFingerprint, String prompt) {
+        if (!isEnabled(clientId)) {
+            return null;
+        }
+        return cache.getIfPresent(key(clientId, clientFingerprint, prompt));
+    }
+
+    public void put(String clientId, String clientFingerprint, String prompt, String content) {
+        if (!isEnabled(clientId) || null == content || content.isEmpty()) {
+            return;
+        }
+        cache.put(key(clientId, clientFingerprint, prompt), content);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private String key(String clientId, String clientFingerprint, String prompt) {
+        return Hashing.sha256().newHasher()
+                .putString(clientId, StandardCharsets.UTF_8)
+                .putChar('\n')
+                .putString(null == clientFingerprint ? "" : clientFingerprint, StandardCharsets.UTF_8)
+                .putChar('\n')
+                .putString(prompt, StandardCharsets.UTF_8)
+                .hash()
+                .toString();
+    }
+
+    @Scheduled(fixedDelayString = "${spring.ai.agent.execute.response-cache.stats-interval:300000}")
+    public void logStats() {
+        if (!enabled) {
+            return;
+        }
+        CacheStats stats = cache.stats();
+        if (stats.requestCount() == 0) {
+            return;
+        }
+        log.info("模型应答缓存 size:{} hit:{} miss:{} hitRate:{} eviction:{}",
+                cache.size(), stats.hitCount(), stats.missCount(), String.format("%.4f", stats.hitRate()), stats.evictionCount());
+    }
+
+}
@@ -0,0 +1,88 @@
+package cn.bugstack.ai.domain.agent.service.execute.cancel;
+
+import cn.bugstack.ai.types.enums.ResponseCode;
+import cn.bugstack.ai.types.exception.AppException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行取消令牌；客户端断开、推送失败或超出截止时间时取消，各节点在每次调用模型前检查。
+ * 模型调用均以流式请求发出并订阅取消信号，取消时中止进行中的请求。
+ *
+ * @author jinjie
+ * 2025/8/16 15:10
+ */
+public class ExecuteCancellationToken {
+
+    /**
+     * 截止时间（System.nanoTime），0 表示不限制
+     */
+    private final long deadlineNanos;
+
+    private final Sinks.Empty<Void> cancelled = Sinks.empty();
+
+    private volatile String reason;
+
+    public ExecuteCancellationToken(Integer timeoutSeconds) {
+        this.deadlineNanos = null == timeoutSeconds || timeoutSeconds <= 0
+                ? 0L
+                : System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+    }
+
+    /**
+     * 取消执行；只记录第一次取消的原因
+     */
+    public synchronized void cancel(String reason) {
+        if (null != this.reason) {
+            return;
+        }
+        this.reason = reason;
+        cancelled.tryEmitEmpty();
+    }
+
+    public boolean isCancelled() {
+        return null != reason;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * 取消信号，供流式调用 takeUntilOther 中止请求
+     */
+    public Mono<Void> onCancel() {
+        return cancelled.asMono();
+    }
+
+    public boolean hasDeadline() {
+        return deadlineNanos > 0;
+    }
+
+    /**
+     * 距截止时间的剩余时间；不限制时返回 null
+     */
+    public Duration remaining() {
+        if (!hasDeadline()) {
+            return null;
+        }
+        return Duration.ofNanos(Math.max(0L, deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * 已取消或已超出截止时间时抛出异常
+     */
+    public void throwIfCancelled() {
+        if (hasDeadline() && System.nanoTime() - deadlineNanos >= 0) {
+            cancel("deadline exceeded");
+            throw new AppException(ResponseCode.EXECUTE_DEADLINE_EXCEEDED.getCode(), ResponseCode.EXECUTE_DEADLINE_EXCEEDED.getInfo());
+        }
+        if (isCancelled()) {
+            throw new AppException(ResponseCode.EXECUTE_CANCELLED.getCode(), ResponseCode.EXECUTE_CANCELLED.getInfo() + "：" + reason);
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+package cn.bugstack.ai.domain.agent.service.execute.checkpoint;
+
+import cn.bugstack.ai.domain.agent.adapter.repository.IExecuteCheckpointRepository;
+import cn.bugstack.ai.domain.agent.model.entity.ExecuteCheckpointEntity;
+import cn.bugstack.ai.domain.agent.model.entity.ExecuteCommandEntity;
+import cn.bugstack.ai.domain.agent.model.entity.ExecutionHistoryEntity;
+import cn.bugstack.ai.domain.agent.model.valobj.AiAgentClientFlowConfigVO;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AutoAgentExecuteStateVO;
+import cn.bugstack.ai.domain.agent.service.execute.auto.step.factory.DefaultAutoAgentExecuteStrategyFactory;
+import cn.bugstack.ai.types.enums.ResponseCode;
+import cn.bugstack.ai.types.exception.AppException;
+import com.alibaba.fastjson.JSON;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行检查点服务；每个节点完成后把动态上下文中可恢复的部分同步写入本地检查点，
+ * 会话异常中断后以同一会话ID重新提交，从最后一个检查点继续，已完成的步骤不再调用模型。
+ * 执行结束后删除检查点；智能体、用户输入或客户端执行配置与检查点不一致时检查点作废，超过有效期未继续的检查点定时清理。
+ * 同一会话ID同时只允许一个执行，并发提交的请求直接拒绝，避免交替读写同一个检查点。
+ *
+ * @author jinjie
+ * 2025/8/16 10:40
+ */
+@Slf4j
+@Service
+public class ExecuteCheckpointService {
+
+    @Resource
+    private IExecuteCheckpointRepository executeCheckpointRepository;
+
+    @Value("${spring.ai.agent.execute.checkpoint.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 检查点有效期（分钟）
+     */
+    @Value("${spring.ai.agent.execute.checkpoint.ttl:1440}")
+    private long ttl;
+
+    /**
+     * 正在执行的会话ID
+     */
+    private final Set<String> runningSessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 占用会话；同一会话ID已在执行时拒绝
+     *
+     * @throws AppException 会话正在执行
+     */
+    public void lock(String sessionId) {
+        if (!enabled(sessionId)) {
+            return;
+        }
+        if (!runningSessions.add(sessionId)) {
+            throw new AppException(ResponseCode.EXECUTE_SESSION_RUNNING.getCode(),
+                    ResponseCode.EXECUTE_SESSION_RUNNING.getInfo() + "，请等待结束后再提交 sessionId:" + sessionId);
+        }
+    }
+
+    /**
+     * 释放会话，只在 {@link #lock} 成功后调用
+     */
+    public void unlock(String sessionId) {
+        if (!enabled(sessionId)) {
+            return;
+        }
+        runningSessions.remove(sessionId);
+    }
+
+    /**
+     * 记录检查点
+     *
+     * @param requestParameter 执行命令
+     * @param dynamicContext   动态上下文
+     * @param nextState        恢复后执行的状态
+     */
+    public void checkpoint(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext,
+                           AutoAgentExecuteStateVO nextState) {
+        if (!enabled(requestParameter.getSessionId())) {
+            return;
+        }
+        ExecutionHistoryEntity executionHistory = dynamicContext.getExecutionHistory();
+        ExecuteCheckpointEntity executeCheckpointEntity = ExecuteCheckpointEntity.builder()
+                .sessionId(requestParameter.getSessionId())
+                .aiAgentId(requestParameter.getAiAgentId())
+                .message(requestParameter.getMessage())
+                .state(nextState.name())
+                .step(dynamicContext.getStep())
+                .maxStep(dynamicContext.getMaxStep())
+                .currentTask(dynamicContext.getCurrentTask())
+                .completed(dynamicContext.isCompleted())
+                .historyOmittedSteps(executionHistory.getOmittedSteps())
+                .historySteps(executionHistory.snapshot())
+                .analysisResult(dynamicContext.getValue("analysisResult"))
+                .executionResult(dynamicContext.getValue("executionResult"))
+                .supervisionResult(dynamicContext.getValue("supervisionResult"))
+                .flowConfigVersion(flowConfigVersion(dynamicContext.getAiAgentClientFlowConfigVOMap()))
+                .updateTime(System.currentTimeMillis())
+                .build();
+        executeCheckpointRepository.save(executeCheckpointEntity);
+    }
+
+    /**
+     * 从检查点恢复动态上下文；需先设置客户端执行配置和空的执行历史
+     *
+     * @return 是否已恢复
+     */
+    public boolean restore(ExecuteCommandEntity requestParameter, DefaultAutoAgentExecuteStrategyFactory.DynamicContext dynamicContext) {
+        if (!enabled(requestParameter.getSessionId())) {
+            return false;
+        }
+        ExecuteCheckpointEntity checkpoint = executeCheckpointRepository.load(requestParameter.getSessionId());
+        if (null == checkpoint) {
+            return false;
+        }
+
+        if (isExpired(checkpoint)) {
+            log.info("执行检查点已过期，重新执行 sessionId:{}", requestParameter.getSessionId());
+            executeCheckpointRepository.delete(requestParameter.getSessionId());
+            return false;
+        }
+
+        if (!Objects.equals(checkpoint.getAiAgentId(), requestParameter.getAiAgentId())
+                || !Objects.equals(checkpoint.getMessage(), requestParameter.getMessage())) {
+            log.info("执行检查点与请求不一致，重新执行 sessionId:{}", requestParameter.getSessionId());
+            executeCheckpointRepository.delete(requestParameter.getSessionId());
+            return false;
+        }
+        if (!Objects.equals(checkpoint.getFlowConfigVersion(), flowConfigVersion(dynamicContext.getAiAgentClientFlowConfigVOMap()))) {
+            log.info("客户端执行配置已变更，执行检查点作废 sessionId:{}", requestParameter.getSessionId());
+            executeCheckpointRepository.delete(requestParameter.getSessionId());
+            return false;
+        }
+
+        AutoAgentExecuteStateVO state = AutoAgentExecuteStateVO.valueOf(checkpoint.getState());
+        if (AutoAgentExecuteStateVO.DONE == state) {
+            return false;
+        }
+
+        dynamicContext.setStep(checkpoint.getStep());
+        dynamicContext.setMaxStep(checkpoint.getMaxStep());
+        dynamicContext.setCurrentTask(checkpoint.getCurrentTask());
+        dynamicContext.setCompleted(Boolean.TRUE.equals(checkpoint.getCompleted()));
+        dynamicContext.getExecutionHistory().restore(null == checkpoint.getHistoryOmittedSteps() ? 0 : checkpoint.getHistoryOmittedSteps(),
+                checkpoint.getHistorySteps());
+        dynamicContext.setValue("analysisResult", checkpoint.getAnalysisResult());
+        dynamicContext.setValue("executionResult", checkpoint.getExecutionResult());
+        dynamicContext.setValue("supervisionResult", checkpoint.getSupervisionResult());
+        dynamicContext.setState(state);
+
+        log.info("从执行检查点恢复 sessionId:{} step:{} state:{}", requestParameter.getSessionId(), checkpoint.getStep(), state);
+        return true;
+    }
+
+    /**
+     * 执行结束，删除检查点
+     */
+    public void clear(String sessionId) {
+        if (!enabled(sessionId)) {
+            return;
+        }
+        executeCheckpointRepository.delete(sessionId);
+    }
+
+    /**
+     * 清理过期的检查点
+     */
+    @Scheduled(fixedDelayString = "${spring.ai.agent.execute.checkpoint.cleanup-interval:3600000}")
+    public void cleanup() {
+        if (!enabled) {
+            return;
+        }
+        int deleted = executeCheckpointRepository.deleteExpired(expireBefore());
+        if (deleted > 0) {
+            log.info("清理过期执行检查点 {} 个", deleted);
+        }
+    }
+
+    private boolean isExpired(ExecuteCheckpointEntity checkpoint) {
+        return null != checkpoint.getUpdateTime() && checkpoint.getUpdateTime() < expireBefore();
+    }
+
+    private long expireBefore() {
+        return System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(ttl);
+    }
+
+    private boolean enabled(String sessionId) {
+        return enabled && null != sessionId && !sessionId.isBlank();
+    }
+
+    /**
+     * 客户端执行配置版本；按客户端类型排序后的配置摘要
+     */
+    private String flowConfigVersion(Map<String, AiAgentClientFlowConfigVO> aiAgentClientFlowConfigVOMap) {
+        if (null == aiAgentClientFlowConfigVOMap) {
+            return null;
+        }
+        String content = JSON.toJSONString(new TreeMap<>(aiAgentClientFlowConfigVOMap));
+        return DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
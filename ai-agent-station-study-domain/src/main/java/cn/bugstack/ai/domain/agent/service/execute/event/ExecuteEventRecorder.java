@@ -0,0 +1,194 @@
+package cn.bugstack.ai.domain.agent.service.execute.event;
+
+import cn.bugstack.ai.domain.agent.adapter.repository.IExecuteEventRepository;
+import cn.bugstack.ai.domain.agent.model.entity.AutoAgentExecuteResultEntity;
+import cn.bugstack.ai.domain.agent.model.entity.ExecuteSessionEntity;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 执行事件记录；写后落库（write-behind）。
+ * 执行线程只把会话、事件放入有界队列，由单独的写入线程攒批写库：攒满 flush-size 或距批次首条超过 flush-interval 即写入。
+ * 队列满时执行线程最多等待 offer-timeout，仍无空位则丢弃并计数，持久化不拖慢 SSE 推送；写库失败的批次记录日志后丢弃。
+ *
+ * @author jinjie
+ * 2025/8/14 10:40
+ */
+@Slf4j
+@Service
+public class ExecuteEventRecorder {
+
+    @Resource
+    private IExecuteEventRepository executeEventRepository;
+
+    @Value("${spring.ai.agent.execute.event-sink.enabled:true}")
+    private boolean enabled;
+
+    @Value("${spring.ai.agent.execute.event-sink.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${spring.ai.agent.execute.event-sink.flush-size:200}")
+    private int flushSize;
+
+    @Value("${spring.ai.agent.execute.event-sink.flush-interval:1000}")
+    private long flushInterval;
+
+    @Value("${spring.ai.agent.execute.event-sink.offer-timeout:0}")
+    private long offerTimeout;
+
+    /**
+     * 待写入的会话（ExecuteSessionEntity）与事件（AutoAgentExecuteResultEntity）
+     */
+    private BlockingQueue<Object> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    /**
+     * 因队列满被丢弃的条数
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * 写库失败丢弃的条数
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::drainLoop, "execute-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public void recordSessionStart(ExecuteSessionEntity session) {
+        offer(session);
+    }
+
+    public void recordSessionEnd(ExecuteSessionEntity session) {
+        offer(session);
+    }
+
+    public void recordEvent(AutoAgentExecuteResultEntity event) {
+        offer(event);
+    }
+
+    private void offer(Object record) {
+        if (!running) {
+            return;
+        }
+        try {
+            boolean accepted = offerTimeout > 0
+                    ? queue.offer(record, offerTimeout, TimeUnit.MILLISECONDS)
+                    : queue.offer(record);
+            if (!accepted) {
+                long count = dropped.incrementAndGet();
+                // 持续积压时按数量级打印，避免日志放大
+                if (Long.bitCount(count) == 1) {
+                    log.warn("执行事件队列已满，丢弃事件 dropped:{} capacity:{}", count, queueCapacity);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drainLoop() {
+        List<Object> batch = new ArrayList<>(flushSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (null == first) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 攒批：满 flush-size 或自首条起超过 flush-interval
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < flushSize) {
+                    if (queue.drainTo(batch, flushSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0 || !running) {
+                        break;
+                    }
+                    Object next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (null == next) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Object> batch) {
+        List<ExecuteSessionEntity> sessions = new ArrayList<>();
+        List<AutoAgentExecuteResultEntity> events = new ArrayList<>(batch.size());
+        for (Object record : batch) {
+            if (record instanceof ExecuteSessionEntity session) {
+                sessions.add(session);
+            } else {
+                events.add((AutoAgentExecuteResultEntity) record);
+            }
+        }
+
+        if (!sessions.isEmpty()) {
+            try {
+                executeEventRepository.saveExecuteSessions(sessions);
+            } catch (Exception e) {
+                failed.addAndGet(sessions.size());
+                log.error("执行会话批量写入失败 size:{}", sessions.size(), e);
+            }
+        }
+        if (!events.isEmpty()) {
+            try {
+                executeEventRepository.saveExecuteEvents(events);
+            } catch (Exception e) {
+                failed.addAndGet(events.size());
+                log.error("执行事件批量写入失败 size:{}", events.size(), e);
+            }
+        }
+    }
+
+    /**
+     * 停止接收，写完队列中剩余数据后退出
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        // 不中断写入线程，避免打断进行中的 JDBC 调用；轮询间隔内即可感知停止
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        log.info("执行事件写入线程退出 dropped:{} failed:{} remaining:{}", dropped.get(), failed.get(), queue.size());
+    }
+
+}
@@ -0,0 +1,90 @@
+package cn.bugstack.ai.domain.agent.service.execute.parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * 多关键词匹配（Aho-Corasick）；一次扫描找出文本中出现的所有关键词，返回其中规则序号最小者
+ *
+ * @author jinjie
+ * 2025/8/15 16:20
+ */
+class KeywordMatcher {
+
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+
+    private final List<Integer> failure = new ArrayList<>();
+
+    /**
+     * 节点（含失败链上）可命中的最小规则序号，无则为 Integer.MAX_VALUE
+     */
+    private final List<Integer> output = new ArrayList<>();
+
+    KeywordMatcher(List<String> keywords, List<Integer> ruleIndexes) {
+        newNode();
+        for (int i = 0; i < keywords.size(); i++) {
+            int node = 0;
+            for (char c : keywords.get(i).toCharArray()) {
+                Integer next = transitions.get(node).get(c);
+                if (null == next) {
+                    next = newNode();
+                    transitions.get(node).put(c, next);
+                }
+                node = next;
+            }
+            output.set(node, Math.min(output.get(node), ruleIndexes.get(i)));
+        }
+
+        // 广度优先构建失败指针，并沿失败链合并输出
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : transitions.get(0).values()) {
+            failure.set(child, 0);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (Map.Entry<Character, Integer> entry : transitions.get(node).entrySet()) {
+                int child = entry.getValue();
+                int fail = failure.get(node);
+                while (fail != 0 && !transitions.get(fail).containsKey(entry.getKey())) {
+                    fail = failure.get(fail);
+                }
+                Integer target = transitions.get(fail).get(entry.getKey());
+                failure.set(child, null != target && target != child ? target : 0);
+                output.set(child, Math.min(output.get(child), output.get(failure.get(child))));
+                queue.add(child);
+            }
+        }
+    }
+
+    private int newNode() {
+        transitions.add(new HashMap<>());
+        failure.add(0);
+        output.add(Integer.MAX_VALUE);
+        return transitions.size() - 1;
+    }
+
+    /**
+     * 匹配文本
+     *
+     * @return 命中的最小规则序号，未命中返回 -1
+     */
+    int match(CharSequence text) {
+        int best = Integer.MAX_VALUE;
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            while (node != 0 && !transitions.get(node).containsKey(c)) {
+                node = failure.get(node);
+            }
+            node = transitions.get(node).getOrDefault(c, 0);
+            best = Math.min(best, output.get(node));
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+}
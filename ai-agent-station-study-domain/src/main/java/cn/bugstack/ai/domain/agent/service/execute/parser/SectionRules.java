@@ -0,0 +1,99 @@
+package cn.bugstack.ai.domain.agent.service.execute.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * 分段规则；各阶段输出按标题行划分为细分结果。规则按声明顺序优先，同一行命中多个标题时取先声明者。
+ * 规则构建一次、可共享，每次解析通过 {@link #newParser} 创建解析器。
+ *
+ * @author jinjie
+ * 2025/8/15 16:25
+ */
+public class SectionRules {
+
+    /**
+     * 标题行的处理方式
+     */
+    public enum HeaderMode {
+        /**
+         * 标题行不计入内容
+         */
+        SKIP,
+        /**
+         * 标题行整行计入内容
+         */
+        LINE,
+        /**
+         * 只取标题行冒号（半角或全角）后的值
+         */
+        VALUE
+    }
+
+    final List<String> subTypes;
+
+    final List<HeaderMode> headerModes;
+
+    final KeywordMatcher matcher;
+
+    /**
+     * 首个标题之前内容所属的细分类型；为 null 时丢弃
+     */
+    final String initialSubType;
+
+    private SectionRules(List<String> subTypes, List<HeaderMode> headerModes, KeywordMatcher matcher, String initialSubType) {
+        this.subTypes = subTypes;
+        this.headerModes = headerModes;
+        this.matcher = matcher;
+        this.initialSubType = initialSubType;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 创建解析器
+     *
+     * @param sectionConsumer 段落结束时回调（细分类型, 内容）
+     */
+    public StreamingSectionParser newParser(BiConsumer<String, String> sectionConsumer) {
+        return new StreamingSectionParser(this, sectionConsumer);
+    }
+
+    public static class Builder {
+
+        private final List<String> subTypes = new ArrayList<>();
+
+        private final List<HeaderMode> headerModes = new ArrayList<>();
+
+        private final List<String> keywords = new ArrayList<>();
+
+        private final List<Integer> ruleIndexes = new ArrayList<>();
+
+        private String initialSubType;
+
+        public Builder section(String subType, HeaderMode headerMode, String... sectionKeywords) {
+            int ruleIndex = subTypes.size();
+            subTypes.add(subType);
+            headerModes.add(headerMode);
+            for (String keyword : sectionKeywords) {
+                keywords.add(keyword.replace('：', ':'));
+                ruleIndexes.add(ruleIndex);
+            }
+            return this;
+        }
+
+        public Builder initial(String subType) {
+            this.initialSubType = subType;
+            return this;
+        }
+
+        public SectionRules build() {
+            return new SectionRules(List.copyOf(subTypes), List.copyOf(headerModes), new KeywordMatcher(keywords, ruleIndexes), initialSubType);
+        }
+
+    }
+
+}
@@ -0,0 +1,99 @@
+package cn.bugstack.ai.domain.agent.service.execute.parser;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 增量分段解析器；按片段接收模型输出，凑满一行即匹配标题，下一个标题到达时结束上一段并回调，
+ * 输出结束时调用 {@link #finish()} 结束最后一段。片段在任意位置切分，结果与整段输入一致。
+ * 同一段的标题重复出现时不另起一段，内容继续追加到当前段；标题中的全角冒号按半角冒号匹配。
+ * 非线程安全，每次调用创建一个。
+ *
+ * @author jinjie
+ * 2025/8/15 16:30
+ */
+public class StreamingSectionParser {
+
+    private final SectionRules rules;
+
+    private final BiConsumer<String, String> sectionConsumer;
+
+    /**
+     * 未满一行的片段
+     */
+    private final StringBuilder pendingLine = new StringBuilder();
+
+    private final StringBuilder sectionContent = new StringBuilder();
+
+    private String currentSubType;
+
+    StreamingSectionParser(SectionRules rules, BiConsumer<String, String> sectionConsumer) {
+        this.rules = rules;
+        this.sectionConsumer = sectionConsumer;
+        this.currentSubType = rules.initialSubType;
+    }
+
+    public void feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            char c = chunk.charAt(i);
+            if (c == '\n') {
+                line(pendingLine.toString());
+                pendingLine.setLength(0);
+            } else {
+                pendingLine.append(c);
+            }
+        }
+    }
+
+    public void finish() {
+        if (!pendingLine.isEmpty()) {
+            line(pendingLine.toString());
+            pendingLine.setLength(0);
+        }
+        emit();
+    }
+
+    private void line(String rawLine) {
+        String line = rawLine.trim();
+        if (line.isEmpty()) {
+            return;
+        }
+
+        // 模型常输出全角冒号，匹配与取值时按半角处理
+        String normalized = line.replace('：', ':');
+        int ruleIndex = rules.matcher.match(normalized);
+        if (ruleIndex >= 0) {
+            String subType = rules.subTypes.get(ruleIndex);
+            // 同一段的标题重复出现时继续当前段
+            if (!subType.equals(currentSubType)) {
+                emit();
+                currentSubType = subType;
+            }
+            switch (rules.headerModes.get(ruleIndex)) {
+                case LINE -> append(line);
+                case VALUE -> append(normalized.substring(normalized.indexOf(':') + 1).trim());
+                default -> {
+                }
+            }
+            return;
+        }
+
+        if (null != currentSubType) {
+            append(line);
+        }
+    }
+
+    private void append(String text) {
+        if (!sectionContent.isEmpty()) {
+            sectionContent.append('\n');
+        }
+        sectionContent.append(text);
+    }
+
+    private void emit() {
+        if (null != currentSubType && !sectionContent.isEmpty()) {
+            sectionConsumer.accept(currentSubType, sectionContent.toString());
+        }
+        sectionContent.setLength(0);
+    }
+
+}
@@ -0,0 +1,43 @@
+package cn.bugstack.ai.domain.agent.service.execute.prompt;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 组装完成的提示词；静态前缀作为前导用户消息，动态后缀作为最后一条用户消息
+ *
+ * @author jinjie
+ * 2025/8/15 09:40
+ */
+@Getter
+@AllArgsConstructor
+public class AssembledPrompt {
+
+    /**
+     * 静态前缀，同一模板的每次调用逐字节相同
+     */
+    private final String staticPrefix;
+
+    /**
+     * 动态后缀
+     */
+    private final String suffix;
+
+    /**
+     * 静态前缀 token 数（预编译时估算）
+     */
+    private final int prefixTokens;
+
+    /**
+     * 提示词 token 数估算
+     */
+    private final int promptTokens;
+
+    /**
+     * 完整提示词文本，与按模板 String.format 的结果一致
+     */
+    public String getText() {
+        return staticPrefix + suffix;
+    }
+
+}
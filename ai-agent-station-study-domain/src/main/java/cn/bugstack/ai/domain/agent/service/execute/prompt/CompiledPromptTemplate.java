@@ -0,0 +1,151 @@
+package cn.bugstack.ai.domain.agent.service.execute.prompt;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * 预编译的提示词模板；由执行步骤提示词（String.format 格式，支持 %s、%d、%n$s、%%、%n）解析一次。
+ * 首个占位符所在行之前的说明文字为静态前缀，预编译时估算一次 token；其后的内容（含末个占位符之后的说明文字）
+ * 按原有顺序归入动态后缀，前缀与后缀拼接后与 String.format 一致。
+ * 调用时静态前缀作为独立的前导用户消息发送，紧跟客户端系统提示词，每次调用逐字节相同，可命中服务端的提示词前缀缓存；
+ * 挂载了提示词记忆顾问的客户端会把会话记忆写入系统消息，这类客户端的请求前缀随会话变化。
+ * 模板含有其他格式说明符时不拆分，渲染时退回 String.format。
+ *
+ * @author jinjie
+ * 2025/8/15 09:42
+ */
+public class CompiledPromptTemplate {
+
+    private final String template;
+
+    /**
+     * 静态前缀
+     */
+    @Getter
+    private final String staticPrefix;
+
+    /**
+     * 静态前缀 token 数
+     */
+    @Getter
+    private final int prefixTokens;
+
+    /**
+     * 动态后缀的字面量片段，比占位符多一个
+     */
+    private final String[] literals;
+
+    /**
+     * 动态后缀的占位符对应的参数下标
+     */
+    private final int[] argIndexes;
+
+    /**
+     * 是否退回 String.format
+     */
+    private final boolean fallback;
+
+    private CompiledPromptTemplate(String template, String staticPrefix, int prefixTokens, String[] literals, int[] argIndexes, boolean fallback) {
+        this.template = template;
+        this.staticPrefix = staticPrefix;
+        this.prefixTokens = prefixTokens;
+        this.literals = literals;
+        this.argIndexes = argIndexes;
+        this.fallback = fallback;
+    }
+
+    public static CompiledPromptTemplate compile(String template, ToIntFunction<String> tokenCountEstimator) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> argIndexes = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int ordinaryIndex = 0;
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            int j = i + 1;
+            while (j < template.length() && Character.isDigit(template.charAt(j))) {
+                j++;
+            }
+            Integer explicitIndex = null;
+            if (j > i + 1) {
+                if (j >= template.length() || template.charAt(j) != '$') {
+                    return fallback(template);
+                }
+                explicitIndex = Integer.parseInt(template.substring(i + 1, j)) - 1;
+                j++;
+            }
+            if (j >= template.length()) {
+                return fallback(template);
+            }
+
+            char conversion = template.charAt(j);
+            if (conversion == '%' && null == explicitIndex) {
+                literal.append('%');
+            } else if (conversion == 'n' && null == explicitIndex) {
+                literal.append(System.lineSeparator());
+            } else if (conversion == 's' || conversion == 'd') {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                argIndexes.add(null != explicitIndex ? explicitIndex : ordinaryIndex++);
+            } else {
+                return fallback(template);
+            }
+            i = j + 1;
+        }
+        literals.add(literal.toString());
+
+        if (argIndexes.isEmpty()) {
+            String text = literals.get(0);
+            return new CompiledPromptTemplate(template, text, tokenCountEstimator.applyAsInt(text), new String[]{""}, new int[0], false);
+        }
+
+        // 首个占位符所在行之前为静态前缀，之后的内容保持原有位置
+        String first = literals.get(0);
+        int leadingEnd = first.lastIndexOf('\n') + 1;
+        String staticPrefix = first.substring(0, leadingEnd);
+        literals.set(0, first.substring(leadingEnd));
+
+        return new CompiledPromptTemplate(
+                template,
+                staticPrefix,
+                tokenCountEstimator.applyAsInt(staticPrefix),
+                literals.toArray(new String[0]),
+                argIndexes.stream().mapToInt(Integer::intValue).toArray(),
+                false);
+    }
+
+    private static CompiledPromptTemplate fallback(String template) {
+        return new CompiledPromptTemplate(template, "", 0, null, null, true);
+    }
+
+    /**
+     * 渲染动态后缀
+     */
+    public String renderSuffix(Object... args) {
+        if (fallback) {
+            return String.format(template, args);
+        }
+        StringBuilder suffix = new StringBuilder();
+        for (int i = 0; i < argIndexes.length; i++) {
+            suffix.append(literals[i]);
+            int argIndex = argIndexes[i];
+            if (argIndex >= args.length) {
+                throw new IllegalArgumentException("提示词模板参数不足 index:" + (argIndex + 1) + " args:" + args.length);
+            }
+            suffix.append(args[argIndex]);
+        }
+        suffix.append(literals[literals.length - 1]);
+        return suffix.toString();
+    }
+
+}
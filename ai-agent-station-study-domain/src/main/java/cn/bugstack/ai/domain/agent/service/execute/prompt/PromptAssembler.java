@@ -0,0 +1,89 @@
+package cn.bugstack.ai.domain.agent.service.execute.prompt;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 提示词组装；模板按内容预编译一次（执行步骤配置变更后内容不同，自然重新编译），
+ * token 数使用与 TokenTextSplitter 相同的 JTokkit 编码估算，并统计每次调用的提示词 token 与服务端返回的缓存命中。
+ *
+ * @author jinjie
+ * 2025/8/15 10:05
+ */
+@Slf4j
+@Service
+public class PromptAssembler {
+
+    private static final TokenCountEstimator TOKEN_COUNT_ESTIMATOR = new JTokkitTokenCountEstimator();
+
+    /**
+     * 模板上限，超出后淘汰最久未使用的模板
+     */
+    private static final int MAX_TEMPLATES = 1024;
+
+    private final Cache<String, CompiledPromptTemplate> templates = CacheBuilder.newBuilder()
+            .maximumSize(MAX_TEMPLATES)
+            .build();
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private final AtomicLong promptTokens = new AtomicLong();
+
+    private final AtomicLong cachedTokens = new AtomicLong();
+
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    public CompiledPromptTemplate compile(String template) {
+        return templates.asMap().computeIfAbsent(template, key -> CompiledPromptTemplate.compile(key, this::estimateTokens));
+    }
+
+    /**
+     * 按模板组装提示词
+     */
+    public AssembledPrompt assemble(String template, Object... args) {
+        CompiledPromptTemplate compiled = compile(template);
+        String suffix = compiled.renderSuffix(args);
+        return new AssembledPrompt(compiled.getStaticPrefix(), suffix, compiled.getPrefixTokens(), compiled.getPrefixTokens() + estimateTokens(suffix));
+    }
+
+    public int estimateTokens(String text) {
+        return null == text || text.isEmpty() ? 0 : TOKEN_COUNT_ESTIMATOR.estimate(text);
+    }
+
+    /**
+     * 记录单次调用的提示词 token 与服务端缓存命中；服务端未返回用量时只记录估算值
+     */
+    public void record(String clientId, AssembledPrompt prompt, ChatResponse chatResponse) {
+        long callCount = calls.incrementAndGet();
+
+        Integer actualPromptTokens = null;
+        Integer cached = null;
+        Usage usage = null == chatResponse || null == chatResponse.getMetadata() ? null : chatResponse.getMetadata().getUsage();
+        if (null != usage) {
+            actualPromptTokens = usage.getPromptTokens();
+            if (usage.getNativeUsage() instanceof OpenAiApi.Usage openAiUsage && null != openAiUsage.promptTokensDetails()) {
+                cached = openAiUsage.promptTokensDetails().cachedTokens();
+            }
+        }
+
+        promptTokens.addAndGet(null != actualPromptTokens ? actualPromptTokens : prompt.getPromptTokens());
+        if (null != cached && cached > 0) {
+            cachedTokens.addAndGet(cached);
+            cacheHits.incrementAndGet();
+        }
+
+        log.info("提示词调用 clientId:{} 估算tokens:{} 静态前缀tokens:{} 实际tokens:{} 缓存命中tokens:{} | 累计 调用:{} 命中:{} 提示词tokens:{} 缓存tokens:{}",
+                clientId, prompt.getPromptTokens(), prompt.getPrefixTokens(), actualPromptTokens, cached,
+                callCount, cacheHits.get(), promptTokens.get(), cachedTokens.get());
+    }
+
+}
@@ -1,18 +1,20 @@
 package cn.bugstack.ai.infrastructure.adapter.repository;
 
 import cn.bugstack.ai.domain.agent.adapter.repository.IAgentRepository;
+import cn.bugstack.ai.domain.agent.model.aggregate.AiClientConfigGraphAggregate;
 import cn.bugstack.ai.domain.agent.model.valobj.*;
+import cn.bugstack.ai.infrastructure.cache.AiAgentFlowConfigCache;
+import cn.bugstack.ai.infrastructure.cache.McpTransportConfigParser;
 import cn.bugstack.ai.infrastructure.dao.*;
 import cn.bugstack.ai.infrastructure.dao.po.*;
+import cn.bugstack.ai.infrastructure.index.AiClientConfigGraphIndex;
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 import static cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO.*;
 
@@ -59,480 +61,366 @@ public class AgentRepository implements IAgentRepository {
     @Resource
     private IAiClientToolMcpDao aiClientToolMcpDao;
 
+    @Resource
+    private AiClientConfigGraphIndex aiClientConfigGraphIndex;
+
+    @Resource
+    private AiAgentFlowConfigCache aiAgentFlowConfigCache;
+
+    @Resource
+    private McpTransportConfigParser mcpTransportConfigParser;
+
     @Override
-    public List<AiClientApiVO> queryAiClientApiVOListByClientIds(List<String> clientIdList) {
+    public AiClientConfigGraphAggregate queryAiClientConfigGraphByClientIds(List<String> clientIdList) {
         if (clientIdList == null || clientIdList.isEmpty()) {
-            return List.of();
+            return emptyConfigGraph();
         }
 
-        List<AiClientApiVO> result = new ArrayList<>();
-
-        for (String clientId : clientIdList) {
-            // 1. 通过clientId查询关联的modelId
-            List<AiClientConfig> configs = aiClientConfigDao.queryBySourceTypeAndId(AI_CLIENT.getCode(), clientId);
-
-            for (AiClientConfig config : configs) {
-                if (AI_CLIENT_MODEL.getCode().equals(config.getTargetType()) && config.getStatus() == 1) {
-                    String modelId = config.getTargetId();
-
-                    // 2. 通过modelId查询模型配置，获取apiId
-                    AiClientModel model = aiClientModelDao.queryByModelId(modelId);
-                    if (model != null && model.getStatus() == 1) {
-                        String apiId = model.getApiId();
-
-                        // 3. 通过apiId查询API配置信息
-                        AiClientApi apiConfig = aiClientApiDao.queryByApiId(apiId);
-                        if (apiConfig != null && apiConfig.getStatus() == 1) {
-                            // 4. 转换为VO对象
-                            AiClientApiVO apiVO = AiClientApiVO.builder()
-                                    .apiId(apiConfig.getApiId())
-                                    .baseUrl(apiConfig.getBaseUrl())
-                                    .apiKey(apiConfig.getApiKey())
-                                    .completionsPath(apiConfig.getCompletionsPath())
-                                    .embeddingsPath(apiConfig.getEmbeddingsPath())
-                                    .build();
-
-                            // 避免重复添加相同的API配置
-                            if (result.stream().noneMatch(vo -> vo.getApiId().equals(apiVO.getApiId()))) {
-                                result.add(apiVO);
-                            }
-                        }
-                    }
-                }
+        // 1. 关联配置走内存索引；装配前校验一次配置版本，保证读到最新的关联关系
+        aiClientConfigGraphIndex.refresh();
+
+        // 2. 客户端基本信息
+        Map<String, AiClient> aiClientMap = new HashMap<>();
+        for (AiClient aiClient : aiClientDao.queryByClientIds(clientIdList)) {
+            if (aiClient.getStatus() == 1) {
+                aiClientMap.put(aiClient.getClientId(), aiClient);
             }
         }
 
-        return result;
-    }
+        Set<String> modelIds = new LinkedHashSet<>();
+        Set<String> promptIds = new LinkedHashSet<>();
+        Set<String> mcpIds = new LinkedHashSet<>();
+        Set<String> advisorIds = new LinkedHashSet<>();
+        List<AiClientVO> aiClientList = new ArrayList<>();
+
+        for (String clientId : new LinkedHashSet<>(clientIdList)) {
+            Map<String, List<String>> targets = aiClientConfigGraphIndex.getTargets(AI_CLIENT.getCode(), clientId);
+            List<String> modelIdList = targets.getOrDefault(AI_CLIENT_MODEL.getCode(), List.of());
+            String modelId = modelIdList.isEmpty() ? null : modelIdList.get(modelIdList.size() - 1);
+            List<String> promptIdList = new ArrayList<>(targets.getOrDefault(AI_CLIENT_SYSTEM_PROMPT.getCode(), List.of()));
+            List<String> mcpIdList = new ArrayList<>(targets.getOrDefault(AI_CLIENT_TOOL_MCP.getCode(), List.of()));
+            List<String> advisorIdList = new ArrayList<>(targets.getOrDefault(AI_CLIENT_ADVISOR.getCode(), List.of()));
+            modelIds.addAll(modelIdList);
+
+            AiClient aiClient = aiClientMap.get(clientId);
+            if (aiClient == null) {
+                continue;
+            }
 
-    @Override
-    public List<AiClientModelVO> AiClientModelVOByClientIds(List<String> clientIdList) {
-        if (clientIdList == null || clientIdList.isEmpty()) {
-            return List.of();
+            promptIds.addAll(promptIdList);
+            mcpIds.addAll(mcpIdList);
+            advisorIds.addAll(advisorIdList);
+
+            // 3. 构建AiClientVO对象
+            aiClientList.add(AiClientVO.builder()
+                    .clientId(aiClient.getClientId())
+                    .clientName(aiClient.getClientName())
+                    .description(aiClient.getDescription())
+                    .modelId(modelId)
+                    .promptIdList(promptIdList)
+                    .mcpIdList(mcpIdList)
+                    .advisorIdList(advisorIdList)
+                    .updateTime(aiClient.getUpdateTime())
+                    .build());
         }
 
-        List<AiClientModelVO> result = new ArrayList<>();
-
-        for (String clientId : clientIdList) {
-            // 1. 通过clientId查询关联的modelId
-            List<AiClientConfig> configs = aiClientConfigDao.queryBySourceTypeAndId(AI_CLIENT.getCode(), clientId);
-
-            for (AiClientConfig config : configs) {
-                if (AI_CLIENT_MODEL.getCode().equals(config.getTargetType()) && config.getStatus() == 1) {
-                    String modelId = config.getTargetId();
-
-                    // 2. 通过modelId查询模型配置
-                    AiClientModel model = aiClientModelDao.queryByModelId(modelId);
-                    if (model != null && model.getStatus() == 1) {
-
-                        // 3. 查询该模型关联的tool_mcp配置
-                        List<AiClientConfig> toolMcpConfigs = aiClientConfigDao.queryBySourceTypeAndId(AI_CLIENT_MODEL.getCode(), modelId);
-                        List<String> toolMcpIds = new ArrayList<>();
-
-                        for (AiClientConfig toolMcpConfig : toolMcpConfigs) {
-                            if (AI_CLIENT_TOOL_MCP.getCode().equals(toolMcpConfig.getTargetType()) && toolMcpConfig.getStatus() == 1) {
-                                toolMcpIds.add(toolMcpConfig.getTargetId());
-                            }
-                        }
-
-                        // 4. 转换为VO对象
-                        AiClientModelVO modelVO = AiClientModelVO.builder()
-                                .modelId(model.getModelId())
-                                .apiId(model.getApiId())
-                                .modelName(model.getModelName())
-                                .modelType(model.getModelType())
-                                .toolMcpIds(toolMcpIds)
-                                .build();
-
-                        // 避免重复添加相同的模型配置
-                        if (result.stream().noneMatch(vo -> vo.getModelId().equals(modelVO.getModelId()))) {
-                            result.add(modelVO);
-                        }
-                    }
+        // 4. 模型、API、MCP；传输配置不合法的 MCP 及引用它的模型不进入配置图，引用它们的客户端跳过
+        Set<String> rejectedMcpIds = new HashSet<>();
+        Set<String> rejectedModelIds = new HashSet<>();
+        AiClientConfigGraphAggregate configGraph = queryModelConfigGraph(modelIds, mcpIds, rejectedMcpIds, rejectedModelIds);
+        if (!rejectedMcpIds.isEmpty()) {
+            aiClientList.removeIf(aiClientVO -> {
+                boolean rejected = rejectedModelIds.contains(aiClientVO.getModelId())
+                        || aiClientVO.getMcpIdList().stream().anyMatch(rejectedMcpIds::contains);
+                if (rejected) {
+                    log.warn("AI客户端引用了传输配置不合法的 MCP 或模型，跳过装配 clientId:{} modelId:{} mcpIds:{}",
+                            aiClientVO.getClientId(), aiClientVO.getModelId(), aiClientVO.getMcpIdList());
                 }
-            }
+                return rejected;
+            });
         }
 
-        return result;
-    }
-
-    @Override
-    public List<AiClientToolMcpVO> AiClientToolMcpVOByClientIds(List<String> clientIdList) {
-        if (clientIdList == null || clientIdList.isEmpty()) {
-            return List.of();
+        // 5. 系统提示词
+        Map<String, AiClientSystemPromptVO> aiClientSystemPromptMap = new LinkedHashMap<>();
+        for (AiClientSystemPrompt systemPrompt : queryByIds(promptIds, aiClientSystemPromptDao::queryByPromptIds)) {
+            if (systemPrompt.getStatus() == 1) {
+                aiClientSystemPromptMap.put(systemPrompt.getPromptId(), AiClientSystemPromptVO.builder()
+                        .promptId(systemPrompt.getPromptId())
+                        .promptName(systemPrompt.getPromptName())
+                        .promptContent(systemPrompt.getPromptContent())
+                        .description(systemPrompt.getDescription())
+                        .updateTime(systemPrompt.getUpdateTime())
+                        .build());
+            }
         }
 
-        List<AiClientToolMcpVO> result = new ArrayList<>();
-        Set<String> processedMcpIds = new HashSet<>();
-
-        for (String clientId : clientIdList) {
-            // 1. 通过clientId查询关联的model配置
-            List<AiClientConfig> clientConfigs = aiClientConfigDao.queryBySourceTypeAndId(AI_CLIENT.getCode(), clientId);
-
-            for (AiClientConfig clientConfig : clientConfigs) {
-                if (AI_CLIENT_MODEL.getCode().equals(clientConfig.getTargetType()) && clientConfig.getStatus() == 1) {
-                    String modelId = clientConfig.getTargetId();
-
-                    // 2. 通过modelId查询关联的tool_mcp配置
-                    List<AiClientConfig> modelConfigs = aiClientConfigDao.queryBySourceTypeAndId(AI_CLIENT_MODEL.getCode(), modelId);
-
-                    for (AiClientConfig modelConfig : modelConfigs) {
-                        if (AI_CLIENT_TOOL_MCP.getCode().equals(modelConfig.getTargetType()) && modelConfig.getStatus() == 1) {
-                            String mcpId = modelConfig.getTargetId();
-
-                            // 避免重复处理相同的mcpId
-                            if (processedMcpIds.contains(mcpId)) {
-                                continue;
-                            }
-                            processedMcpIds.add(mcpId);
-
-                            // 3. 通过mcpId查询ai_client_tool_mcp表获取MCP工具配置
-                            AiClientToolMcp toolMcp = aiClientToolMcpDao.queryByMcpId(mcpId);
-                            if (toolMcp != null && toolMcp.getStatus() == 1) {
-                                // 4. 转换为VO对象
-                                AiClientToolMcpVO mcpVO = AiClientToolMcpVO.builder()
-                                        .mcpId(toolMcp.getMcpId())
-                                        .mcpName(toolMcp.getMcpName())
-                                        .transportType(toolMcp.getTransportType())
-                                        .transportConfig(toolMcp.getTransportConfig())
-                                        .requestTimeout(toolMcp.getRequestTimeout())
-                                        .build();
-
-                                String transportConfig = toolMcp.getTransportConfig();
-                                String transportType = toolMcp.getTransportType();
-
-                                try {
-                                    if ("sse".equals(transportType)) {
-                                        // 解析SSE配置
-                                        ObjectMapper objectMapper = new ObjectMapper();
-                                        AiClientToolMcpVO.TransportConfigSse transportConfigSse = objectMapper.readValue(transportConfig, AiClientToolMcpVO.TransportConfigSse.class);
-                                        mcpVO.setTransportConfigSse(transportConfigSse);
-                                    } else if ("stdio".equals(transportType)) {
-                                        // 解析STDIO配置
-                                        Map<String, AiClientToolMcpVO.TransportConfigStdio.Stdio> stdio = JSON.parseObject(transportConfig,
-                                                new TypeReference<>() {
-                                                });
-
-                                        AiClientToolMcpVO.TransportConfigStdio transportConfigStdio = new AiClientToolMcpVO.TransportConfigStdio();
-                                        transportConfigStdio.setStdio(stdio);
-
-                                        mcpVO.setTransportConfigStdio(transportConfigStdio);
-                                    }
-                                } catch (Exception e) {
-                                    log.error("解析传输配置失败: {}", e.getMessage(), e);
-                                }
-                                result.add(mcpVO);
-                            }
-                        }
-                    }
-                }
+        // 6. 顾问角色
+        List<AiClientAdvisorVO> aiClientAdvisorList = new ArrayList<>();
+        for (AiClientAdvisor aiClientAdvisor : queryByIds(advisorIds, aiClientAdvisorDao::queryByAdvisorIds)) {
+            if (aiClientAdvisor.getStatus() == 1) {
+                aiClientAdvisorList.add(buildAiClientAdvisorVO(aiClientAdvisor));
             }
         }
 
-        return result;
+        configGraph.setAiClientSystemPromptMap(aiClientSystemPromptMap);
+        configGraph.setAiClientAdvisorList(aiClientAdvisorList);
+        configGraph.setAiClientList(aiClientList);
+        return configGraph;
     }
 
     @Override
-    public List<AiClientSystemPromptVO> AiClientSystemPromptVOByClientIds(List<String> clientIdList) {
-        if (clientIdList == null || clientIdList.isEmpty()) {
-            return List.of();
+    public AiClientConfigGraphAggregate queryAiClientConfigGraphByModelIds(List<String> modelIdList) {
+        if (modelIdList == null || modelIdList.isEmpty()) {
+            return emptyConfigGraph();
         }
 
-        List<AiClientSystemPromptVO> result = new ArrayList<>();
-        Set<String> processedPromptIds = new HashSet<>();
-
-        for (String clientId : clientIdList) {
-            // 1. 通过clientId查询关联的prompt配置
-            List<AiClientConfig> configs = aiClientConfigDao.queryBySourceTypeAndId(AI_CLIENT.getCode(), clientId);
-
-            for (AiClientConfig config : configs) {
-                if ("prompt".equals(config.getTargetType()) && config.getStatus() == 1) {
-                    String promptId = config.getTargetId();
-
-                    // 避免重复处理相同的promptId
-                    if (processedPromptIds.contains(promptId)) {
-                        continue;
-                    }
-                    processedPromptIds.add(promptId);
-
-                    // 2. 通过promptId查询ai_client_system_prompt表获取系统提示词配置
-                    AiClientSystemPrompt systemPrompt = aiClientSystemPromptDao.queryByPromptId(promptId);
-                    if (systemPrompt != null && systemPrompt.getStatus() == 1) {
-                        // 3. 转换为VO对象
-                        AiClientSystemPromptVO promptVO = AiClientSystemPromptVO.builder()
-                                .promptId(systemPrompt.getPromptId())
-                                .promptName(systemPrompt.getPromptName())
-                                .promptContent(systemPrompt.getPromptContent())
-                                .description(systemPrompt.getDescription())
-                                .build();
-
-                        result.add(promptVO);
-                    }
-                }
-            }
-        }
+        aiClientConfigGraphIndex.refresh();
+        AiClientConfigGraphAggregate configGraph = queryModelConfigGraph(new LinkedHashSet<>(modelIdList), new LinkedHashSet<>(), new HashSet<>(), new HashSet<>());
 
-        return result;
+        // 模型维度装配不涉及提示词、顾问和客户端
+        configGraph.setAiClientSystemPromptMap(Map.of());
+        configGraph.setAiClientAdvisorList(List.of());
+        configGraph.setAiClientList(List.of());
+        return configGraph;
     }
 
     @Override
-    public Map<String, AiClientSystemPromptVO> queryAiClientSystemPromptMapByClientIds(List<String> clientIdList) {
-        List<AiClientSystemPromptVO> aiClientSystemPrompts = AiClientSystemPromptVOByClientIds(clientIdList);
+    public List<AiClientApiVO> queryAiClientApiVOListByClientIds(List<String> clientIdList) {
+        return queryAiClientConfigGraphByClientIds(clientIdList).getAiClientApiList();
+    }
 
-        if (null == aiClientSystemPrompts || aiClientSystemPrompts.isEmpty()) {
-            return Collections.emptyMap();
-        }
+    @Override
+    public List<AiClientModelVO> AiClientModelVOByClientIds(List<String> clientIdList) {
+        return queryAiClientConfigGraphByClientIds(clientIdList).getAiClientModelList();
+    }
 
-        // 将PO对象转换为VO对象，并构建Map结构
-        return aiClientSystemPrompts.stream()
-                .map(prompt -> AiClientSystemPromptVO.builder()
-                        .promptId(prompt.getPromptId())
-                        .promptContent(prompt.getPromptContent())
-                        .build())
-                .collect(Collectors.toMap(
-                        AiClientSystemPromptVO::getPromptId,  // key: id
-                        prompt -> prompt,               // value: AiClientSystemPromptVO对象
-                        (existing, replacement) -> existing  // 如果有重复key，保留第一个
-                ));
+    @Override
+    public List<AiClientToolMcpVO> AiClientToolMcpVOByClientIds(List<String> clientIdList) {
+        return queryAiClientConfigGraphByClientIds(clientIdList).getAiClientToolMcpList();
     }
 
     @Override
-    public List<AiClientAdvisorVO> AiClientAdvisorVOByClientIds(List<String> clientIdList) {
-        if (clientIdList == null || clientIdList.isEmpty()) {
-            return List.of();
-        }
+    public List<AiClientSystemPromptVO> AiClientSystemPromptVOByClientIds(List<String> clientIdList) {
+        return new ArrayList<>(queryAiClientConfigGraphByClientIds(clientIdList).getAiClientSystemPromptMap().values());
+    }
 
-        List<AiClientAdvisorVO> result = new ArrayList<>();
-        Set<String> processedAdvisorIds = new HashSet<>();
+    @Override
+    public Map<String, AiClientSystemPromptVO> queryAiClientSystemPromptMapByClientIds(List<String> clientIdList) {
+        return queryAiClientConfigGraphByClientIds(clientIdList).getAiClientSystemPromptMap();
+    }
 
-        for (String clientId : clientIdList) {
-            // 1. 查询客户端相关的advisor配置
-            List<AiClientConfig> configs = aiClientConfigDao.queryBySourceTypeAndId("client", clientId);
+    @Override
+    public List<AiClientAdvisorVO> AiClientAdvisorVOByClientIds(List<String> clientIdList) {
+        return queryAiClientConfigGraphByClientIds(clientIdList).getAiClientAdvisorList();
+    }
 
-            for (AiClientConfig config : configs) {
-                if (config.getStatus() != 1 || !"advisor".equals(config.getTargetType())) {
-                    continue;
-                }
+    @Override
+    public List<AiClientVO> AiClientVOByClientIds(List<String> clientIdList) {
+        return queryAiClientConfigGraphByClientIds(clientIdList).getAiClientList();
+    }
 
-                String advisorId = config.getTargetId();
-                if (processedAdvisorIds.contains(advisorId)) {
-                    continue;
-                }
-                processedAdvisorIds.add(advisorId);
+    @Override
+    public List<AiClientApiVO> queryAiClientApiVOListByModelIds(List<String> modelIdList) {
+        return queryAiClientConfigGraphByModelIds(modelIdList).getAiClientApiList();
+    }
 
-                // 2. 查询advisor详细信息
-                AiClientAdvisor aiClientAdvisor = aiClientAdvisorDao.queryByAdvisorId(advisorId);
-                if (aiClientAdvisor == null || aiClientAdvisor.getStatus() != 1) {
-                    continue;
-                }
+    @Override
+    public List<AiClientModelVO> AiClientModelVOByModelIds(List<String> modelIdList) {
+        return queryAiClientConfigGraphByModelIds(modelIdList).getAiClientModelList();
+    }
 
-                // 3. 解析extParam中的配置
-                AiClientAdvisorVO.ChatMemory chatMemory = null;
-                AiClientAdvisorVO.RagAnswer ragAnswer = null;
-
-                String extParam = aiClientAdvisor.getExtParam();
-                if (extParam != null && !extParam.trim().isEmpty()) {
-                    try {
-                        if ("ChatMemory".equals(aiClientAdvisor.getAdvisorType())) {
-                            // 解析chatMemory配置
-                            chatMemory = JSON.parseObject(extParam, AiClientAdvisorVO.ChatMemory.class);
-                        } else if ("RagAnswer".equals(aiClientAdvisor.getAdvisorType())) {
-                            // 解析ragAnswer配置
-                            ragAnswer = JSON.parseObject(extParam, AiClientAdvisorVO.RagAnswer.class);
-                        }
-                    } catch (Exception e) {
-                        // 解析失败时忽略，使用默认值null
-                    }
-                }
+    @Override
+    public List<AiClientToolMcpVO> AiClientToolMcpVOByModelIds(List<String> modelIdList) {
+        return queryAiClientConfigGraphByModelIds(modelIdList).getAiClientToolMcpList();
+    }
 
-                // 4. 构建AiClientAdvisorVO对象
-                AiClientAdvisorVO advisorVO = AiClientAdvisorVO.builder()
-                        .advisorId(aiClientAdvisor.getAdvisorId())
-                        .advisorName(aiClientAdvisor.getAdvisorName())
-                        .advisorType(aiClientAdvisor.getAdvisorType())
-                        .orderNum(aiClientAdvisor.getOrderNum())
-                        .chatMemory(chatMemory)
-                        .ragAnswer(ragAnswer)
-                        .build();
-
-                result.add(advisorVO);
-            }
+    @Override
+    public Map<String, AiAgentClientFlowConfigVO> queryAiAgentClientFlowConfig(String aiAgentId) {
+        if (aiAgentId == null || aiAgentId.trim().isEmpty()) {
+            return Map.of();
         }
 
-        return result;
+        // 读穿透缓存；数据库异常时抛出，由调用方降级到本地装配快照
+        return aiAgentFlowConfigCache.get(aiAgentId);
     }
 
     @Override
-    public List<AiClientVO> AiClientVOByClientIds(List<String> clientIdList) {
-        if (clientIdList == null || clientIdList.isEmpty()) {
-            return List.of();
+    public void invalidateAiAgentClientFlowConfig(String aiAgentId) {
+        if (aiAgentId == null || aiAgentId.trim().isEmpty()) {
+            aiAgentFlowConfigCache.invalidateAll();
+            return;
         }
+        aiAgentFlowConfigCache.invalidate(aiAgentId);
+    }
 
-        List<AiClientVO> result = new ArrayList<>();
-        Set<String> processedClientIds = new HashSet<>();
+    @Override
+    public Set<String> queryAiAgentIds() {
+        Set<String> aiAgentIds = new HashSet<>();
+        for (AiAgent aiAgent : aiAgentDao.queryAll()) {
+            aiAgentIds.add(aiAgent.getAgentId());
+        }
+        return aiAgentIds;
+    }
 
-        for (String clientId : clientIdList) {
-            if (processedClientIds.contains(clientId)) {
-                continue;
+    /**
+     * 批量查询模型及其依赖的 API、MCP 配置
+     *
+     * @param modelIds         模型ID
+     * @param mcpIds           客户端直接关联的 MCP，模型关联的 MCP 会追加进来
+     * @param rejectedMcpIds   传输配置不合法、未进入配置图的 MCP
+     * @param rejectedModelIds 引用了不合法 MCP、未进入配置图的模型
+     */
+    private AiClientConfigGraphAggregate queryModelConfigGraph(Set<String> modelIds, Set<String> mcpIds,
+                                                               Set<String> rejectedMcpIds, Set<String> rejectedModelIds) {
+        Map<String, AiClientModel> modelMap = new HashMap<>();
+        for (AiClientModel model : queryByIds(modelIds, aiClientModelDao::queryByModelIds)) {
+            if (model.getStatus() == 1) {
+                modelMap.put(model.getModelId(), model);
             }
-            processedClientIds.add(clientId);
+        }
 
-            // 1. 查询客户端基本信息
-            AiClient aiClient = aiClientDao.queryByClientId(clientId);
-            if (aiClient == null || aiClient.getStatus() != 1) {
+        Set<String> apiIds = new LinkedHashSet<>();
+        List<AiClientModelVO> aiClientModelList = new ArrayList<>();
+        for (String modelId : modelIds) {
+            AiClientModel model = modelMap.get(modelId);
+            if (model == null) {
                 continue;
             }
 
-            // 2. 查询客户端相关配置
-            List<AiClientConfig> configs = aiClientConfigDao.queryBySourceTypeAndId("client", clientId);
+            List<String> toolMcpIds = new ArrayList<>(aiClientConfigGraphIndex.getTargetIds(AI_CLIENT_MODEL.getCode(), modelId, AI_CLIENT_TOOL_MCP.getCode()));
 
-            String modelId = null;
-            List<String> promptIdList = new ArrayList<>();
-            List<String> mcpIdList = new ArrayList<>();
-            List<String> advisorIdList = new ArrayList<>();
+            apiIds.add(model.getApiId());
+            mcpIds.addAll(toolMcpIds);
 
-            for (AiClientConfig config : configs) {
-                if (config.getStatus() != 1) {
-                    continue;
-                }
+            aiClientModelList.add(AiClientModelVO.builder()
+                    .modelId(model.getModelId())
+                    .apiId(model.getApiId())
+                    .modelName(model.getModelName())
+                    .modelType(model.getModelType())
+                    .toolMcpIds(toolMcpIds)
+                    .updateTime(model.getUpdateTime())
+                    .build());
+        }
 
-                switch (config.getTargetType()) {
-                    case "model":
-                        modelId = config.getTargetId();
-                        break;
-                    case "prompt":
-                        promptIdList.add(config.getTargetId());
-                        break;
-                    case "tool_mcp":
-                        mcpIdList.add(config.getTargetId());
-                        break;
-                    case "advisor":
-                        advisorIdList.add(config.getTargetId());
-                        break;
-                }
+        List<AiClientApiVO> aiClientApiList = new ArrayList<>();
+        for (AiClientApi apiConfig : queryByIds(apiIds, aiClientApiDao::queryByApiIds)) {
+            if (apiConfig.getStatus() == 1) {
+                aiClientApiList.add(AiClientApiVO.builder()
+                        .apiId(apiConfig.getApiId())
+                        .baseUrl(apiConfig.getBaseUrl())
+                        .apiKey(apiConfig.getApiKey())
+                        .completionsPath(apiConfig.getCompletionsPath())
+                        .embeddingsPath(apiConfig.getEmbeddingsPath())
+                        .updateTime(apiConfig.getUpdateTime())
+                        .build());
             }
-
-            // 3. 构建AiClientVO对象
-            AiClientVO aiClientVO = AiClientVO.builder()
-                    .clientId(aiClient.getClientId())
-                    .clientName(aiClient.getClientName())
-                    .description(aiClient.getDescription())
-                    .modelId(modelId)
-                    .promptIdList(promptIdList)
-                    .mcpIdList(mcpIdList)
-                    .advisorIdList(advisorIdList)
-                    .build();
-
-            result.add(aiClientVO);
         }
 
-        return result;
-    }
-
-    @Override
-    public List<AiClientApiVO> queryAiClientApiVOListByModelIds(List<String> modelIdList) {
-        if (modelIdList == null || modelIdList.isEmpty()) {
-            return List.of();
+        List<AiClientToolMcpVO> aiClientToolMcpList = new ArrayList<>();
+        for (AiClientToolMcp toolMcp : queryByIds(mcpIds, aiClientToolMcpDao::queryByMcpIds)) {
+            if (toolMcp.getStatus() != 1) {
+                continue;
+            }
+            // 单条配置不合法只影响引用它的组件，不中断整个配置图的加载
+            try {
+                aiClientToolMcpList.add(buildAiClientToolMcpVO(toolMcp));
+            } catch (IllegalArgumentException e) {
+                log.error("MCP 传输配置不合法，跳过装配 mcpId:{} mcpName:{}", toolMcp.getMcpId(), toolMcp.getMcpName(), e);
+                rejectedMcpIds.add(toolMcp.getMcpId());
+            }
         }
 
-        List<AiClientApiVO> result = new ArrayList<>();
-
-        for (String modelId : modelIdList) {
-            // 1. 通过modelId查询模型配置，获取apiId
-            AiClientModel model = aiClientModelDao.queryByModelId(modelId);
-            if (model != null && model.getStatus() == 1) {
-                String apiId = model.getApiId();
-
-                // 2. 通过apiId查询API配置信息
-                AiClientApi apiConfig = aiClientApiDao.queryByApiId(apiId);
-                if (apiConfig != null && apiConfig.getStatus() == 1) {
-                    // 3. 转换为VO对象
-                    AiClientApiVO apiVO = AiClientApiVO.builder()
-                            .apiId(apiConfig.getApiId())
-                            .baseUrl(apiConfig.getBaseUrl())
-                            .apiKey(apiConfig.getApiKey())
-                            .completionsPath(apiConfig.getCompletionsPath())
-                            .embeddingsPath(apiConfig.getEmbeddingsPath())
-                            .build();
-
-                    // 避免重复添加相同的API配置
-                    if (result.stream().noneMatch(vo -> vo.getApiId().equals(apiVO.getApiId()))) {
-                        result.add(apiVO);
-                    }
+        if (!rejectedMcpIds.isEmpty()) {
+            aiClientModelList.removeIf(modelVO -> {
+                boolean rejected = modelVO.getToolMcpIds().stream().anyMatch(rejectedMcpIds::contains);
+                if (rejected) {
+                    log.warn("模型引用了传输配置不合法的 MCP，跳过装配 modelId:{} toolMcpIds:{}", modelVO.getModelId(), modelVO.getToolMcpIds());
+                    rejectedModelIds.add(modelVO.getModelId());
                 }
-            }
+                return rejected;
+            });
         }
 
-        return result;
+        return AiClientConfigGraphAggregate.builder()
+                .aiClientApiList(aiClientApiList)
+                .aiClientModelList(aiClientModelList)
+                .aiClientToolMcpList(aiClientToolMcpList)
+                .build();
     }
 
-    @Override
-    public List<AiClientModelVO> AiClientModelVOByModelIds(List<String> modelIdList) {
-        if (modelIdList == null || modelIdList.isEmpty()) {
+    private AiClientConfigGraphAggregate emptyConfigGraph() {
+        return AiClientConfigGraphAggregate.builder()
+                .aiClientApiList(List.of())
+                .aiClientModelList(List.of())
+                .aiClientToolMcpList(List.of())
+                .aiClientSystemPromptMap(Map.of())
+                .aiClientAdvisorList(List.of())
+                .aiClientList(List.of())
+                .build();
+    }
+
+    /**
+     * IN 列表批量查询，ID为空时不访问数据库
+     */
+    private <T> List<T> queryByIds(Collection<String> ids, Function<List<String>, List<T>> query) {
+        if (ids.isEmpty()) {
             return List.of();
         }
+        return query.apply(new ArrayList<>(ids));
+    }
 
-        List<AiClientModelVO> result = new ArrayList<>();
-
-        for (String modelId : modelIdList) {
-            // 通过modelId查询模型配置
-            AiClientModel model = aiClientModelDao.queryByModelId(modelId);
-            if (model != null && model.getStatus() == 1) {
-                // 转换为VO对象
-                AiClientModelVO modelVO = AiClientModelVO.builder()
-                        .modelId(model.getModelId())
-                        .apiId(model.getApiId())
-                        .modelName(model.getModelName())
-                        .modelType(model.getModelType())
-                        .build();
-
-                // 避免重复添加相同的模型配置
-                if (result.stream().noneMatch(vo -> vo.getModelId().equals(modelVO.getModelId()))) {
-                    result.add(modelVO);
+    /**
+     * 顾问配置转换为VO对象，并解析extParam中的配置
+     */
+    private AiClientAdvisorVO buildAiClientAdvisorVO(AiClientAdvisor aiClientAdvisor) {
+        AiClientAdvisorVO.ChatMemory chatMemory = null;
+        AiClientAdvisorVO.RagAnswer ragAnswer = null;
+
+        String extParam = aiClientAdvisor.getExtParam();
+        if (extParam != null && !extParam.trim().isEmpty()) {
+            try {
+                if ("ChatMemory".equals(aiClientAdvisor.getAdvisorType())) {
+                    // 解析chatMemory配置
+                    chatMemory = JSON.parseObject(extParam, AiClientAdvisorVO.ChatMemory.class);
+                } else if ("RagAnswer".equals(aiClientAdvisor.getAdvisorType())) {
+                    // 解析ragAnswer配置
+                    ragAnswer = JSON.parseObject(extParam, AiClientAdvisorVO.RagAnswer.class);
                 }
+            } catch (Exception e) {
+                // 解析失败时忽略，使用默认值null
             }
         }
 
-        return result;
+        return AiClientAdvisorVO.builder()
+                .advisorId(aiClientAdvisor.getAdvisorId())
+                .advisorName(aiClientAdvisor.getAdvisorName())
+                .advisorType(aiClientAdvisor.getAdvisorType())
+                .orderNum(aiClientAdvisor.getOrderNum())
+                .chatMemory(chatMemory)
+                .ragAnswer(ragAnswer)
+                .updateTime(aiClientAdvisor.getUpdateTime())
+                .build();
     }
 
-    @Override
-    public Map<String, AiAgentClientFlowConfigVO> queryAiAgentClientFlowConfig(String aiAgentId) {
-        if (aiAgentId == null || aiAgentId.trim().isEmpty()) {
-            return Map.of();
-        }
-
-        try {
-            // 根据智能体ID查询流程配置列表
-            List<AiAgentFlowConfig> flowConfigs = aiAgentFlowConfigDao.queryByAgentId(aiAgentId);
-            
-            if (flowConfigs == null || flowConfigs.isEmpty()) {
-                return Map.of();
-            }
-            
-            // 转换为Map结构，key为clientId，value为AiAgentClientFlowConfigVO
-            Map<String, AiAgentClientFlowConfigVO> result = new HashMap<>();
-            
-            for (AiAgentFlowConfig flowConfig : flowConfigs) {
-                AiAgentClientFlowConfigVO configVO = AiAgentClientFlowConfigVO.builder()
-                        .clientId(flowConfig.getClientId())
-                        .clientName(flowConfig.getClientName())
-                        .clientType(flowConfig.getClientType())
-                        .sequence(flowConfig.getSequence())
-                        .stepPrompt(flowConfig.getStepPrompt())
-                        .build();
-                
-                result.put(flowConfig.getClientType(), configVO);
-            }
-            
-            return result;
-        } catch (NumberFormatException e) {
-            log.error("Invalid aiAgentId format: {}", aiAgentId, e);
-            return Map.of();
-        } catch (Exception e) {
-            log.error("Query ai agent client flow config failed, aiAgentId: {}", aiAgentId, e);
-            return Map.of();
-        }
+    /**
+     * MCP 配置转换为VO对象；传输配置按 (mcpId, update_time) 解析一次
+     *
+     * @throws IllegalArgumentException 传输配置不合法
+     */
+    private AiClientToolMcpVO buildAiClientToolMcpVO(AiClientToolMcp toolMcp) {
+        McpTransportConfigParser.ParsedTransportConfig parsed = mcpTransportConfigParser.parse(
+                toolMcp.getMcpId(), toolMcp.getTransportType(), toolMcp.getTransportConfig(), toolMcp.getUpdateTime());
+
+        return AiClientToolMcpVO.builder()
+                .mcpId(toolMcp.getMcpId())
+                .mcpName(toolMcp.getMcpName())
+                .transportType(toolMcp.getTransportType())
+                .transportConfig(toolMcp.getTransportConfig())
+                .requestTimeout(toolMcp.getRequestTimeout())
+                .transportConfigSse(parsed.getTransportConfigSse())
+                .transportConfigStdio(parsed.getTransportConfigStdio())
+                .updateTime(toolMcp.getUpdateTime())
+                .build();
     }
 
 }
@@ -0,0 +1,126 @@
+package cn.bugstack.ai.infrastructure.adapter.repository;
+
+import cn.bugstack.ai.domain.agent.adapter.repository.IArmorySnapshotRepository;
+import cn.bugstack.ai.domain.agent.model.entity.ArmorySnapshotEntity;
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * 装配快照仓储服务；快照以二进制头 + JSON 正文写入本地文件，读取时内存映射。
+ * <p>
+ * 文件格式：magic(int) | 格式版本(int) | 快照版本(long) | 正文长度(int) | 正文 CRC32(long) | 正文(UTF-8 JSON)
+ *
+ * @author jinjie
+ * 2025/8/11 09:40
+ */
+@Slf4j
+@Repository
+public class ArmorySnapshotRepository implements IArmorySnapshotRepository {
+
+    private static final int MAGIC = 0x41475353;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_LENGTH = 4 + 4 + 8 + 4 + 8;
+
+    @Value("${spring.ai.agent.armory.snapshot.path:data/armory-snapshot.bin}")
+    private String snapshotPath;
+
+    @Override
+    public ArmorySnapshotEntity load() {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.exists(path)) {
+            log.info("Ai Agent 装配快照不存在 {}", path.toAbsolutePath());
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_LENGTH) {
+                log.warn("Ai Agent 装配快照文件不完整 {}", path.toAbsolutePath());
+                return null;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int magic = buffer.getInt();
+            int formatVersion = buffer.getInt();
+            long version = buffer.getLong();
+            int length = buffer.getInt();
+            long checksum = buffer.getLong();
+
+            if (magic != MAGIC || formatVersion != FORMAT_VERSION || length != buffer.remaining()) {
+                log.warn("Ai Agent 装配快照格式不匹配 magic:{} formatVersion:{}", Integer.toHexString(magic), formatVersion);
+                return null;
+            }
+
+            byte[] body = new byte[length];
+            buffer.get(body);
+
+            CRC32 crc32 = new CRC32();
+            crc32.update(body);
+            if (crc32.getValue() != checksum) {
+                log.warn("Ai Agent 装配快照校验失败 {}", path.toAbsolutePath());
+                return null;
+            }
+
+            ArmorySnapshotEntity armorySnapshotEntity = JSON.parseObject(new String(body, StandardCharsets.UTF_8), ArmorySnapshotEntity.class);
+            log.info("Ai Agent 装配快照读取完成 version:{} size:{}B", version, channel.size());
+            return armorySnapshotEntity;
+        } catch (Exception e) {
+            log.error("Ai Agent 装配快照读取失败 {}", path.toAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public void save(ArmorySnapshotEntity armorySnapshotEntity) {
+        Path path = Paths.get(snapshotPath).toAbsolutePath();
+        byte[] body = JSON.toJSONString(armorySnapshotEntity).getBytes(StandardCharsets.UTF_8);
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(body);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putLong(armorySnapshotEntity.getVersion())
+                .putInt(body.length)
+                .putLong(crc32.getValue())
+                .flip();
+
+        try {
+            if (null != path.getParent()) {
+                Files.createDirectories(path.getParent());
+            }
+
+            // 先写临时文件再原子替换，进程中断时不会留下半个快照
+            Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer content = ByteBuffer.wrap(body);
+                while (header.hasRemaining() || content.hasRemaining()) {
+                    channel.write(new ByteBuffer[]{header, content});
+                }
+                channel.force(true);
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            log.info("Ai Agent 装配快照写入完成 version:{} size:{}B", armorySnapshotEntity.getVersion(), HEADER_LENGTH + body.length);
+        } catch (IOException e) {
+            log.error("Ai Agent 装配快照写入失败 {}", path, e);
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package cn.bugstack.ai.infrastructure.adapter.repository;
+
+import cn.bugstack.ai.domain.agent.adapter.repository.IExecuteCheckpointRepository;
+import cn.bugstack.ai.domain.agent.model.entity.ExecuteCheckpointEntity;
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 执行检查点仓储服务；每个会话一个 JSON 文件，先写临时文件再原子替换。
+ * 会话ID由客户端传入，含路径字符时按内容生成文件名，避免越出检查点目录。
+ *
+ * @author jinjie
+ * 2025/8/16 10:32
+ */
+@Slf4j
+@Repository
+public class ExecuteCheckpointRepository implements IExecuteCheckpointRepository {
+
+    private static final Pattern SAFE_FILE_NAME = Pattern.compile("[A-Za-z0-9_\\-]{1,128}");
+
+    @Value("${spring.ai.agent.execute.checkpoint.path:data/execute-checkpoint}")
+    private String checkpointPath;
+
+    @Override
+    public ExecuteCheckpointEntity load(String sessionId) {
+        Path path = resolve(sessionId);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            String body = Files.readString(path, StandardCharsets.UTF_8);
+            return JSON.parseObject(body, ExecuteCheckpointEntity.class);
+        } catch (Exception e) {
+            log.error("执行检查点读取失败 sessionId:{} {}", sessionId, path, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void save(ExecuteCheckpointEntity executeCheckpointEntity) {
+        Path path = resolve(executeCheckpointEntity.getSessionId());
+        byte[] body = JSON.toJSONString(executeCheckpointEntity).getBytes(StandardCharsets.UTF_8);
+        try {
+            Files.createDirectories(path.getParent());
+
+            // 先写临时文件再原子替换，进程中断时保留上一个完整的检查点
+            Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer content = ByteBuffer.wrap(body);
+                while (content.hasRemaining()) {
+                    channel.write(content);
+                }
+                channel.force(true);
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("执行检查点写入失败 sessionId:{} {}", executeCheckpointEntity.getSessionId(), path, e);
+        }
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        Path path = resolve(sessionId);
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error("执行检查点删除失败 sessionId:{} {}", sessionId, path, e);
+        }
+    }
+
+    @Override
+    public int deleteExpired(long expireBeforeMillis) {
+        Path directory = Paths.get(checkpointPath).toAbsolutePath();
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int deleted = 0;
+        // 写入中断遗留的临时文件一并清理
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String fileName = path.getFileName().toString();
+                if (!fileName.endsWith(".json") && !fileName.endsWith(".json.tmp")) {
+                    continue;
+                }
+                try {
+                    if (Files.getLastModifiedTime(path).toMillis() < expireBeforeMillis && Files.deleteIfExists(path)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("过期执行检查点删除失败 {}", path, e);
+                }
+            }
+        } catch (IOException e) {
+            log.error("执行检查点目录读取失败 {}", directory, e);
+        }
+        return deleted;
+    }
+
+    private Path resolve(String sessionId) {
+        String fileName = SAFE_FILE_NAME.matcher(sessionId).matches()
+                ? sessionId
+                : UUID.nameUUIDFromBytes(sessionId.getBytes(StandardCharsets.UTF_8)).toString();
+        return Paths.get(checkpointPath).toAbsolutePath().resolve(fileName + ".json");
+    }
+
+}
@@ -0,0 +1,65 @@
+package cn.bugstack.ai.infrastructure.adapter.repository;
+
+import cn.bugstack.ai.domain.agent.adapter.repository.IExecuteEventRepository;
+import cn.bugstack.ai.domain.agent.model.entity.AutoAgentExecuteResultEntity;
+import cn.bugstack.ai.domain.agent.model.entity.ExecuteSessionEntity;
+import cn.bugstack.ai.infrastructure.dao.IAiAgentExecuteEventDao;
+import cn.bugstack.ai.infrastructure.dao.IAiAgentExecuteSessionDao;
+import cn.bugstack.ai.infrastructure.dao.po.AiAgentExecuteEvent;
+import cn.bugstack.ai.infrastructure.dao.po.AiAgentExecuteSession;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 执行会话、执行事件仓储服务；每批一条多值 INSERT 写入
+ *
+ * @author jinjie
+ * 2025/8/14 11:02
+ */
+@Repository
+public class ExecuteEventRepository implements IExecuteEventRepository {
+
+    @Resource
+    private IAiAgentExecuteSessionDao aiAgentExecuteSessionDao;
+
+    @Resource
+    private IAiAgentExecuteEventDao aiAgentExecuteEventDao;
+
+    @Override
+    public void saveExecuteSessions(List<ExecuteSessionEntity> sessions) {
+        List<AiAgentExecuteSession> aiAgentExecuteSessions = new ArrayList<>(sessions.size());
+        for (ExecuteSessionEntity session : sessions) {
+            aiAgentExecuteSessions.add(AiAgentExecuteSession.builder()
+                    .sessionId(session.getSessionId())
+                    .agentId(session.getAiAgentId())
+                    .message(session.getMessage())
+                    .maxStep(session.getMaxStep())
+                    .status(session.getStatus())
+                    .startTime(session.getStartTime())
+                    .endTime(session.getEndTime())
+                    .build());
+        }
+        aiAgentExecuteSessionDao.insertOrUpdateBatch(aiAgentExecuteSessions);
+    }
+
+    @Override
+    public void saveExecuteEvents(List<AutoAgentExecuteResultEntity> events) {
+        List<AiAgentExecuteEvent> aiAgentExecuteEvents = new ArrayList<>(events.size());
+        for (AutoAgentExecuteResultEntity event : events) {
+            aiAgentExecuteEvents.add(AiAgentExecuteEvent.builder()
+                    .sessionId(event.getSessionId())
+                    .type(event.getType())
+                    .subType(event.getSubType())
+                    .step(event.getStep())
+                    .content(event.getContent())
+                    .completed(event.getCompleted())
+                    .eventTime(event.getTimestamp())
+                    .build());
+        }
+        aiAgentExecuteEventDao.insertBatch(aiAgentExecuteEvents);
+    }
+
+}
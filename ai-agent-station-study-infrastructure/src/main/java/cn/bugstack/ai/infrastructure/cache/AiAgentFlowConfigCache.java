@@ -0,0 +1,132 @@
+package cn.bugstack.ai.infrastructure.cache;
+
+import cn.bugstack.ai.domain.agent.model.valobj.AiAgentClientFlowConfigVO;
+import cn.bugstack.ai.infrastructure.dao.IAiAgentFlowConfigDao;
+import cn.bugstack.ai.infrastructure.dao.po.AiAgentFlowConfig;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 智能体客户端执行配置缓存；读穿透、容量有界，缓存不可变的配置 Map。
+ * 写入超过 refresh-after-seconds 后的首次读取在后台线程池刷新（期间返回旧值，刷新失败保留旧值），
+ * 超过 expire-after-minutes 未访问的智能体淘汰；配置变更时显式失效。
+ *
+ * @author jinjie
+ * 2025/8/13 15:10
+ */
+@Slf4j
+@Component
+public class AiAgentFlowConfigCache {
+
+    @Resource
+    private IAiAgentFlowConfigDao aiAgentFlowConfigDao;
+
+    @Resource
+    private ThreadPoolExecutor threadPoolExecutor;
+
+    @Value("${spring.ai.agent.flow-config.cache.maximum-size:1000}")
+    private long maximumSize;
+
+    /**
+     * 写入后刷新时间（秒）
+     */
+    @Value("${spring.ai.agent.flow-config.cache.refresh-after-seconds:60}")
+    private long refreshAfterSeconds;
+
+    /**
+     * 空闲淘汰时间（分钟）
+     */
+    @Value("${spring.ai.agent.flow-config.cache.expire-after-minutes:30}")
+    private long expireAfterMinutes;
+
+    private LoadingCache<String, Map<String, AiAgentClientFlowConfigVO>> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .refreshAfterWrite(refreshAfterSeconds, TimeUnit.SECONDS)
+                .expireAfterAccess(expireAfterMinutes, TimeUnit.MINUTES)
+                .recordStats()
+                .build(CacheLoader.asyncReloading(new CacheLoader<>() {
+                    @Override
+                    public Map<String, AiAgentClientFlowConfigVO> load(String aiAgentId) {
+                        return loadAiAgentClientFlowConfig(aiAgentId);
+                    }
+                }, threadPoolExecutor));
+    }
+
+    /**
+     * 读取配置；未命中时同步加载，加载异常向上抛出，不缓存空结果
+     */
+    public Map<String, AiAgentClientFlowConfigVO> get(String aiAgentId) {
+        return cache.getUnchecked(aiAgentId);
+    }
+
+    /**
+     * 从数据库加载，转换为 clientType -> 配置 的不可变 Map
+     */
+    private Map<String, AiAgentClientFlowConfigVO> loadAiAgentClientFlowConfig(String aiAgentId) {
+        List<AiAgentFlowConfig> flowConfigs = aiAgentFlowConfigDao.queryByAgentId(aiAgentId);
+        if (flowConfigs == null || flowConfigs.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, AiAgentClientFlowConfigVO> result = new HashMap<>();
+        for (AiAgentFlowConfig flowConfig : flowConfigs) {
+            AiAgentClientFlowConfigVO configVO = AiAgentClientFlowConfigVO.builder()
+                    .clientId(flowConfig.getClientId())
+                    .clientName(flowConfig.getClientName())
+                    .clientType(flowConfig.getClientType())
+                    .sequence(flowConfig.getSequence())
+                    .stepPrompt(flowConfig.getStepPrompt())
+                    .build();
+
+            result.put(flowConfig.getClientType(), configVO);
+        }
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    public void invalidate(String aiAgentId) {
+        cache.invalidate(aiAgentId);
+        log.info("智能体客户端执行配置缓存失效 aiAgentId:{}", aiAgentId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        log.info("智能体客户端执行配置缓存全部失效");
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Scheduled(fixedDelayString = "${spring.ai.agent.flow-config.cache.stats-interval:300000}")
+    public void logStats() {
+        CacheStats stats = cache.stats();
+        if (stats.requestCount() == 0) {
+            return;
+        }
+        log.info("智能体客户端执行配置缓存 size:{} hit:{} miss:{} hitRate:{} loadSuccess:{} loadException:{} avgLoad:{}ms eviction:{}",
+                cache.size(), stats.hitCount(), stats.missCount(), String.format("%.4f", stats.hitRate()),
+                stats.loadSuccessCount(), stats.loadExceptionCount(),
+                String.format("%.2f", stats.averageLoadPenalty() / 1_000_000), stats.evictionCount());
+    }
+
+}
@@ -0,0 +1,131 @@
+package cn.bugstack.ai.infrastructure.cache;
+
+import cn.bugstack.ai.domain.agent.model.valobj.AiClientToolMcpVO;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MCP 传输配置解析；按 (mcpId, update_time) 缓存解析结果，配置未变更时不重复解析。
+ * 解析器为共享的预配置 ObjectReader（线程安全），配置不合法时直接拒绝，不产生半填充的 VO。
+ *
+ * @author jinjie
+ * 2025/8/14 09:40
+ */
+@Slf4j
+@Component
+public class McpTransportConfigParser {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final ObjectReader SSE_READER = OBJECT_MAPPER.readerFor(AiClientToolMcpVO.TransportConfigSse.class);
+
+    private static final ObjectReader STDIO_READER = OBJECT_MAPPER.readerFor(new TypeReference<Map<String, AiClientToolMcpVO.TransportConfigStdio.Stdio>>() {
+    });
+
+    /**
+     * mcpId -> 解析结果
+     */
+    private final Map<String, ParsedTransportConfig> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 解析传输配置
+     *
+     * @param mcpId           MCP ID
+     * @param transportType   传输类型(sse/stdio)
+     * @param transportConfig 传输配置
+     * @param updateTime      配置更新时间
+     * @return 解析结果
+     * @throws IllegalArgumentException 传输类型未知或配置不合法
+     */
+    public ParsedTransportConfig parse(String mcpId, String transportType, String transportConfig, LocalDateTime updateTime) {
+        ParsedTransportConfig cached = cache.get(mcpId);
+        if (null != cached && cached.matches(transportType, transportConfig, updateTime)) {
+            return cached;
+        }
+
+        ParsedTransportConfig parsed = switch (StringUtils.defaultString(transportType)) {
+            case "sse" -> new ParsedTransportConfig(transportType, transportConfig, updateTime, parseSse(mcpId, transportConfig), null);
+            case "stdio" -> new ParsedTransportConfig(transportType, transportConfig, updateTime, null, parseStdio(mcpId, transportConfig));
+            default -> throw new IllegalArgumentException("mcp " + mcpId + " unknown transport type: " + transportType);
+        };
+
+        cache.put(mcpId, parsed);
+        log.info("解析MCP传输配置 mcpId:{} transportType:{}", mcpId, transportType);
+        return parsed;
+    }
+
+    private AiClientToolMcpVO.TransportConfigSse parseSse(String mcpId, String transportConfig) {
+        AiClientToolMcpVO.TransportConfigSse transportConfigSse;
+        try {
+            transportConfigSse = SSE_READER.readValue(transportConfig);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("mcp " + mcpId + " invalid sse transport config: " + e.getMessage(), e);
+        }
+
+        if (null == transportConfigSse || StringUtils.isBlank(transportConfigSse.getBaseUri())) {
+            throw new IllegalArgumentException("mcp " + mcpId + " sse transport config requires baseUri");
+        }
+        return transportConfigSse;
+    }
+
+    private AiClientToolMcpVO.TransportConfigStdio parseStdio(String mcpId, String transportConfig) {
+        Map<String, AiClientToolMcpVO.TransportConfigStdio.Stdio> stdio;
+        try {
+            stdio = STDIO_READER.readValue(transportConfig);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("mcp " + mcpId + " invalid stdio transport config: " + e.getMessage(), e);
+        }
+
+        if (null == stdio || stdio.isEmpty()) {
+            throw new IllegalArgumentException("mcp " + mcpId + " stdio transport config is empty");
+        }
+        for (Map.Entry<String, AiClientToolMcpVO.TransportConfigStdio.Stdio> entry : stdio.entrySet()) {
+            if (null == entry.getValue() || StringUtils.isBlank(entry.getValue().getCommand())) {
+                throw new IllegalArgumentException("mcp " + mcpId + " stdio server " + entry.getKey() + " requires command");
+            }
+        }
+
+        AiClientToolMcpVO.TransportConfigStdio transportConfigStdio = new AiClientToolMcpVO.TransportConfigStdio();
+        transportConfigStdio.setStdio(Map.copyOf(stdio));
+        return transportConfigStdio;
+    }
+
+    /**
+     * 解析结果；与原始配置一同缓存，用于判断是否需要重新解析
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ParsedTransportConfig {
+
+        private final String transportType;
+
+        private final String transportConfig;
+
+        private final LocalDateTime updateTime;
+
+        private final AiClientToolMcpVO.TransportConfigSse transportConfigSse;
+
+        private final AiClientToolMcpVO.TransportConfigStdio transportConfigStdio;
+
+        private boolean matches(String transportType, String transportConfig, LocalDateTime updateTime) {
+            return Objects.equals(this.updateTime, updateTime)
+                    && Objects.equals(this.transportType, transportType)
+                    && Objects.equals(this.transportConfig, transportConfig);
+        }
+
+    }
+
+}
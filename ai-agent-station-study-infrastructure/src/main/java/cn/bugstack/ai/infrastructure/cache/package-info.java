@@ -0,0 +1,4 @@
+/**
+ * 本地缓存，读穿透加载数据库配置。在 adapter 中调用这部分内容。
+ */
+package cn.bugstack.ai.infrastructure.cache;
@@ -0,0 +1,31 @@
+package cn.bugstack.ai.infrastructure.dao;
+
+import cn.bugstack.ai.infrastructure.dao.po.AiAgentExecuteEvent;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.util.List;
+
+/**
+ * 智能体执行事件表 DAO
+ *
+ * @author jinjie
+ * 2025/8/14 10:20
+ */
+@Mapper
+public interface IAiAgentExecuteEventDao {
+
+    /**
+     * 批量插入执行事件
+     * @param events 事件列表
+     * @return 影响行数
+     */
+    int insertBatch(List<AiAgentExecuteEvent> events);
+
+    /**
+     * 根据会话ID查询执行事件，按写入顺序排列
+     * @param sessionId 会话ID
+     * @return 事件列表
+     */
+    List<AiAgentExecuteEvent> queryBySessionId(String sessionId);
+
+}
@@ -0,0 +1,31 @@
+package cn.bugstack.ai.infrastructure.dao;
+
+import cn.bugstack.ai.infrastructure.dao.po.AiAgentExecuteSession;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.util.List;
+
+/**
+ * 智能体执行会话表 DAO
+ *
+ * @author jinjie
+ * 2025/8/14 10:20
+ */
+@Mapper
+public interface IAiAgentExecuteSessionDao {
+
+    /**
+     * 批量写入会话；会话ID已存在时更新状态和结束时间，同一批次内按列表顺序生效
+     * @param sessions 会话列表
+     * @return 影响行数
+     */
+    int insertOrUpdateBatch(List<AiAgentExecuteSession> sessions);
+
+    /**
+     * 根据会话ID查询会话
+     * @param sessionId 会话ID
+     * @return 会话对象
+     */
+    AiAgentExecuteSession queryBySessionId(String sessionId);
+
+}
@@ -62,6 +62,13 @@ public interface IAiClientAdvisorDao {
      */
     AiClientAdvisor queryByAdvisorId(String advisorId);
 
+    /**
+     * 根据顾问ID批量查询顾问配置
+     * @param advisorIdList 顾问ID列表
+     * @return 顾问配置列表
+     */
+    List<AiClientAdvisor> queryByAdvisorIds(List<String> advisorIdList);
+
     /**
      * 查询所有顾问配置
      * @return 顾问配置列表
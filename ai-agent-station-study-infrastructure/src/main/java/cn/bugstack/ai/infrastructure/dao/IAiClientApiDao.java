@@ -62,6 +62,13 @@ public interface IAiClientApiDao {
      */
     AiClientApi queryByApiId(String apiId);
 
+    /**
+     * 根据API ID批量查询AI客户端API配置
+     * @param apiIdList API ID列表
+     * @return AI客户端API配置列表
+     */
+    List<AiClientApi> queryByApiIds(List<String> apiIdList);
+
     /**
      * 查询所有启用的AI客户端API配置
      * @return AI客户端API配置列表
@@ -1,6 +1,7 @@
 package cn.bugstack.ai.infrastructure.dao;
 
 import cn.bugstack.ai.infrastructure.dao.po.AiClientConfig;
+import cn.bugstack.ai.infrastructure.dao.po.AiClientConfigVersion;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -92,6 +93,12 @@ public interface IAiClientConfigDao {
      */
     List<AiClientConfig> queryEnabledConfigs();
 
+    /**
+     * 查询启用状态配置的版本（数量、最后更新时间、校验和）
+     * @return 配置版本
+     */
+    AiClientConfigVersion queryEnabledConfigVersion();
+
     /**
      * 查询所有AI客户端配置
      * @return AI客户端配置对象列表
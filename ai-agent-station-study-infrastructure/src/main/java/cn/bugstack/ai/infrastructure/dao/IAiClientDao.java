@@ -62,6 +62,13 @@ public interface IAiClientDao {
      */
     AiClient queryByClientId(String clientId);
 
+    /**
+     * 根据客户端ID批量查询AI客户端配置
+     * @param clientIdList 客户端ID列表
+     * @return AI客户端配置列表
+     */
+    List<AiClient> queryByClientIds(List<String> clientIdList);
+
     /**
      * 查询所有启用的AI客户端配置
      * @return AI客户端配置列表
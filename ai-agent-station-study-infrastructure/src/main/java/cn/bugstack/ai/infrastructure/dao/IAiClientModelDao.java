@@ -62,6 +62,13 @@ public interface IAiClientModelDao {
      */
     AiClientModel queryByModelId(String modelId);
 
+    /**
+     * 根据模型ID批量查询AI客户端模型配置
+     * @param modelIdList 模型ID列表
+     * @return AI客户端模型配置列表
+     */
+    List<AiClientModel> queryByModelIds(List<String> modelIdList);
+
     /**
      * 根据API配置ID查询聊天模型配置
      * @param apiId API配置ID
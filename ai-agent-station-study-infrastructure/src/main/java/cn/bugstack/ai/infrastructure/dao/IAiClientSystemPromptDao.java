@@ -46,6 +46,13 @@ public interface IAiClientSystemPromptDao {
      */
     AiClientSystemPrompt queryByPromptId(String promptId);
 
+    /**
+     * 根据提示词ID批量查询系统提示词配置
+     * @param promptIdList 提示词ID列表
+     * @return 系统提示词配置列表
+     */
+    List<AiClientSystemPrompt> queryByPromptIds(List<String> promptIdList);
+
     /**
      * 查询启用的系统提示词配置
      */
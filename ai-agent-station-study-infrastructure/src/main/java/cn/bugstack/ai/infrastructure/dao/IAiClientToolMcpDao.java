@@ -62,6 +62,13 @@ public interface IAiClientToolMcpDao {
      */
     AiClientToolMcp queryByMcpId(String mcpId);
 
+    /**
+     * 根据MCP ID批量查询MCP客户端配置
+     * @param mcpIdList MCP ID列表
+     * @return MCP客户端配置列表
+     */
+    List<AiClientToolMcp> queryByMcpIds(List<String> mcpIdList);
+
     /**
      * 查询所有MCP客户端配置
      * @return MCP客户端配置列表
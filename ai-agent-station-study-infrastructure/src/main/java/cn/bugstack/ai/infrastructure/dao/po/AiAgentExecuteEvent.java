@@ -0,0 +1,67 @@
+package cn.bugstack.ai.infrastructure.dao.po;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 智能体执行事件表
+ *
+ * @author jinjie
+ * 2025/8/14 10:20
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AiAgentExecuteEvent {
+
+    /**
+     * 主键ID
+     */
+    private Long id;
+
+    /**
+     * 会话ID
+     */
+    private String sessionId;
+
+    /**
+     * 事件类型(analysis、execution、supervision、summary、error、complete)
+     */
+    private String type;
+
+    /**
+     * 细分类型
+     */
+    private String subType;
+
+    /**
+     * 执行步骤
+     */
+    private Integer step;
+
+    /**
+     * 事件内容
+     */
+    private String content;
+
+    /**
+     * 是否完成
+     */
+    private Boolean completed;
+
+    /**
+     * 事件时间戳(毫秒)
+     */
+    private Long eventTime;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+}
@@ -0,0 +1,72 @@
+package cn.bugstack.ai.infrastructure.dao.po;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 智能体执行会话表
+ *
+ * @author jinjie
+ * 2025/8/14 10:20
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AiAgentExecuteSession {
+
+    /**
+     * 主键ID
+     */
+    private Long id;
+
+    /**
+     * 会话ID
+     */
+    private String sessionId;
+
+    /**
+     * 智能体ID
+     */
+    private String agentId;
+
+    /**
+     * 用户输入
+     */
+    private String message;
+
+    /**
+     * 最大执行步数
+     */
+    private Integer maxStep;
+
+    /**
+     * 执行状态(running:执行中,completed:完成,failed:失败)
+     */
+    private String status;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+
+}
@@ -0,0 +1,36 @@
+package cn.bugstack.ai.infrastructure.dao.po;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * AI客户端统一关联配置表版本；启用配置的数量、最后更新时间和校验和，任一变化即需要重建内存索引
+ * @author jinjie
+ * 2025/8/13 10:02
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AiClientConfigVersion {
+
+    /**
+     * 启用配置数量
+     */
+    private Long configCount;
+
+    /**
+     * 最后更新时间
+     */
+    private LocalDateTime maxUpdateTime;
+
+    /**
+     * 校验和
+     */
+    private Long checksum;
+
+}
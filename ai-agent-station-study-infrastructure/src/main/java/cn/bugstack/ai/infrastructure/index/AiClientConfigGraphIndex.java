@@ -0,0 +1,138 @@
+package cn.bugstack.ai.infrastructure.index;
+
+import cn.bugstack.ai.infrastructure.dao.IAiClientConfigDao;
+import cn.bugstack.ai.infrastructure.dao.po.AiClientConfig;
+import cn.bugstack.ai.infrastructure.dao.po.AiClientConfigVersion;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * ai_client_config 关联配置的内存邻接索引；按 (sourceType, sourceId) 存放启用状态的出边，ID 字符串驻留复用。
+ * 索引整体不可变，刷新时先查询配置版本（数量、最后更新时间、校验和），变化后才全量重建并原子替换。
+ *
+ * @author jinjie
+ * 2025/8/13 10:20
+ */
+@Slf4j
+@Component
+public class AiClientConfigGraphIndex {
+
+    @Resource
+    private IAiClientConfigDao aiClientConfigDao;
+
+    private final Interner<String> interner = Interners.newWeakInterner();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 目标ID列表；如 client -> model、model -> tool_mcp
+     *
+     * @param sourceType 源类型
+     * @param sourceId   源ID
+     * @param targetType 目标类型
+     * @return 目标ID列表，按配置ID排序
+     */
+    public List<String> getTargetIds(String sourceType, String sourceId, String targetType) {
+        Map<String, List<String>> targets = current().getTargets(sourceType, sourceId);
+        return targets.getOrDefault(targetType, List.of());
+    }
+
+    /**
+     * 全部出边；targetType -> 目标ID列表
+     */
+    public Map<String, List<String>> getTargets(String sourceType, String sourceId) {
+        return current().getTargets(sourceType, sourceId);
+    }
+
+    /**
+     * 校验配置版本，变化时重建索引
+     */
+    public synchronized void refresh() {
+        AiClientConfigVersion version = aiClientConfigDao.queryEnabledConfigVersion();
+        if (null != snapshot && snapshot.version.equals(version)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<AiClientConfig> configs = new ArrayList<>(aiClientConfigDao.queryEnabledConfigs());
+        // 按配置ID排序，与逐行查询时的顺序一致（提示词按此顺序拼接）
+        configs.sort(Comparator.comparing(AiClientConfig::getId));
+
+        Map<String, Map<String, Map<String, List<String>>>> index = new HashMap<>();
+        for (AiClientConfig config : configs) {
+            index.computeIfAbsent(interner.intern(config.getSourceType()), k -> new HashMap<>())
+                    .computeIfAbsent(interner.intern(config.getSourceId()), k -> new HashMap<>())
+                    .computeIfAbsent(interner.intern(config.getTargetType()), k -> new ArrayList<>())
+                    .add(interner.intern(config.getTargetId()));
+        }
+
+        snapshot = new Snapshot(version, freeze(index));
+        log.info("AI客户端关联配置索引重建完成 edges:{} version:{} 耗时:{}ms", configs.size(), version, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 定时校验配置版本，保持索引与数据库一致
+     */
+    @Scheduled(fixedDelayString = "${spring.ai.agent.armory.config-index.refresh-interval:30000}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("AI客户端关联配置索引刷新失败，继续使用当前索引", e);
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (null == current) {
+            refresh();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private Map<String, Map<String, Map<String, List<String>>>> freeze(Map<String, Map<String, Map<String, List<String>>>> index) {
+        Map<String, Map<String, Map<String, List<String>>>> frozen = new HashMap<>();
+        index.forEach((sourceType, sources) -> {
+            Map<String, Map<String, List<String>>> frozenSources = new HashMap<>();
+            sources.forEach((sourceId, targets) -> {
+                Map<String, List<String>> frozenTargets = new HashMap<>();
+                targets.forEach((targetType, targetIds) -> frozenTargets.put(targetType, List.copyOf(targetIds)));
+                frozenSources.put(sourceId, Collections.unmodifiableMap(frozenTargets));
+            });
+            frozen.put(sourceType, frozenSources);
+        });
+        return frozen;
+    }
+
+    private static class Snapshot {
+
+        private final AiClientConfigVersion version;
+
+        /**
+         * sourceType -> sourceId -> targetType -> targetIds
+         */
+        private final Map<String, Map<String, Map<String, List<String>>>> index;
+
+        private Snapshot(AiClientConfigVersion version, Map<String, Map<String, Map<String, List<String>>>> index) {
+            this.version = version;
+            this.index = index;
+        }
+
+        private Map<String, List<String>> getTargets(String sourceType, String sourceId) {
+            Map<String, Map<String, List<String>>> sources = index.get(sourceType);
+            if (null == sources) {
+                return Map.of();
+            }
+            return sources.getOrDefault(sourceId, Map.of());
+        }
+
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * 配置数据的内存索引，由数据库加载并按版本刷新。在 adapter 中调用这部分内容。
+ */
+package cn.bugstack.ai.infrastructure.index;
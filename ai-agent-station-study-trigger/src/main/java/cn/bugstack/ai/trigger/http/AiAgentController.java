@@ -1,16 +1,27 @@
 package cn.bugstack.ai.trigger.http;
 
 import cn.bugstack.ai.api.IAiAgentService;
+import cn.bugstack.ai.api.dto.ArmoryRequestDTO;
 import cn.bugstack.ai.api.dto.AutoAgentRequestDTO;
+import cn.bugstack.ai.api.response.Response;
+import cn.bugstack.ai.domain.agent.adapter.repository.IAgentRepository;
+import cn.bugstack.ai.domain.agent.model.entity.ArmoryCommandEntity;
 import cn.bugstack.ai.domain.agent.model.entity.ExecuteCommandEntity;
+import cn.bugstack.ai.domain.agent.model.valobj.enums.AiAgentEnumVO;
+import cn.bugstack.ai.domain.agent.service.armory.factory.DefaultArmoryStrategyFactory;
 import cn.bugstack.ai.domain.agent.service.execute.IExecuteStrategy;
+import cn.bugstack.ai.types.enums.ResponseCode;
+import cn.bugstack.ai.types.exception.AppException;
 import com.alibaba.fastjson.JSON;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import javax.annotation.Resource;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ThreadPoolExecutor;
 
 /**
@@ -30,6 +41,12 @@ public class AiAgentController implements IAiAgentService {
     @Resource
     private ThreadPoolExecutor threadPoolExecutor;
 
+    @Resource
+    private DefaultArmoryStrategyFactory defaultArmoryStrategyFactory;
+
+    @Resource
+    private IAgentRepository repository;
+
     @RequestMapping(value = "auto_agent", method = RequestMethod.POST)
     public ResponseBodyEmitter autoAgent(@RequestBody AutoAgentRequestDTO request, HttpServletResponse response) {
         log.info("AutoAgent流式执行请求开始，请求信息：{}", JSON.toJSONString(request));
@@ -50,6 +67,7 @@ public class AiAgentController implements IAiAgentService {
                     .message(request.getMessage())
                     .sessionId(request.getSessionId())
                     .maxStep(request.getMaxStep())
+                    .timeout(request.getTimeout())
                     .build();
             
             // 3. 异步执行AutoAgent
@@ -59,7 +77,7 @@ public class AiAgentController implements IAiAgentService {
                 } catch (Exception e) {
                     log.error("AutoAgent执行异常：{}", e.getMessage(), e);
                     try {
-                        emitter.send("执行异常：" + e.getMessage());
+                        emitter.send("执行异常：" + (e instanceof AppException appException ? appException.getInfo() : e.getMessage()));
                     } catch (Exception ex) {
                         log.error("发送异常信息失败：{}", ex.getMessage(), ex);
                     }
@@ -87,4 +105,74 @@ public class AiAgentController implements IAiAgentService {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * 装配客户端或对话模型；incremental 为 true 时仅重建配置变更（update_time）的组件及其下游依赖。
+     * 装配在线程池中异步执行，不占用请求线程。
+     */
+    @RequestMapping(value = "armory", method = RequestMethod.POST)
+    public CompletableFuture<Response<Boolean>> armory(@RequestBody ArmoryRequestDTO request) {
+        log.info("Ai Agent 装配请求开始，请求信息：{}", JSON.toJSONString(request));
+
+        if (null == request.getClientIdList() || request.getClientIdList().isEmpty()) {
+            return CompletableFuture.completedFuture(Response.<Boolean>builder()
+                    .code(ResponseCode.ILLEGAL_PARAMETER.getCode())
+                    .info(ResponseCode.ILLEGAL_PARAMETER.getInfo())
+                    .data(false)
+                    .build());
+        }
+
+        String commandType = StringUtils.isBlank(request.getCommandType()) ? AiAgentEnumVO.AI_CLIENT.getCode() : request.getCommandType();
+
+        return defaultArmoryStrategyFactory.armoryAsync(
+                        ArmoryCommandEntity.builder()
+                                .commandType(commandType)
+                                .commandIdList(request.getClientIdList())
+                                .incremental(request.isIncremental())
+                                .build())
+                .thenApply(result -> Response.<Boolean>builder()
+                        .code(ResponseCode.SUCCESS.getCode())
+                        .info(ResponseCode.SUCCESS.getInfo())
+                        .data(true)
+                        .build())
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && null != e.getCause() ? e.getCause() : e;
+                    if (cause instanceof AppException appException) {
+                        log.warn("Ai Agent 装配请求参数错误：{}", appException.getInfo());
+                        return Response.<Boolean>builder()
+                                .code(appException.getCode())
+                                .info(appException.getInfo())
+                                .data(false)
+                                .build();
+                    }
+                    log.error("Ai Agent 装配请求处理异常：{}", e.getMessage(), e);
+                    return Response.<Boolean>builder()
+                            .code(ResponseCode.UN_ERROR.getCode())
+                            .info(ResponseCode.UN_ERROR.getInfo())
+                            .data(false)
+                            .build();
+                });
+    }
+
+    /**
+     * 客户端执行配置（ai_agent_flow_config）变更后失效缓存；aiAgentId 为空时全部失效
+     */
+    @RequestMapping(value = "flow_config/invalidate", method = RequestMethod.POST)
+    public Response<Boolean> invalidateFlowConfig(@RequestParam(value = "aiAgentId", required = false) String aiAgentId) {
+        try {
+            repository.invalidateAiAgentClientFlowConfig(aiAgentId);
+            return Response.<Boolean>builder()
+                    .code(ResponseCode.SUCCESS.getCode())
+                    .info(ResponseCode.SUCCESS.getInfo())
+                    .data(true)
+                    .build();
+        } catch (Exception e) {
+            log.error("客户端执行配置缓存失效异常 aiAgentId:{}", aiAgentId, e);
+            return Response.<Boolean>builder()
+                    .code(ResponseCode.UN_ERROR.getCode())
+                    .info(ResponseCode.UN_ERROR.getInfo())
+                    .data(false)
+                    .build();
+        }
+    }
+
+}
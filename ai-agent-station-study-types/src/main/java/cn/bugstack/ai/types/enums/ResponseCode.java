@@ -12,6 +12,9 @@ public enum ResponseCode {
     SUCCESS("0000", "成功"),
     UN_ERROR("0001", "未知失败"),
     ILLEGAL_PARAMETER("0002", "非法参数"),
+    EXECUTE_CANCELLED("0003", "执行已取消"),
+    EXECUTE_DEADLINE_EXCEEDED("0004", "执行超出截止时间"),
+    EXECUTE_SESSION_RUNNING("0005", "会话正在执行"),
     ;
 
     private String code;
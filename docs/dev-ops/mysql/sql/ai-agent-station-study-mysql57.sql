@@ -54,6 +54,50 @@ VALUES
 UNLOCK TABLES;
 
 
+# 转储表 ai_agent_execute_event
+# ------------------------------------------------------------
+
+DROP TABLE IF EXISTS `ai_agent_execute_event`;
+
+CREATE TABLE `ai_agent_execute_event` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `session_id` varchar(64) NOT NULL COMMENT '会话ID',
+  `type` varchar(32) NOT NULL COMMENT '事件类型(analysis、execution、supervision、summary、error、complete)',
+  `sub_type` varchar(64) DEFAULT NULL COMMENT '细分类型',
+  `step` int DEFAULT NULL COMMENT '执行步骤',
+  `content` mediumtext COMMENT '事件内容',
+  `completed` tinyint(1) DEFAULT '0' COMMENT '是否完成(0:否,1:是)',
+  `event_time` bigint NOT NULL COMMENT '事件时间戳(毫秒)',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_session_id` (`session_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='智能体执行事件表';
+
+
+
+# 转储表 ai_agent_execute_session
+# ------------------------------------------------------------
+
+DROP TABLE IF EXISTS `ai_agent_execute_session`;
+
+CREATE TABLE `ai_agent_execute_session` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `session_id` varchar(64) NOT NULL COMMENT '会话ID',
+  `agent_id` varchar(64) NOT NULL COMMENT '智能体ID',
+  `message` text COMMENT '用户输入',
+  `max_step` int DEFAULT NULL COMMENT '最大执行步数',
+  `status` varchar(16) NOT NULL COMMENT '执行状态(running:执行中,completed:完成,failed:失败)',
+  `start_time` datetime DEFAULT NULL COMMENT '开始时间',
+  `end_time` datetime DEFAULT NULL COMMENT '结束时间',
+  `create_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_session_id` (`session_id`),
+  KEY `idx_agent_id` (`agent_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='智能体执行会话表';
+
+
+
 # 转储表 ai_agent_flow_config
 # ------------------------------------------------------------
 
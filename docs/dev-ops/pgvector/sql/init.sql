@@ -22,4 +22,16 @@ CREATE TABLE public.vector_store_openai (
     content TEXT NOT NULL,
     metadata JSONB,
     embedding VECTOR(1536)
-);
\ No newline at end of file
+);
+
+-- 智能体答案语义缓存；content 为用户输入，答案存于 metadata
+DROP TABLE IF EXISTS public.vector_store_answer_cache;
+
+CREATE TABLE public.vector_store_answer_cache (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    content TEXT NOT NULL,
+    metadata JSONB,
+    embedding VECTOR(1536)
+);
+
+CREATE INDEX ON public.vector_store_answer_cache USING HNSW (embedding vector_cosine_ops);
\ No newline at end of file